@@ -0,0 +1,494 @@
+package com.magician.jdbc.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generate an EntityMapper for every class annotated with JDBCEntity.
+ * The generated mapper reads columns and properties with plain method calls, and finds the same properties as the runtime bean metadata,
+ * including the name, serialize and deserialize of JSONField
+ */
+@SupportedAnnotationTypes(EntityMapperProcessor.JDBC_ENTITY)
+public class EntityMapperProcessor extends AbstractProcessor {
+
+    static final String JDBC_ENTITY = "com.magician.jdbc.helper.mapper.JDBCEntity";
+
+    private static final String JSON_FIELD = "com.alibaba.fastjson2.annotation.JSONField";
+
+    private static final String ENTITY_MAPPER = "com.magician.jdbc.helper.mapper.EntityMapper";
+
+    private static final String SUFFIX = "_JDBCMapper";
+
+    private Elements elements;
+
+    private Types types;
+
+    private Filer filer;
+
+    private Messager messager;
+
+    /**
+     * Qualified names of the mappers generated during this compilation
+     */
+    private Set<String> generated = new TreeSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "JDBCEntity can only be used on classes and records", element);
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                if (!check(type)) {
+                    continue;
+                }
+                try {
+                    generate(type);
+                } catch (IOException e) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write the mapper: " + e.getMessage(), element);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeServices();
+        }
+        return true;
+    }
+
+    /**
+     * The generated mapper lives in the package of the class, so the class and its constructor must be reachable from there
+     * @param type
+     * @return
+     */
+    private boolean check(TypeElement type) {
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "A JDBCEntity can not be private", type);
+                return false;
+            }
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "A nested JDBCEntity must be static", type);
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "A JDBCEntity must be a top level or a nested class", type);
+            return false;
+        }
+        if (type.getKind() == ElementKind.RECORD) {
+            return true;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "A JDBCEntity can not be abstract", type);
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        messager.printMessage(Diagnostic.Kind.ERROR, "A JDBCEntity needs a no-argument constructor", type);
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        boolean record = type.getKind() == ElementKind.RECORD;
+        List<EntityProperty> writable = new ArrayList<>();
+        List<EntityProperty> readable = new ArrayList<>();
+        if (record) {
+            parseRecord(type, writable, readable);
+        } else {
+            parseBean(type, writable, readable);
+        }
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String entity = type.getQualifiedName().toString();
+
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("/**\n");
+        code.append(" * Mapper of {@link ").append(entity).append("}, generated at build time, do not edit\n");
+        code.append(" */\n");
+        code.append("@javax.annotation.processing.Generated(\"").append(EntityMapperProcessor.class.getName()).append("\")\n");
+        code.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        code.append("public final class ").append(simpleName).append(" implements ").append(ENTITY_MAPPER).append("<").append(entity).append("> {\n\n");
+
+        code.append("    private static final String[] PROPERTIES = {");
+        for (int i = 0; i < writable.size(); i++) {
+            code.append(i == 0 ? "" : ", ").append(elements.getConstantExpression(writable.get(i).getName()));
+        }
+        code.append("};\n\n");
+
+        code.append("    private static final com.magician.jdbc.helper.mapper.ColumnReader[] READERS = {");
+        for (int i = 0; i < writable.size(); i++) {
+            code.append(i == 0 ? "\n" : ",\n");
+            code.append("            com.magician.jdbc.helper.mapper.ColumnReader.of(").append(typeName(writable.get(i).getType(), false)).append(".class)");
+        }
+        code.append(writable.isEmpty() ? "};\n\n" : "\n    };\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public Class<").append(entity).append("> getType() {\n");
+        code.append("        return ").append(entity).append(".class;\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public com.magician.jdbc.helper.mapper.RowMapper<").append(entity).append("> getRowMapper(String[] labels) {\n");
+        code.append("        int[] slots = com.magician.jdbc.helper.mapper.EntityMapperManager.match(PROPERTIES, labels);\n");
+        code.append("        return resultSet -> {\n");
+        if (record) {
+            writeRecordRow(code, entity, writable);
+        } else {
+            writeBeanRow(code, entity, writable);
+        }
+        code.append("        };\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public java.util.Map<String, Object> toMap(").append(entity).append(" obj) {\n");
+        code.append("        java.util.Map<String, Object> map = new java.util.LinkedHashMap<>(").append(readable.size() * 4 / 3 + 1).append(");\n");
+        for (EntityProperty property : readable) {
+            code.append("        map.put(").append(elements.getConstantExpression(property.getName())).append(", obj.");
+            if (property.getMethod() != null) {
+                code.append(property.getMethod()).append("()");
+            } else {
+                code.append(property.getField());
+            }
+            code.append(");\n");
+        }
+        code.append("        return map;\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        JavaFileObject source = filer.createSourceFile(qualifiedName, type);
+        try (Writer writer = source.openWriter()) {
+            writer.write(code.toString());
+        }
+        generated.add(qualifiedName);
+    }
+
+    private void writeBeanRow(StringBuilder code, String entity, List<EntityProperty> writable) {
+        code.append("            ").append(entity).append(" obj = new ").append(entity).append("();\n");
+        code.append("            for (int i = 0; i < slots.length; i++) {\n");
+        code.append("                switch (slots[i]) {\n");
+        for (int i = 0; i < writable.size(); i++) {
+            EntityProperty property = writable.get(i);
+            String cast = "(" + typeName(property.getType(), true) + ") value";
+            code.append("                    case ").append(i).append(": {\n");
+            code.append("                        Object value = READERS[").append(i).append("].read(resultSet, i + 1);\n");
+            code.append("                        if (value != null) {\n");
+            if (property.getMethod() != null) {
+                code.append("                            obj.").append(property.getMethod()).append("(").append(cast).append(");\n");
+            } else {
+                code.append("                            obj.").append(property.getField()).append(" = ").append(cast).append(";\n");
+            }
+            code.append("                        }\n");
+            code.append("                        break;\n");
+            code.append("                    }\n");
+        }
+        code.append("                    default:\n");
+        code.append("                        break;\n");
+        code.append("                }\n");
+        code.append("            }\n");
+        code.append("            return obj;\n");
+    }
+
+    private void writeRecordRow(StringBuilder code, String entity, List<EntityProperty> writable) {
+        code.append("            Object[] args = new Object[").append(writable.size()).append("];\n");
+        code.append("            for (int i = 0; i < slots.length; i++) {\n");
+        code.append("                if (slots[i] >= 0) {\n");
+        code.append("                    args[slots[i]] = READERS[slots[i]].read(resultSet, i + 1);\n");
+        code.append("                }\n");
+        code.append("            }\n");
+        code.append("            return new ").append(entity).append("(");
+        for (int i = 0; i < writable.size(); i++) {
+            TypeMirror type = writable.get(i).getType();
+            code.append(i == 0 ? "\n                    " : ",\n                    ");
+            String cast = "(" + typeName(type, true) + ") args[" + i + "]";
+            if (type.getKind().isPrimitive()) {
+                // SQL NULL leaves a primitive component at its default value
+                code.append("args[").append(i).append("] == null ? ").append(defaultValue(type)).append(" : ").append(cast);
+            } else {
+                code.append(cast);
+            }
+        }
+        code.append(");\n");
+    }
+
+    private void parseRecord(TypeElement type, List<EntityProperty> writable, List<EntityProperty> readable) {
+        for (RecordComponentElement component : type.getRecordComponents()) {
+            String name = component.getSimpleName().toString();
+            ExecutableElement accessor = component.getAccessor();
+            AnnotationMirror jsonField = jsonField(accessor);
+            writable.add(new EntityProperty(annotatedName(jsonField, name), component.asType(), null, null));
+
+            if (jsonField != null && !booleanValue(jsonField, "serialize")) {
+                continue;
+            }
+            readable.add(new EntityProperty(annotatedName(jsonField, name), component.asType(), accessor.getSimpleName().toString(), null));
+        }
+    }
+
+    private void parseBean(TypeElement type, List<EntityProperty> writable, List<EntityProperty> readable) {
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        Map<String, ExecutableElement> setters = new TreeMap<>();
+        Map<String, ExecutableElement> getters = new TreeMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC)
+                    || method.getModifiers().contains(Modifier.STATIC)
+                    || ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            int parameterCount = method.getParameters().size();
+            TypeKind returnKind = method.getReturnType().getKind();
+            if (parameterCount == 1 && name.length() > 3 && name.startsWith("set")) {
+                setters.putIfAbsent(decapitalize(name.substring(3)), method);
+            } else if (parameterCount == 0 && returnKind != TypeKind.VOID) {
+                if (name.length() > 3 && name.startsWith("get")) {
+                    getters.putIfAbsent(decapitalize(name.substring(3)), method);
+                } else if (name.length() > 2 && name.startsWith("is") && isBoolean(method.getReturnType())) {
+                    getters.putIfAbsent(decapitalize(name.substring(2)), method);
+                }
+            }
+        }
+
+        // Superclass fields first, then declaration order, the same order as the runtime metadata
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null && !current.getQualifiedName().contentEquals("java.lang.Object"); ) {
+            hierarchy.add(0, current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+
+        Set<String> writeNames = new HashSet<>();
+        Set<String> readNames = new HashSet<>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                String name = field.getSimpleName().toString();
+                if (field.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                AnnotationMirror jsonField = jsonField(field);
+                TypeMirror fieldType = types.asMemberOf(declaredType, field);
+                boolean isPublic = field.getModifiers().contains(Modifier.PUBLIC);
+
+                if (!writeNames.contains(name)) {
+                    ExecutableElement setter = setters.remove(name);
+                    if (setter != null) {
+                        addSetter(writable, declaredType, name, setter, jsonField);
+                        writeNames.add(name);
+                    } else if (isPublic && !field.getModifiers().contains(Modifier.FINAL)) {
+                        if (jsonField == null || booleanValue(jsonField, "deserialize")) {
+                            writable.add(new EntityProperty(annotatedName(jsonField, name), fieldType, null, name));
+                            writeNames.add(name);
+                        }
+                    }
+                }
+
+                if (!readNames.contains(name)) {
+                    ExecutableElement getter = getters.remove(name);
+                    if (getter != null) {
+                        addGetter(readable, declaredType, name, getter, jsonField);
+                        readNames.add(name);
+                    } else if (isPublic) {
+                        if (jsonField == null || booleanValue(jsonField, "serialize")) {
+                            readable.add(new EntityProperty(annotatedName(jsonField, name), fieldType, null, name));
+                            readNames.add(name);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Setters and getters that do not correspond to a field
+        for (Map.Entry<String, ExecutableElement> entry : setters.entrySet()) {
+            addSetter(writable, declaredType, entry.getKey(), entry.getValue(), null);
+        }
+        for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+            addGetter(readable, declaredType, entry.getKey(), entry.getValue(), null);
+        }
+    }
+
+    private void addSetter(List<EntityProperty> writable, DeclaredType declaredType, String name, ExecutableElement setter, AnnotationMirror fieldAnnotation) {
+        AnnotationMirror jsonField = jsonField(setter);
+        if (jsonField == null) {
+            jsonField = fieldAnnotation;
+        }
+        if (jsonField != null && !booleanValue(jsonField, "deserialize")) {
+            return;
+        }
+        ExecutableType executableType = (ExecutableType) types.asMemberOf(declaredType, setter);
+        writable.add(new EntityProperty(annotatedName(jsonField, name), executableType.getParameterTypes().get(0), setter.getSimpleName().toString(), null));
+    }
+
+    private void addGetter(List<EntityProperty> readable, DeclaredType declaredType, String name, ExecutableElement getter, AnnotationMirror fieldAnnotation) {
+        AnnotationMirror jsonField = jsonField(getter);
+        if (jsonField == null) {
+            jsonField = fieldAnnotation;
+        }
+        if (jsonField != null && !booleanValue(jsonField, "serialize")) {
+            return;
+        }
+        ExecutableType executableType = (ExecutableType) types.asMemberOf(declaredType, getter);
+        readable.add(new EntityProperty(annotatedName(jsonField, name), executableType.getReturnType(), getter.getSimpleName().toString(), null));
+    }
+
+    /**
+     * List the generated mappers for ServiceLoader, so that they are also found where classes can not be looked up by name
+     */
+    private void writeServices() {
+        try {
+            FileObject services = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + ENTITY_MAPPER);
+            try (Writer writer = services.openWriter()) {
+                for (String name : generated) {
+                    writer.write(name);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The mappers are still found by name
+            messager.printMessage(Diagnostic.Kind.WARNING, "Unable to write the EntityMapper services file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Name of the type as written in source, raw and without type annotations
+     * @param type
+     * @param boxed use the wrapper of a primitive type
+     * @return
+     */
+    private String typeName(TypeMirror type, boolean boxed) {
+        if (type.getKind().isPrimitive()) {
+            if (boxed) {
+                return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+            }
+            return type.getKind().name().toLowerCase();
+        }
+        TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erasure).getComponentType(), false) + "[]";
+        }
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) types.asElement(erasure)).getQualifiedName().toString();
+        }
+        return "Object";
+    }
+
+    private String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            default:
+                return "0";
+        }
+    }
+
+    private boolean isBoolean(TypeMirror type) {
+        if (type.getKind() == TypeKind.BOOLEAN) {
+            return true;
+        }
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) types.asElement(type)).getQualifiedName().contentEquals("java.lang.Boolean");
+    }
+
+    private AnnotationMirror jsonField(Element element) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(JSON_FIELD)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    private boolean booleanValue(AnnotationMirror annotationMirror, String key) {
+        Object value = value(annotationMirror, key);
+        return value == null || Boolean.TRUE.equals(value);
+    }
+
+    private String annotatedName(AnnotationMirror jsonField, String name) {
+        if (jsonField == null) {
+            return name;
+        }
+        Object value = value(jsonField, "name");
+        if (value != null && !value.toString().isEmpty()) {
+            return value.toString();
+        }
+        return name;
+    }
+
+    private Object value(AnnotationMirror annotationMirror, String key) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(key)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.magician.jdbc.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A property found on an annotated class, either written from a column or read as a parameter
+ */
+public class EntityProperty {
+
+    /**
+     * property name, the JSONField name if there is one
+     */
+    private String name;
+
+    private TypeMirror type;
+
+    /**
+     * Name of the setter, getter or record accessor
+     */
+    private String method;
+
+    /**
+     * Name of the public field, when there is no method
+     */
+    private String field;
+
+    public EntityProperty(String name, TypeMirror type, String method, String field) {
+        this.name = name;
+        this.type = type;
+        this.method = method;
+        this.field = field;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TypeMirror getType() {
+        return type;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,260 @@
+package com.magician.jdbc.processor;
+
+import com.magician.jdbc.helper.mapper.BeanMeta;
+import com.magician.jdbc.helper.mapper.EntityMapper;
+import com.magician.jdbc.helper.mapper.EntityMapperManager;
+import com.magician.jdbc.helper.mapper.RowMapper;
+import com.magician.jdbc.helper.mapper.RowMapperFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityMapperProcessorTest {
+
+    @TempDir
+    Path dir;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    private boolean compile(String... sources) throws IOException {
+        Path src = dir.resolve("src");
+        Path out = dir.resolve("out");
+        Path generated = dir.resolve("generated");
+        Files.createDirectories(out);
+        Files.createDirectories(generated);
+
+        Map<String, String> files = new TreeMap<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            files.put(sources[i], sources[i + 1]);
+        }
+        List<Path> paths = new ArrayList<>();
+        for (Map.Entry<String, String> entry : files.entrySet()) {
+            Path path = src.resolve(entry.getKey());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, entry.getValue());
+            paths.add(path);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    // The generated mappers are compiled against Magician-JDBC itself
+                    Arrays.asList("-d", out.toString(), "-s", generated.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromPaths(paths));
+            task.setProcessors(List.of(new EntityMapperProcessor()));
+            return task.call();
+        }
+    }
+
+    private String generated(String path) throws IOException {
+        return Files.readString(dir.resolve("generated").resolve(path));
+    }
+
+    private List<String> errors() {
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        return errors;
+    }
+
+    @Test
+    public void generatesBeanMapper() throws IOException {
+        boolean success = compile("demo/User.java",
+                "package demo;\n"
+                        + "import com.alibaba.fastjson2.annotation.JSONField;\n"
+                        + "@com.magician.jdbc.helper.mapper.JDBCEntity\n"
+                        + "public class User {\n"
+                        + "    public enum Status { ACTIVE, BLOCKED }\n"
+                        + "    private long id;\n"
+                        + "    @JSONField(name = \"user_name\")\n"
+                        + "    private String userName;\n"
+                        + "    private Status status;\n"
+                        + "    @JSONField(serialize = false)\n"
+                        + "    private String password;\n"
+                        + "    public long getId() { return id; }\n"
+                        + "    public void setId(long id) { this.id = id; }\n"
+                        + "    public String getUserName() { return userName; }\n"
+                        + "    public void setUserName(String userName) { this.userName = userName; }\n"
+                        + "    public Status getStatus() { return status; }\n"
+                        + "    public void setStatus(Status status) { this.status = status; }\n"
+                        + "    public String getPassword() { return password; }\n"
+                        + "    public void setPassword(String password) { this.password = password; }\n"
+                        + "}\n");
+
+        assertTrue(success, errors().toString());
+        String code = generated("demo/User_JDBCMapper.java");
+
+        assertTrue(code.contains("public final class User_JDBCMapper implements com.magician.jdbc.helper.mapper.EntityMapper<demo.User>"), code);
+        assertTrue(code.contains("PROPERTIES = {\"id\", \"user_name\", \"status\", \"password\"}"), code);
+        assertTrue(code.contains("ColumnReader.of(long.class)"), code);
+        assertTrue(code.contains("ColumnReader.of(demo.User.Status.class)"), code);
+        assertTrue(code.contains("obj.setId((java.lang.Long) value);"), code);
+
+        assertTrue(code.contains("map.put(\"id\", obj.getId());"), code);
+        assertTrue(code.contains("map.put(\"user_name\", obj.getUserName());"), code);
+        // Enums are passed as they are and left to their type handler
+        assertTrue(code.contains("map.put(\"status\", obj.getStatus());"), code);
+        assertFalse(code.contains(".name()"), code);
+        // serialize = false keeps the property out of the parameters but still reads it
+        assertFalse(code.contains("map.put(\"password\""), code);
+
+        assertEquals("demo.User_JDBCMapper\n",
+                Files.readString(dir.resolve("out/META-INF/services/com.magician.jdbc.helper.mapper.EntityMapper")));
+    }
+
+    @Test
+    public void generatesRecordMapper() throws IOException {
+        boolean success = compile("demo/Point.java",
+                "package demo;\n"
+                        + "@com.magician.jdbc.helper.mapper.JDBCEntity\n"
+                        + "public record Point(int x, Integer y, String label) {}\n");
+
+        assertTrue(success, errors().toString());
+        String code = generated("demo/Point_JDBCMapper.java");
+
+        assertTrue(code.contains("PROPERTIES = {\"x\", \"y\", \"label\"}"), code);
+        assertTrue(code.contains("return new demo.Point("), code);
+        assertTrue(code.contains("map.put(\"x\", obj.x());"), code);
+        assertTrue(code.contains("map.put(\"label\", obj.label());"), code);
+    }
+
+    @Test
+    public void nestedClassMapperUsesBinaryName() throws IOException {
+        boolean success = compile("demo/Outer.java",
+                "package demo;\n"
+                        + "public class Outer {\n"
+                        + "    @com.magician.jdbc.helper.mapper.JDBCEntity\n"
+                        + "    public static class Inner {\n"
+                        + "        public String name;\n"
+                        + "    }\n"
+                        + "}\n");
+
+        assertTrue(success, errors().toString());
+        String code = generated("demo/Outer$Inner_JDBCMapper.java");
+
+        assertTrue(code.contains("obj.name = (java.lang.String) value;"), code);
+        assertTrue(code.contains("map.put(\"name\", obj.name);"), code);
+    }
+
+    @Test
+    public void rejectsClassesTheMapperCanNotReach() throws IOException {
+        boolean success = compile("demo/Bad.java",
+                "package demo;\n"
+                        + "import com.magician.jdbc.helper.mapper.JDBCEntity;\n"
+                        + "public class Bad {\n"
+                        + "    @JDBCEntity private static class Hidden {}\n"
+                        + "    @JDBCEntity public class NotStatic {}\n"
+                        + "    @JDBCEntity public abstract static class Abstract {}\n"
+                        + "    @JDBCEntity public static class NoDefault { public NoDefault(int a) {} }\n"
+                        + "    @JDBCEntity public interface NotAClass {}\n"
+                        + "}\n");
+
+        assertFalse(success);
+        List<String> errors = errors();
+        assertTrue(errors.contains("A JDBCEntity can not be private"), errors.toString());
+        assertTrue(errors.contains("A nested JDBCEntity must be static"), errors.toString());
+        assertTrue(errors.contains("A JDBCEntity can not be abstract"), errors.toString());
+        assertTrue(errors.contains("A JDBCEntity needs a no-argument constructor"), errors.toString());
+        assertTrue(errors.contains("JDBCEntity can only be used on classes and records"), errors.toString());
+        assertFalse(Files.exists(dir.resolve("out/META-INF/services/com.magician.jdbc.helper.mapper.EntityMapper")));
+    }
+
+    @Test
+    public void generatedMapperIsUsedAtRuntime() throws Exception {
+        boolean success = compile("demo/Account.java",
+                "package demo;\n"
+                        + "import com.alibaba.fastjson2.annotation.JSONField;\n"
+                        + "@com.magician.jdbc.helper.mapper.JDBCEntity\n"
+                        + "public class Account {\n"
+                        + "    private long id;\n"
+                        + "    @JSONField(name = \"user_name\")\n"
+                        + "    private String userName;\n"
+                        + "    @JSONField(serialize = false)\n"
+                        + "    private String password;\n"
+                        + "    public long getId() { return id; }\n"
+                        + "    public void setId(long id) { this.id = id; }\n"
+                        + "    public String getUserName() { return userName; }\n"
+                        + "    public void setUserName(String userName) { this.userName = userName; }\n"
+                        + "    public String getPassword() { return password; }\n"
+                        + "    public void setPassword(String password) { this.password = password; }\n"
+                        + "}\n");
+        assertTrue(success, errors().toString());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.resolve("out").toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> cls = loader.loadClass("demo.Account");
+            EntityMapper<?> generated = EntityMapperManager.get(cls);
+            assertNotNull(generated);
+            assertEquals("demo.Account_JDBCMapper", generated.getClass().getName());
+
+            // Count the calls, to see that the row mappers and the parameters come from the generated mapper
+            AtomicInteger rowMappers = new AtomicInteger();
+            AtomicInteger maps = new AtomicInteger();
+            EntityMapperManager.register(counting(generated, rowMappers, maps));
+
+            Object account;
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:entityMapperProcessorTest");
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select 7 as id, 'ann' as user_name, 'secret' as password")) {
+                RowMapper<?> rowMapper = RowMapperFactory.getRowMapper(cls, resultSet.getMetaData());
+                assertTrue(resultSet.next());
+                account = rowMapper.mapRow(resultSet);
+            }
+            assertEquals(1, rowMappers.get());
+            assertEquals(7L, cls.getMethod("getId").invoke(account));
+            assertEquals("ann", cls.getMethod("getUserName").invoke(account));
+            assertEquals("secret", cls.getMethod("getPassword").invoke(account));
+
+            Map<String, Object> params = BeanMeta.toMap(account);
+            assertEquals(1, maps.get());
+            assertEquals(Map.of("id", 7L, "user_name", "ann"), params);
+        }
+    }
+
+    private static <T> EntityMapper<T> counting(EntityMapper<T> entityMapper, AtomicInteger rowMappers, AtomicInteger maps) {
+        return new EntityMapper<T>() {
+            @Override
+            public Class<T> getType() {
+                return entityMapper.getType();
+            }
+
+            @Override
+            public RowMapper<T> getRowMapper(String[] labels) {
+                rowMappers.incrementAndGet();
+                return entityMapper.getRowMapper(labels);
+            }
+
+            @Override
+            public Map<String, Object> toMap(T obj) {
+                maps.incrementAndGet();
+                return entityMapper.toMap(obj);
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.magician.jdbc.benchmark;
+
+import com.magician.jdbc.MagicianJDBC;
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * In-memory H2 database shared by the benchmarks, registered as the default data source
+ */
+public class BenchDatabase {
+
+    public static final String NAME = "bench";
+
+    public static final int ROWS = 10000;
+
+    private static JdbcDataSource dataSource;
+
+    /**
+     * Create and fill the tables once per benchmark fork
+     * @return
+     * @throws Exception
+     */
+    public static synchronized JdbcDataSource init() throws Exception {
+        if (dataSource != null) {
+            return dataSource;
+        }
+        JdbcDataSource jdbcDataSource = new JdbcDataSource();
+        jdbcDataSource.setURL("jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcDataSource.setUser("sa");
+
+        try (Connection connection = jdbcDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table bench_user(id bigint auto_increment primary key, name varchar(64), age int, balance double)");
+            statement.execute("create table bench_insert(id bigint auto_increment primary key, name varchar(64), age int, balance double)");
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement("insert into bench_user(name, age, balance) values(?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    preparedStatement.setString(1, "user" + i);
+                    preparedStatement.setInt(2, i % 80);
+                    preparedStatement.setDouble(3, i * 1.5);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+        }
+
+        MagicianJDBC.createJDBC()
+                .addPooledDataSource(NAME, jdbcDataSource)
+                .defaultDataSourceName(NAME);
+        dataSource = jdbcDataSource;
+        return dataSource;
+    }
+}
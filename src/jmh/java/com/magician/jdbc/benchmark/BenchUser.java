@@ -0,0 +1,47 @@
+package com.magician.jdbc.benchmark;
+
+/**
+ * Row of the bench_user table
+ */
+public class BenchUser {
+
+    private Long id;
+
+    private String name;
+
+    private Integer age;
+
+    private Double balance;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Double balance) {
+        this.balance = balance;
+    }
+}
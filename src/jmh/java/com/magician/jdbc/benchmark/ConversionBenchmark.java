@@ -0,0 +1,71 @@
+package com.magician.jdbc.benchmark;
+
+import com.magician.jdbc.core.util.JSONUtil;
+import com.magician.jdbc.helper.templete.conversion.SqlConversion;
+import com.magician.jdbc.helper.templete.model.SqlBuilderModel;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sql conversion and object mapping, no database involved
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConversionBenchmark {
+
+    private static final String SQL = "select * from bench_user where name = {name} and age > {age} and balance < {balance}";
+
+    private Map<String, Object> mapParam;
+
+    private BenchUser beanParam;
+
+    @Setup
+    public void setup() {
+        mapParam = new HashMap<>();
+        mapParam.put("id", 1L);
+        mapParam.put("name", "user1");
+        mapParam.put("age", 20);
+        mapParam.put("balance", 100.5);
+
+        beanParam = new BenchUser();
+        beanParam.setName("user1");
+        beanParam.setAge(20);
+        beanParam.setBalance(100.5);
+    }
+
+    @Benchmark
+    public SqlBuilderModel builderSqlMap() throws Exception {
+        return SqlConversion.builderSql(SQL, mapParam);
+    }
+
+    @Benchmark
+    public SqlBuilderModel builderSqlBean() throws Exception {
+        return SqlConversion.builderSql(SQL, beanParam);
+    }
+
+    @Benchmark
+    public SqlBuilderModel getSqlConditionBuilder() {
+        ConditionBuilder conditionBuilder = ConditionBuilder.createCondition()
+                .add("name = ?", "user1")
+                .add("and age > ?", 20)
+                .add("and balance < ?", 100.5);
+        StringBuffer sql = new StringBuffer("select * from bench_user where ");
+        return SqlConversion.getSql(sql, conditionBuilder.build());
+    }
+
+    @Benchmark
+    public BenchUser toJavaObject() {
+        return JSONUtil.toJavaObject(mapParam, BenchUser.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.magician.jdbc.benchmark;
+
+import com.magician.jdbc.helper.DBHelper;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import com.magician.jdbc.helper.templete.model.PageModel;
+import com.magician.jdbc.helper.templete.model.PageParamModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template operations against the in-memory database
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TemplateBenchmark {
+
+    /**
+     * Rows read by the list benchmarks
+     */
+    @Param({"10", "1000"})
+    private int rows;
+
+    private Connection connection;
+
+    private String listSql;
+
+    private BenchUser insertData;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        connection = BenchDatabase.init().getConnection();
+        listSql = "select id, name, age, balance from bench_user where id <= " + rows;
+
+        insertData = new BenchUser();
+        insertData.setName("insert");
+        insertData.setAge(30);
+        insertData.setBalance(10.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws Exception {
+        JDBCTemplate.get().exec("truncate table bench_insert");
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> dbHelperSelectList() throws Exception {
+        return DBHelper.selectList(listSql, connection, null);
+    }
+
+    @Benchmark
+    public List<Map> selectListMap() throws Exception {
+        return JDBCTemplate.get().selectList(listSql, Map.class);
+    }
+
+    @Benchmark
+    public List<BenchUser> selectListBean() throws Exception {
+        return JDBCTemplate.get().selectList(listSql, BenchUser.class);
+    }
+
+    @Benchmark
+    public int insert() throws Exception {
+        return JDBCTemplate.get().insert("bench_insert", insertData);
+    }
+
+    @Benchmark
+    public PageModel<BenchUser> selectPage() throws Exception {
+        PageParamModel pageParamModel = PageParamModel.getPageParamModel(10, rows)
+                .setParam(insertData);
+        return JDBCTemplate.get().selectPage("select id, name, age, balance from bench_user where age < {age}", pageParamModel, BenchUser.class);
+    }
+}
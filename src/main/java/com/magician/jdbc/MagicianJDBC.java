@@ -1,8 +1,26 @@
 package com.magician.jdbc;
 
+import com.magician.jdbc.core.constant.enums.LoadBalanceStrategy;
+import com.magician.jdbc.core.util.ExecutorUtil;
+import com.magician.jdbc.helper.cache.ProjectionCache;
+import com.magician.jdbc.helper.cache.ResultCache;
+import com.magician.jdbc.helper.manager.DataSourceGroup;
 import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.StatementCacheManager;
+import com.magician.jdbc.helper.monitor.JDBCListener;
+import com.magician.jdbc.helper.monitor.MonitorManager;
+import com.magician.jdbc.helper.pool.PoolConfig;
+import com.magician.jdbc.helper.pool.PooledDataSource;
+import com.magician.jdbc.helper.sharding.ShardingManager;
+import com.magician.jdbc.helper.sharding.ShardingRule;
+import com.magician.jdbc.helper.sharding.ShardingStrategy;
+import com.magician.jdbc.helper.templete.AsyncJDBCTemplate;
+import com.magician.jdbc.helper.templete.conversion.SqlConversion;
+import com.magician.jdbc.helper.type.TypeHandler;
+import com.magician.jdbc.helper.type.TypeHandlerManager;
 
 import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
 
 /**
  * JDBC management
@@ -28,6 +46,98 @@ public class MagicianJDBC {
         return this;
     }
 
+    /**
+     * Add a data source of a driver, wrapped in the built-in connection pool with the default configuration
+     * @param name
+     * @param dataSource
+     * @return
+     */
+    public MagicianJDBC addPooledDataSource(String name, DataSource dataSource){
+        return addPooledDataSource(name, dataSource, new PoolConfig());
+    }
+
+    /**
+     * Add a data source of a driver, wrapped in the built-in connection pool.
+     * Use it with a DataSource that does not pool connections itself
+     * @param name
+     * @param dataSource
+     * @param poolConfig
+     * @return
+     */
+    public MagicianJDBC addPooledDataSource(String name, DataSource dataSource, PoolConfig poolConfig){
+        DataSourceManager.addDataSource(name, new PooledDataSource(dataSource, poolConfig));
+        return this;
+    }
+
+    /**
+     * Add a primary data source with its replicas under one name, queries outside a transaction take the replicas in turn
+     * @param name
+     * @param primary
+     * @param replicas
+     * @return
+     */
+    public MagicianJDBC addDataSourceGroup(String name, DataSource primary, DataSource... replicas){
+        return addDataSourceGroup(name, LoadBalanceStrategy.ROUND_ROBIN, primary, replicas);
+    }
+
+    /**
+     * Add a primary data source with its replicas under one name.
+     * Writes and transactions use the primary, queries outside a transaction use a replica chosen by the strategy
+     * @param name
+     * @param loadBalanceStrategy
+     * @param primary
+     * @param replicas
+     * @return
+     */
+    public MagicianJDBC addDataSourceGroup(String name, LoadBalanceStrategy loadBalanceStrategy, DataSource primary, DataSource... replicas){
+        DataSourceManager.addDataSourceGroup(new DataSourceGroup(name, loadBalanceStrategy, primary, replicas));
+        return this;
+    }
+
+    /**
+     * Eject a replica of the group for ejectMillis after failureThreshold consecutive connection failures, the default is 3 failures and 30 seconds
+     * @param name
+     * @param failureThreshold
+     * @param ejectMillis
+     * @return
+     */
+    public MagicianJDBC replicaEjection(String name, int failureThreshold, long ejectMillis){
+        DataSourceGroup dataSourceGroup = DataSourceManager.getDataSourceGroup(name);
+        if (dataSourceGroup == null) {
+            throw new IllegalArgumentException("No data source group with name [" + name + "] found");
+        }
+        dataSourceGroup.setEjection(failureThreshold, ejectMillis);
+        return this;
+    }
+
+    /**
+     * Split a logical table over shards, ShardingJDBCTemplate routes its statements by the value of the sharding column.
+     * HashShardingStrategy, ModShardingStrategy and RangeShardingStrategy are built in
+     * @param logicalTable
+     * @param shardingColumn
+     * @param shardingStrategy
+     * @return
+     */
+    public MagicianJDBC addShardingRule(String logicalTable, String shardingColumn, ShardingStrategy shardingStrategy){
+        ShardingManager.addRule(new ShardingRule(logicalTable, shardingColumn, shardingStrategy));
+        return this;
+    }
+
+    /**
+     * Cache up to size PreparedStatements per connection of the data source, 0 (the default) turns caching off.
+     * Statements are kept on the physical connections of the pool, so they stay prepared when the connection is returned and borrowed again.
+     * This works with addPooledDataSource and with pools whose connections unwrap to the physical connection, such as HikariCP,
+     * a data source that gives out new physical connections does not cache statements.
+     * Statistics are available from StatementCacheManager.getStats(name)
+     * @param name
+     * @param size
+     * @return
+     */
+    public MagicianJDBC statementCacheSize(String name, int size){
+        StatementCacheManager.setCacheSize(name, size);
+        return this;
+    }
+
     /**
      * Set default datasource name
      * @return
@@ -36,4 +146,114 @@ public class MagicianJDBC {
         DataSourceManager.setDefaultDataSourceName(name);
         return this;
     }
+
+    /**
+     * Set the executor of asynchronous operations, by default virtual threads are used when the JVM supports them
+     * @param executorService
+     * @return
+     */
+    public MagicianJDBC asyncExecutor(ExecutorService executorService){
+        ExecutorUtil.setExecutor(executorService);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of asynchronous operations running at the same time on the data source, the default is 8
+     * @param name
+     * @param maxConcurrency
+     * @return
+     */
+    public MagicianJDBC asyncConcurrency(String name, int maxConcurrency){
+        AsyncJDBCTemplate.setMaxConcurrency(name, maxConcurrency);
+        return this;
+    }
+
+    /**
+     * Add a listener that receives the timings of connections, statements and transactions,
+     * MetricsRecorder is a built-in in-memory implementation
+     * @param listener
+     * @return
+     */
+    public MagicianJDBC addListener(JDBCListener listener){
+        MonitorManager.addListener(listener);
+        return this;
+    }
+
+    /**
+     * Cache the results of select and selectList on the data source for ttl milliseconds, 0 (the default) turns it off.
+     * Writes through JDBCTemplate drop the cached results of the tables they touch.
+     * Each caller gets its own copies of cached beans and Maps, records and other immutable rows are shared
+     * @param name
+     * @param ttl
+     * @return
+     */
+    public MagicianJDBC resultCache(String name, long ttl){
+        ResultCache.setTtl(name, ttl);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of cached query results, the default is 10000
+     * @param size
+     * @return
+     */
+    public MagicianJDBC resultCacheSize(int size){
+        ResultCache.setMaxSize(size);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of parsed sql statements to cache, the default is 1024
+     * @param size
+     * @return
+     */
+    public MagicianJDBC sqlTemplateCacheSize(int size){
+        SqlConversion.setSqlTemplateCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Whether single table selects only read the columns that the properties of the class map to, on by default.
+     * Turn it off to always run select *
+     * @param enabled
+     * @return
+     */
+    public MagicianJDBC columnProjection(boolean enabled){
+        ProjectionCache.setEnabled(enabled);
+        return this;
+    }
+
+    /**
+     * How long the column list of a single table select is kept before the columns of the table are read again,
+     * in milliseconds, 5 minutes by default. 0 keeps the lists until ProjectionCache.clear is called
+     * @param ttl
+     * @return
+     */
+    public MagicianJDBC columnProjectionTtl(long ttl){
+        ProjectionCache.setTtl(ttl);
+        return this;
+    }
+
+    /**
+     * Bind and read a java type with this handler, such as a JSONTypeHandler for objects kept in JSON columns.
+     * Register handlers before the first query, row mappers that were already created keep their readers
+     * @param cls
+     * @param typeHandler
+     * @param <T>
+     * @return
+     */
+    public <T> MagicianJDBC typeHandler(Class<T> cls, TypeHandler<T> typeHandler){
+        TypeHandlerManager.register(cls, typeHandler);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of sql statements whose parameter handlers are kept, the default is 1024
+     * @param size
+     * @return
+     */
+    public MagicianJDBC bindPlanCacheSize(int size){
+        TypeHandlerManager.setBindPlanCacheSize(size);
+        return this;
+    }
 }
@@ -0,0 +1,28 @@
+package com.magician.jdbc.core.constant.enums;
+
+/**
+ * How paging queries get the total number of rows
+ */
+public enum CountStrategy {
+
+    /**
+     * Run the count query before the page query
+     */
+    EXACT,
+
+    /**
+     * Do not count, the page carries no total
+     */
+    NONE,
+
+    /**
+     * Reuse the total of an earlier identical count query until it expires
+     */
+    CACHED,
+
+    /**
+     * Run the count query on a second connection while the page query runs, outside transactions only.
+     * It takes a slot of the async concurrency cap of the data source, when none is free the count runs before the page query
+     */
+    PARALLEL
+}
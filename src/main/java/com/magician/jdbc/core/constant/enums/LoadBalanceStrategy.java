@@ -0,0 +1,22 @@
+package com.magician.jdbc.core.constant.enums;
+
+/**
+ * How a data source group chooses the replica of a query
+ */
+public enum LoadBalanceStrategy {
+
+    /**
+     * Take the replicas in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Take the replica with the fewest connections in use
+     */
+    LEAST_IN_FLIGHT,
+
+    /**
+     * Take a random replica, faster replicas are more likely to be taken
+     */
+    LATENCY_WEIGHTED
+}
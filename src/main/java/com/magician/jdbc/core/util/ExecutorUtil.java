@@ -0,0 +1,57 @@
+package com.magician.jdbc.core.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for work that runs beside the calling thread
+ */
+public class ExecutorUtil {
+
+    private static volatile ExecutorService executor;
+
+    /**
+     * Get the executor, created on first use unless one has been set.
+     * It runs each task on a virtual thread when the JVM supports them, otherwise on a pool of daemon threads
+     * @return
+     */
+    public static ExecutorService getExecutor() {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (ExecutorUtil.class) {
+                result = executor;
+                if (result == null) {
+                    result = createDefaultExecutor();
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Use the given executor instead of the default one
+     * @param executorService
+     */
+    public static void setExecutor(ExecutorService executorService) {
+        executor = executorService;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            // Looked up reflectively so the library keeps running on JVMs without virtual threads
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Fall through to platform threads
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "magician-jdbc-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package com.magician.jdbc.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded cache that evicts the least recently used entries, with hit, miss and eviction counters.
+ * Reads take no lock, they only stamp the entry with the current clock.
+ * When the cache is full the oldest eighth of the entries is evicted at once, so the order is approximate
+ * and the cost of finding them is shared by many writes
+ * @param <K>
+ * @param <V>
+ */
+public class LRUCache<K, V> {
+
+    private Map<K, Node<V>> map = new ConcurrentHashMap<>();
+
+    private volatile int maxSize;
+
+    /**
+     * Advanced by every write, reads stamp the entries they find with it
+     */
+    private volatile long clock;
+
+    /**
+     * Called with the value of every evicted entry
+     */
+    private Consumer<V> evictionListener;
+
+    private LongAdder hitCount = new LongAdder();
+
+    private LongAdder missCount = new LongAdder();
+
+    private LongAdder evictionCount = new LongAdder();
+
+    public LRUCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    public LRUCache(int maxSize, Consumer<V> evictionListener) {
+        this.maxSize = maxSize;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Get the cached value, null if there is none
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        long now = clock;
+        if (node.accessTime != now) {
+            node.accessTime = now;
+        }
+        return node.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (maxSize < 1) {
+            evicted(value);
+            return;
+        }
+        if (!map.containsKey(key) && map.size() >= maxSize) {
+            evictTo(maxSize - Math.max(1, maxSize / 8));
+        }
+        Node<V> old = map.put(key, new Node<>(value, ++clock));
+        if (old != null && old.value != value) {
+            evicted(old.value);
+        }
+    }
+
+    public V remove(K key) {
+        Node<V> node = map.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Remove all entries and return their values
+     * @return
+     */
+    public synchronized List<V> clear() {
+        List<V> values = new ArrayList<>(map.size());
+        for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+            if (map.remove(entry.getKey(), entry.getValue())) {
+                values.add(entry.getValue().value);
+            }
+        }
+        return values;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Change the capacity, entries beyond the new capacity are evicted
+     * @param maxSize
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (map.size() > Math.max(maxSize, 0)) {
+            evictTo(Math.max(maxSize, 0));
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Proportion of lookups that found a value, 0 when there have been no lookups
+     * @return
+     */
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Evict the entries read least recently until at most size entries are left, called by writers only
+     * @param size
+     */
+    private void evictTo(int size) {
+        List<Map.Entry<K, Node<V>>> entries = new ArrayList<>(map.entrySet());
+        int count = entries.size() - size;
+        if (count <= 0) {
+            return;
+        }
+        // Readers keep stamping entries, so the times are copied before sorting
+        long[] times = new long[entries.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = entries.get(i).getValue().accessTime;
+        }
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long limit = sorted[count - 1];
+
+        int evicted = 0;
+        for (int i = 0; i < times.length && evicted < count; i++) {
+            if (times[i] < limit && evict(entries.get(i))) {
+                evicted++;
+            }
+        }
+        for (int i = 0; i < times.length && evicted < count; i++) {
+            if (times[i] == limit && evict(entries.get(i))) {
+                evicted++;
+            }
+        }
+    }
+
+    /**
+     * Remove the entry unless a concurrent remove or put got there first
+     * @param entry
+     * @return
+     */
+    private boolean evict(Map.Entry<K, Node<V>> entry) {
+        if (map.remove(entry.getKey(), entry.getValue())) {
+            evicted(entry.getValue().value);
+            return true;
+        }
+        return false;
+    }
+
+    private void evicted(V value) {
+        evictionCount.increment();
+        if (evictionListener != null) {
+            evictionListener.accept(value);
+        }
+    }
+
+    private static final class Node<V> {
+
+        private final V value;
+
+        private volatile long accessTime;
+
+        private Node(V value, long accessTime) {
+            this.value = value;
+            this.accessTime = accessTime;
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.magician.jdbc.helper;
 
 import com.magician.jdbc.core.util.JSONUtil;
+import com.magician.jdbc.helper.columnar.ColumnarResult;
+import com.magician.jdbc.helper.manager.StatementCache;
+import com.magician.jdbc.helper.manager.StatementCacheManager;
+import com.magician.jdbc.helper.mapper.ColumnIndex;
+import com.magician.jdbc.helper.mapper.RowMapper;
+import com.magician.jdbc.helper.mapper.RowMapperFactory;
+import com.magician.jdbc.helper.monitor.MonitorManager;
+import com.magician.jdbc.helper.monitor.StatementEvent;
+import com.magician.jdbc.helper.type.TypeHandlerManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,26 +36,108 @@ public class DBHelper {
         if (params == null) {
             params = new Object[0];
         }
-        ResultSet resultSet = select(sql, connection, params);
-        List<Map<String, Object>> list = new ArrayList<>();
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        long executed = 0;
+        try (ResultSet resultSet = executeQuery(sql, connection, params)) {
+            if (monitor) {
+                executed = System.nanoTime();
+            }
+            List<Map<String, Object>> list = new ArrayList<>();
 
-        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
-        int count = resultSetMetaData.getColumnCount();
+            ColumnIndex columnIndex = new ColumnIndex(RowMapperFactory.getColumnLabels(resultSet.getMetaData()));
+            while (resultSet.next()) {
+                list.add(columnIndex.read(resultSet));
+            }
+            if (monitor) {
+                statementEvent(sql, params.length, list.size(), start, executed, null);
+            }
+            return list;
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, params.length, -1, start, executed, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Query list, each row is written directly into an object of the specified type
+     *
+     * @param sql
+     * @param connection
+     * @param params
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> List<T> selectList(String sql, Connection connection, Object[] params, Class<T> cls) throws Exception {
+        if (params == null) {
+            params = new Object[0];
+        }
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        long executed = 0;
+        try (ResultSet resultSet = executeQuery(sql, connection, params)) {
+            if (monitor) {
+                executed = System.nanoTime();
+            }
+            RowMapper<T> rowMapper = RowMapperFactory.getRowMapper(cls, resultSet.getMetaData());
 
-        while (resultSet.next()) {
-            Map<String, Object> rows = new HashMap<>();
-            for (int i = 1; i <= count; i++) {
-                String key = resultSetMetaData.getColumnLabel(i);
-                Object value = resultSet.getObject(i);
-                rows.put(key, value);
+            List<T> list = new ArrayList<>();
+            while (resultSet.next()) {
+                list.add(rowMapper.mapRow(resultSet));
+            }
+            if (monitor) {
+                statementEvent(sql, params.length, list.size(), start, executed, null);
             }
-            list.add(rows);
+            return list;
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, params.length, -1, start, executed, e);
+            }
+            throw e;
         }
-        return list;
     }
 
     /**
-     * Conditional query
+     * Query into a columnar result, numbers are read into primitive arrays and strings are dictionary encoded
+     *
+     * @param sql
+     * @param connection
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    public static ColumnarResult selectColumnar(String sql, Connection connection, Object[] params) throws Exception {
+        if (params == null) {
+            params = new Object[0];
+        }
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        long executed = 0;
+        try (ResultSet resultSet = executeQuery(sql, connection, params)) {
+            if (monitor) {
+                executed = System.nanoTime();
+            }
+            ColumnarResult columnarResult = ColumnarResult.read(resultSet);
+            if (monitor) {
+                statementEvent(sql, params.length, columnarResult.getRowCount(), start, executed, null);
+            }
+            return columnarResult;
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, params.length, -1, start, executed, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Conditional query.
+     * The statement is closed together with the returned ResultSet unless it is cached,
+     * a cached statement is reused by the next query with the same sql on this connection, so the ResultSet must be consumed first
      *
      * @param sql
      * @param connection
@@ -55,18 +146,82 @@ public class DBHelper {
      * @throws Exception
      */
     public static ResultSet select(String sql, Connection connection, Object[] params) throws Exception {
+        if (!MonitorManager.isEnabled()) {
+            return executeQuery(sql, connection, params);
+        }
+        int paramCount = params == null ? 0 : params.length;
+        long start = System.nanoTime();
+        try {
+            ResultSet resultSet = executeQuery(sql, connection, params);
+            statementEvent(sql, paramCount, -1, start, 0, null);
+            return resultSet;
+        } catch (Exception e) {
+            statementEvent(sql, paramCount, -1, start, 0, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Prepare the statement, bind the parameters and execute the query
+     *
+     * @param sql
+     * @param connection
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    private static ResultSet executeQuery(String sql, Connection connection, Object[] params) throws Exception {
         if (logger.isDebugEnabled()) {
             logger.debug("sql:{},params:{}", sql, JSONUtil.toJSONString(params));
         }
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        if (params != null && params.length > 0) {
-            for (int i = 0; i < params.length; i++) {
-                preparedStatement.setObject(i + 1, params[i]);
-            }
+        StatementCache statementCache = StatementCacheManager.getCache(connection);
+        PreparedStatement preparedStatement;
+        if (statementCache != null) {
+            preparedStatement = statementCache.prepareStatement(sql);
+        } else {
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.closeOnCompletion();
         }
+        TypeHandlerManager.bind(preparedStatement, sql, params);
         return preparedStatement.executeQuery();
     }
 
+    /**
+     * Query with a forward-only, read-only cursor that fetches fetchSize rows per round trip.
+     * The statement is never cached and is closed together with the returned ResultSet
+     *
+     * @param sql
+     * @param connection
+     * @param params
+     * @param fetchSize
+     * @return
+     * @throws Exception
+     */
+    public static ResultSet selectCursor(String sql, Connection connection, Object[] params, int fetchSize) throws Exception {
+        if (logger.isDebugEnabled()) {
+            logger.debug("sql:{},params:{},fetchSize:{}", sql, JSONUtil.toJSONString(params), fetchSize);
+        }
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            preparedStatement.setFetchSize(fetchSize);
+            TypeHandlerManager.bind(preparedStatement, sql, params);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            preparedStatement.closeOnCompletion();
+            if (monitor) {
+                statementEvent(sql, params == null ? 0 : params.length, -1, start, 0, null);
+            }
+            return resultSet;
+        } catch (Exception e) {
+            preparedStatement.close();
+            if (monitor) {
+                statementEvent(sql, params == null ? 0 : params.length, -1, start, 0, e);
+            }
+            throw e;
+        }
+    }
+
     /**
      * Conditional additions and deletions
      *
@@ -83,12 +238,203 @@ public class DBHelper {
         if (logger.isDebugEnabled()) {
             logger.debug("sql:{},params:{}", sql, JSONUtil.toJSONString(params));
         }
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        if (params != null && params.length > 0) {
-            for (int i = 0; i < params.length; i++) {
-                preparedStatement.setObject(i + 1, params[i]);
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        try {
+            int result;
+            StatementCache statementCache = StatementCacheManager.getCache(connection);
+            if (statementCache != null) {
+                result = executeUpdate(statementCache.prepareStatement(sql), sql, params);
+            } else {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    result = executeUpdate(preparedStatement, sql, params);
+                }
+            }
+            if (monitor) {
+                statementEvent(sql, params.length, result, start, 0, null);
             }
+            return result;
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, params.length, -1, start, 0, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Insert and return the keys generated by the database, one per inserted row.
+     * The statement is never cached
+     *
+     * @param sql
+     * @param connection
+     * @param params
+     * @param keyColumn name of the generated column, null lets the driver decide which columns to return
+     * @return
+     * @throws Exception
+     */
+    public static List<Object> insertReturnKeys(String sql, Connection connection, Object[] params, String keyColumn) throws Exception {
+        if (params == null) {
+            params = new Object[0];
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("sql:{},params:{}", sql, JSONUtil.toJSONString(params));
         }
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        try {
+            PreparedStatement preparedStatement;
+            if (keyColumn == null) {
+                preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            } else {
+                preparedStatement = connection.prepareStatement(sql, new String[]{keyColumn});
+            }
+            try {
+                int count = executeUpdate(preparedStatement, sql, params);
+
+                List<Object> keys = new ArrayList<>(count);
+                try (ResultSet resultSet = preparedStatement.getGeneratedKeys()) {
+                    while (resultSet.next()) {
+                        keys.add(resultSet.getObject(1));
+                    }
+                }
+                if (monitor) {
+                    statementEvent(sql, params.length, count, start, 0, null);
+                }
+                return keys;
+            } finally {
+                preparedStatement.close();
+            }
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, params.length, -1, start, 0, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Bind the parameters and execute the update
+     *
+     * @param preparedStatement
+     * @param sql
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    private static int executeUpdate(PreparedStatement preparedStatement, String sql, Object[] params) throws Exception {
+        TypeHandlerManager.bind(preparedStatement, sql, params);
         return preparedStatement.executeUpdate();
     }
+
+    /**
+     * Batch additions and deletions, rows are sent to the database in chunks of batchSize.
+     * If commitPerChunk is true, auto-commit is switched off and each chunk is committed on its own,
+     * only use it on connections that are not part of a transaction
+     *
+     * @param sql
+     * @param connection
+     * @param paramsList
+     * @param batchSize
+     * @param commitPerChunk
+     * @return the update count of each row, in the order of paramsList
+     * @throws Exception
+     */
+    public static int[] updateBatch(String sql, Connection connection, List<Object[]> paramsList, int batchSize, boolean commitPerChunk) throws Exception {
+        if (batchSize < 1) {
+            throw new Exception("batchSize must be greater than 0");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("sql:{},rows:{},batchSize:{}", sql, paramsList.size(), batchSize);
+        }
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
+        try {
+            int[] result;
+            StatementCache statementCache = StatementCacheManager.getCache(connection);
+            if (statementCache != null) {
+                result = executeBatch(statementCache.prepareStatement(sql), sql, connection, paramsList, batchSize, commitPerChunk);
+            } else {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    result = executeBatch(preparedStatement, sql, connection, paramsList, batchSize, commitPerChunk);
+                }
+            }
+            if (monitor) {
+                long rows = 0;
+                for (int count : result) {
+                    rows += Math.max(count, 0);
+                }
+                statementEvent(sql, paramsList.size(), rows, start, 0, null);
+            }
+            return result;
+        } catch (Exception e) {
+            if (monitor) {
+                statementEvent(sql, paramsList.size(), -1, start, 0, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Add the rows to the batch chunk by chunk and execute each chunk
+     *
+     * @param preparedStatement
+     * @param sql
+     * @param connection
+     * @param paramsList
+     * @param batchSize
+     * @param commitPerChunk
+     * @return
+     * @throws Exception
+     */
+    private static int[] executeBatch(PreparedStatement preparedStatement, String sql, Connection connection, List<Object[]> paramsList, int batchSize, boolean commitPerChunk) throws Exception {
+        int[] result = new int[paramsList.size()];
+        if (commitPerChunk) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            int offset = 0;
+            while (offset < paramsList.size()) {
+                int end = Math.min(offset + batchSize, paramsList.size());
+                for (int row = offset; row < end; row++) {
+                    TypeHandlerManager.bind(preparedStatement, sql, paramsList.get(row));
+                    preparedStatement.addBatch();
+                }
+                int[] counts = preparedStatement.executeBatch();
+                System.arraycopy(counts, 0, result, offset, Math.min(counts.length, end - offset));
+                if (commitPerChunk) {
+                    connection.commit();
+                }
+                offset = end;
+            }
+            return result;
+        } catch (Exception e) {
+            preparedStatement.clearBatch();
+            if (commitPerChunk) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (commitPerChunk) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Send the timings of a statement to the listeners
+     *
+     * @param sql
+     * @param paramCount
+     * @param rows
+     * @param start nanoTime before the statement was prepared
+     * @param executed nanoTime when the driver returned the ResultSet, 0 if rows were not read
+     * @param error
+     */
+    private static void statementEvent(String sql, int paramCount, long rows, long start, long executed, Throwable error) {
+        long end = System.nanoTime();
+        long executeNanos = (executed == 0 ? end : executed) - start;
+        long mapNanos = executed == 0 ? 0 : end - executed;
+        MonitorManager.statement(new StatementEvent(sql, paramCount, rows, executeNanos, mapNanos, end - start, error));
+    }
 }
@@ -0,0 +1,103 @@
+package com.magician.jdbc.helper.cache;
+
+import com.magician.jdbc.core.util.LRUCache;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Totals of paging count queries, keyed by data source, sql and parameters
+ */
+public class CountCache {
+
+    private static LRUCache<CountKey, CountEntry> countCache = new LRUCache<>(1024);
+
+    /**
+     * Get the cached total
+     * @param dataSource
+     * @param sql
+     * @param params
+     * @return null if there is none or it has expired
+     */
+    public static Integer get(String dataSource, String sql, Object[] params) {
+        CountKey countKey = new CountKey(dataSource, sql, params);
+        CountEntry countEntry = countCache.get(countKey);
+        if (countEntry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() > countEntry.expireTime) {
+            countCache.remove(countKey);
+            return null;
+        }
+        return countEntry.total;
+    }
+
+    /**
+     * Cache a total
+     * @param dataSource
+     * @param sql
+     * @param params
+     * @param total
+     * @param ttl milliseconds the total stays valid
+     */
+    public static void put(String dataSource, String sql, Object[] params, Integer total, long ttl) {
+        countCache.put(new CountKey(dataSource, sql, params), new CountEntry(total, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Set the maximum number of totals to keep, the default is 1024
+     * @param size
+     */
+    public static void setCacheSize(int size) {
+        countCache.setMaxSize(size);
+    }
+
+    private static final class CountEntry {
+
+        private final Integer total;
+
+        private final long expireTime;
+
+        private CountEntry(Integer total, long expireTime) {
+            this.total = total;
+            this.expireTime = expireTime;
+        }
+    }
+
+    private static final class CountKey {
+
+        private final String dataSource;
+
+        private final String sql;
+
+        private final Object[] params;
+
+        private final int hash;
+
+        private CountKey(String dataSource, String sql, Object[] params) {
+            this.dataSource = dataSource;
+            this.sql = sql;
+            this.params = params;
+            this.hash = 31 * (31 * Objects.hashCode(dataSource) + sql.hashCode()) + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CountKey)) {
+                return false;
+            }
+            CountKey other = (CountKey) obj;
+            return Objects.equals(dataSource, other.dataSource)
+                    && sql.equals(other.sql)
+                    && Arrays.deepEquals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
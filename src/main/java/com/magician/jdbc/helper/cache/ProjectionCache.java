@@ -0,0 +1,140 @@
+package com.magician.jdbc.helper.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column lists of single table selects, keyed by data source, table and the class the rows are mapped to.
+ * A list is read again after the ttl, so that columns added to the table are picked up
+ */
+public class ProjectionCache {
+
+    private static Map<ProjectionKey, ProjectionEntry> projectionMap = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = true;
+
+    private static volatile long ttl = 300000;
+
+    /**
+     * Get the cached column list
+     * @param dataSource
+     * @param tableName
+     * @param cls
+     * @return null if there is none
+     */
+    public static String get(String dataSource, String tableName, Class<?> cls) {
+        ProjectionKey projectionKey = new ProjectionKey(dataSource, tableName, cls);
+        ProjectionEntry projectionEntry = projectionMap.get(projectionKey);
+        if (projectionEntry == null) {
+            return null;
+        }
+        if (ttl > 0 && projectionEntry.expireAt < System.currentTimeMillis()) {
+            projectionMap.remove(projectionKey, projectionEntry);
+            return null;
+        }
+        return projectionEntry.columns;
+    }
+
+    /**
+     * Cache a column list, * when every column is selected
+     * @param dataSource
+     * @param tableName
+     * @param cls
+     * @param columns
+     */
+    public static void put(String dataSource, String tableName, Class<?> cls, String columns) {
+        projectionMap.put(new ProjectionKey(dataSource, tableName, cls), new ProjectionEntry(columns, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Drop the column list of a table and class
+     * @param dataSource
+     * @param tableName
+     * @param cls
+     * @return whether there was one
+     */
+    public static boolean remove(String dataSource, String tableName, Class<?> cls) {
+        return projectionMap.remove(new ProjectionKey(dataSource, tableName, cls)) != null;
+    }
+
+    /**
+     * Drop all column lists, call it after the columns of a table have changed
+     */
+    public static void clear() {
+        projectionMap.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether single table selects only read the columns of the class, on by default
+     * @param enabled
+     */
+    public static void setEnabled(boolean enabled) {
+        ProjectionCache.enabled = enabled;
+    }
+
+    public static long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * How long a column list is kept, in milliseconds, 5 minutes by default. 0 keeps it until clear is called
+     * @param ttl
+     */
+    public static void setTtl(long ttl) {
+        ProjectionCache.ttl = ttl;
+    }
+
+    private static final class ProjectionEntry {
+
+        private final String columns;
+
+        private final long expireAt;
+
+        private ProjectionEntry(String columns, long expireAt) {
+            this.columns = columns;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class ProjectionKey {
+
+        private final String dataSource;
+
+        private final String tableName;
+
+        private final Class<?> cls;
+
+        private final int hash;
+
+        private ProjectionKey(String dataSource, String tableName, Class<?> cls) {
+            this.dataSource = dataSource;
+            this.tableName = tableName;
+            this.cls = cls;
+            this.hash = 31 * (31 * Objects.hashCode(dataSource) + tableName.hashCode()) + cls.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ProjectionKey)) {
+                return false;
+            }
+            ProjectionKey other = (ProjectionKey) obj;
+            return Objects.equals(dataSource, other.dataSource)
+                    && tableName.equals(other.tableName)
+                    && cls == other.cls;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.magician.jdbc.helper.cache;
+
+import com.magician.jdbc.core.util.LRUCache;
+import com.magician.jdbc.helper.templete.conversion.SqlTableParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of queries, keyed by data source, sql, parameters and result type.
+ * Every table has a generation counter per data source that writes increase,
+ * a result is only used while the generations of its tables are the ones read before it was queried and its ttl has not passed.
+ * Reading a result takes no lock.
+ * Every caller gets its own rows: immutable rows are shared and the others are copied, see RowCopier
+ */
+public class ResultCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    /**
+     * Counter increased by writes whose tables are not known, it invalidates every result of the data source
+     */
+    private static final String ALL_TABLES = "*";
+
+    private static ConcurrentHashMap<ResultKey, ResultEntry> resultMap = new ConcurrentHashMap<>();
+
+    private static ConcurrentHashMap<String, AtomicLong> generationMap = new ConcurrentHashMap<>();
+
+    /**
+     * Time to live of the results of each data source, in milliseconds, data sources without one are not cached
+     */
+    private static Map<String, Long> ttlMap = new ConcurrentHashMap<>();
+
+    /**
+     * Tables of the sql of writes, so that each sql is only parsed once
+     */
+    private static LRUCache<String, String[]> tableCache = new LRUCache<>(1024);
+
+    private static volatile int maxSize = 10000;
+
+    /**
+     * Set by the first query that uses the cache, until then writes do not need to find their tables
+     */
+    private static volatile boolean used;
+
+    private static AtomicBoolean evicting = new AtomicBoolean();
+
+    private static LongAdder hitCount = new LongAdder();
+
+    private static LongAdder missCount = new LongAdder();
+
+    /**
+     * Row classes already warned about because they can not be copied
+     */
+    private static Set<Class<?>> warnedSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cache the results of the data source for ttl milliseconds, 0 turns it off
+     * @param dataSource
+     * @param ttl
+     */
+    public static void setTtl(String dataSource, long ttl) {
+        if (ttl > 0) {
+            ttlMap.put(dataSource, ttl);
+        } else {
+            ttlMap.remove(dataSource);
+        }
+    }
+
+    /**
+     * Get the time to live of the results of the data source
+     * @param dataSource
+     * @return 0 if the data source is not cached
+     */
+    public static long getTtl(String dataSource) {
+        Long ttl = ttlMap.get(dataSource);
+        return ttl == null ? 0 : ttl;
+    }
+
+    /**
+     * Set the maximum number of results to keep, the default is 10000.
+     * When there are more, invalid results are removed first and then arbitrary ones until a quarter of the space is free
+     * @param size
+     */
+    public static void setMaxSize(int size) {
+        maxSize = size;
+    }
+
+    /**
+     * Get the result from the cache, or load and cache it.
+     * The returned list and rows belong to the caller: records, RowMap and scalars are shared as they can not be changed,
+     * beans and Maps are copied field by field. Results with rows that can not be copied, such as beans without a no-argument constructor,
+     * are not cached
+     * @param dataSource
+     * @param sql
+     * @param params
+     * @param cls
+     * @param tables tables the query reads, null to find them in the sql
+     * @param ttl milliseconds the result stays valid
+     * @param resultLoader
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> List<T> select(String dataSource, String sql, Object[] params, Class<T> cls, String[] tables, long ttl, ResultLoader<T> resultLoader) throws Exception {
+        ResultKey resultKey = new ResultKey(dataSource, sql, params, cls);
+        ResultEntry resultEntry = resultMap.get(resultKey);
+        if (resultEntry != null) {
+            if (resultEntry.isValid(System.currentTimeMillis())) {
+                hitCount.increment();
+                @SuppressWarnings("unchecked")
+                List<T> rows = (List<T>) resultEntry.rows;
+                return RowCopier.copy(rows);
+            }
+            resultMap.remove(resultKey, resultEntry);
+        }
+        missCount.increment();
+        used = true;
+
+        // Generations are read before the query, a write during the query makes the result invalid at once
+        if (tables == null) {
+            tables = getTables(sql);
+        }
+        AtomicLong[] counters = new AtomicLong[tables.length + 1];
+        long[] generations = new long[counters.length];
+        counters[0] = getCounter(dataSource, ALL_TABLES);
+        for (int i = 0; i < tables.length; i++) {
+            counters[i + 1] = getCounter(dataSource, SqlTableParser.normalize(tables[i]));
+        }
+        for (int i = 0; i < counters.length; i++) {
+            generations[i] = counters[i].get();
+        }
+
+        List<T> rows = resultLoader.load();
+
+        // The cache keeps its own copies, the caller may change the rows it was given
+        List<T> copies = RowCopier.copy(rows);
+        if (copies == null) {
+            warnUncopiable(rows);
+            return rows;
+        }
+        resultMap.put(resultKey, new ResultEntry(copies, System.currentTimeMillis() + ttl, counters, generations));
+        if (resultMap.size() > maxSize) {
+            evict();
+        }
+        return rows;
+    }
+
+    /**
+     * Invalidate the results that read the tables
+     * @param dataSource
+     * @param tables null or empty invalidates every result of the data source
+     */
+    public static void invalidate(String dataSource, String... tables) {
+        if (!used) {
+            return;
+        }
+        if (tables == null || tables.length == 0) {
+            getCounter(dataSource, ALL_TABLES).incrementAndGet();
+            return;
+        }
+        for (String table : tables) {
+            getCounter(dataSource, SqlTableParser.normalize(table)).incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidate the results that read the tables written by the sql
+     * @param dataSource
+     * @param sql
+     */
+    public static void invalidateSql(String dataSource, String sql) {
+        if (!used) {
+            return;
+        }
+        invalidate(dataSource, getTables(sql));
+    }
+
+    /**
+     * Remove all results
+     */
+    public static void clear() {
+        resultMap.clear();
+    }
+
+    public static int size() {
+        return resultMap.size();
+    }
+
+    public static long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public static long getMissCount() {
+        return missCount.sum();
+    }
+
+    private static void warnUncopiable(List<?> rows) {
+        for (Object row : rows) {
+            if (row != null && RowCopier.get(row.getClass()) == null && warnedSet.add(row.getClass())) {
+                logger.warn("Results of {} are not cached, it can not be copied for each caller, use a record or a class with a no-argument constructor", row.getClass().getName());
+            }
+        }
+    }
+
+    private static String[] getTables(String sql) {
+        String[] tables = tableCache.get(sql);
+        if (tables == null) {
+            tables = SqlTableParser.parse(sql).toArray(new String[0]);
+            tableCache.put(sql, tables);
+        }
+        return tables;
+    }
+
+    private static AtomicLong getCounter(String dataSource, String table) {
+        String key = dataSource + "\u0000" + table;
+        AtomicLong counter = generationMap.get(key);
+        if (counter == null) {
+            counter = generationMap.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        return counter;
+    }
+
+    private static void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            resultMap.values().removeIf(resultEntry -> !resultEntry.isValid(now));
+
+            int target = maxSize - maxSize / 4;
+            Iterator<ResultKey> iterator = resultMap.keySet().iterator();
+            while (resultMap.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class ResultEntry {
+
+        private final List<?> rows;
+
+        private final long expireTime;
+
+        private final AtomicLong[] counters;
+
+        private final long[] generations;
+
+        private ResultEntry(List<?> rows, long expireTime, AtomicLong[] counters, long[] generations) {
+            this.rows = rows;
+            this.expireTime = expireTime;
+            this.counters = counters;
+            this.generations = generations;
+        }
+
+        private boolean isValid(long now) {
+            if (now > expireTime) {
+                return false;
+            }
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i].get() != generations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ResultKey {
+
+        private final String dataSource;
+
+        private final String sql;
+
+        private final Object[] params;
+
+        private final Class<?> cls;
+
+        private final int hash;
+
+        private ResultKey(String dataSource, String sql, Object[] params, Class<?> cls) {
+            this.dataSource = dataSource;
+            this.sql = sql;
+            this.params = params;
+            this.cls = cls;
+            this.hash = 31 * (31 * (31 * Objects.hashCode(dataSource) + sql.hashCode()) + Arrays.deepHashCode(params)) + cls.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ResultKey)) {
+                return false;
+            }
+            ResultKey other = (ResultKey) obj;
+            return cls == other.cls
+                    && Objects.equals(dataSource, other.dataSource)
+                    && sql.equals(other.sql)
+                    && Arrays.deepEquals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.magician.jdbc.helper.cache;
+
+import java.util.List;
+
+/**
+ * Runs the query of a result that is not in the cache
+ * @param <T>
+ */
+@FunctionalInterface
+public interface ResultLoader<T> {
+
+    List<T> load() throws Exception;
+}
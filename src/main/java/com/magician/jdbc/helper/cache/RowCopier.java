@@ -0,0 +1,187 @@
+package com.magician.jdbc.helper.cache;
+
+import com.magician.jdbc.helper.mapper.RowMap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copies the rows of a cached result for each caller, so that a caller changing its rows does not change the rows of others.
+ * Immutable rows such as records, RowMap, strings, numbers and java.time values are shared,
+ * beans, Maps, dates and byte arrays are copied. The fields of a bean are copied one by one,
+ * dates and byte arrays in them are copied too and other values are shared
+ */
+class RowCopier {
+
+    private static final UnaryOperator<Object> SHARED = row -> row;
+
+    private static final Set<Class<?>> IMMUTABLE = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class, RowMap.class);
+
+    /**
+     * Copier of each row class, empty if rows of the class can not be copied
+     */
+    private static Map<Class<?>, Optional<UnaryOperator<Object>>> copierMap = new ConcurrentHashMap<>();
+
+    /**
+     * Get the copier of the rows of a class
+     * @param cls
+     * @return null if the rows can not be copied
+     */
+    static UnaryOperator<Object> get(Class<?> cls) {
+        Optional<UnaryOperator<Object>> copier = copierMap.get(cls);
+        if (copier == null) {
+            copier = copierMap.computeIfAbsent(cls, key -> Optional.ofNullable(create(key)));
+        }
+        return copier.orElse(null);
+    }
+
+    /**
+     * Copy the rows
+     * @param rows
+     * @return null if a row can not be copied
+     */
+    static <T> List<T> copy(List<T> rows) {
+        List<T> copies = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            if (row == null) {
+                copies.add(null);
+                continue;
+            }
+            UnaryOperator<Object> copier = get(row.getClass());
+            if (copier == null) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            T copy = (T) copier.apply(row);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static UnaryOperator<Object> create(Class<?> cls) {
+        if (IMMUTABLE.contains(cls) || cls.isRecord() || cls.isEnum() || Enum.class.isAssignableFrom(cls)
+                || cls.getPackageName().equals("java.time")) {
+            return SHARED;
+        }
+        if (cls == byte[].class) {
+            return row -> ((byte[]) row).clone();
+        }
+        if (Date.class.isAssignableFrom(cls)) {
+            return row -> ((Date) row).clone();
+        }
+        if (cls == HashMap.class) {
+            return row -> new HashMap<>((Map<?, ?>) row);
+        }
+        if (cls == LinkedHashMap.class) {
+            return row -> new LinkedHashMap<>((Map<?, ?>) row);
+        }
+        if (cls.isArray() || cls.isInterface() || Modifier.isAbstract(cls.getModifiers()) || cls.getName().startsWith("java.")) {
+            return null;
+        }
+        if (Map.class.isAssignableFrom(cls)) {
+            return mapCopier(cls);
+        }
+        return beanCopier(cls);
+    }
+
+    private static MethodHandle constructor(Class<?> cls) {
+        try {
+            Constructor<?> constructor = cls.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static UnaryOperator<Object> mapCopier(Class<?> cls) {
+        MethodHandle constructor = constructor(cls);
+        if (constructor == null) {
+            return null;
+        }
+        return row -> {
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> copy = (Map<Object, Object>) newInstance(constructor);
+            copy.putAll((Map<?, ?>) row);
+            return copy;
+        };
+    }
+
+    /**
+     * Copy every instance field of the class and its superclasses into a new instance
+     * @param cls
+     * @return null if the class has no no-argument constructor or a field can not be accessed
+     */
+    private static UnaryOperator<Object> beanCopier(Class<?> cls) {
+        MethodHandle constructor = constructor(cls);
+        if (constructor == null) {
+            return null;
+        }
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> current = cls; current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    getters.add(lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class)));
+                    setters.add(lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        MethodHandle[] getterArray = getters.toArray(new MethodHandle[0]);
+        MethodHandle[] setterArray = setters.toArray(new MethodHandle[0]);
+        return row -> {
+            Object copy = newInstance(constructor);
+            try {
+                for (int i = 0; i < getterArray.length; i++) {
+                    setterArray[i].invokeExact(copy, copyValue((Object) getterArray[i].invokeExact(row)));
+                }
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to copy a cached " + cls.getName(), e);
+            }
+            return copy;
+        };
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    private static Object newInstance(MethodHandle constructor) {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to copy a cached row", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * One column of a columnar result, values are kept in an array indexed by row and SQL NULL in a bitmap
+ */
+public abstract class Column {
+
+    private String name;
+
+    protected int rowCount;
+
+    /**
+     * Bit row is set when the value of the row is SQL NULL
+     */
+    private long[] nulls = new long[1];
+
+    private boolean hasNull;
+
+    protected Column(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Whether the value of the row is SQL NULL
+     * @param row
+     * @return
+     */
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return hasNull && word < nulls.length && (nulls[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * Whether the column contains SQL NULL at all
+     * @return
+     */
+    public boolean hasNull() {
+        return hasNull;
+    }
+
+    /**
+     * Get the value of the row boxed, null for SQL NULL
+     * @param row
+     * @return
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Read the value of the current row of the result set and append it
+     * @param resultSet
+     * @param index
+     * @throws SQLException
+     */
+    abstract void read(ResultSet resultSet, int index) throws SQLException;
+
+    /**
+     * Trim the arrays to the number of rows
+     */
+    void trim() {
+        nulls = Arrays.copyOf(nulls, (rowCount + 63) >>> 6);
+    }
+
+    protected void setNull(int row) {
+        int word = row >>> 6;
+        if (word >= nulls.length) {
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+        }
+        nulls[word] |= 1L << row;
+        hasNull = true;
+    }
+
+    protected static int grow(int length) {
+        return Math.max(16, length + (length >> 1));
+    }
+}
@@ -0,0 +1,163 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Query result stored by column instead of by row.
+ * Integer and floating point columns are read with getLong, getInt and getDouble into primitive arrays,
+ * strings are dictionary encoded and SQL NULL is kept in a bitmap per column, so values are not boxed and labels are not repeated per row
+ */
+public class ColumnarResult {
+
+    private int rowCount;
+
+    private Column[] columns;
+
+    private Map<String, Column> columnMap = new HashMap<>();
+
+    private ColumnarResult() {}
+
+    /**
+     * Read all rows of the result set
+     * @param resultSet
+     * @return
+     * @throws SQLException
+     */
+    public static ColumnarResult read(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+
+        ColumnarResult columnarResult = new ColumnarResult();
+        columnarResult.columns = new Column[count];
+        for (int i = 0; i < count; i++) {
+            Column column = createColumn(metaData, i + 1);
+            columnarResult.columns[i] = column;
+            columnarResult.columnMap.putIfAbsent(column.getName(), column);
+            columnarResult.columnMap.putIfAbsent(column.getName().toLowerCase(Locale.ROOT), column);
+        }
+
+        Column[] columns = columnarResult.columns;
+        int rowCount = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < count; i++) {
+                columns[i].read(resultSet, i + 1);
+            }
+            rowCount++;
+        }
+        for (Column column : columns) {
+            column.trim();
+        }
+        columnarResult.rowCount = rowCount;
+        return columnarResult;
+    }
+
+    /**
+     * Choose the column type from the sql type
+     * @param metaData
+     * @param index
+     * @return
+     * @throws SQLException
+     */
+    private static Column createColumn(ResultSetMetaData metaData, int index) throws SQLException {
+        String name = metaData.getColumnLabel(index);
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntColumn(name);
+            case Types.INTEGER:
+                // Unsigned INT of MySQL does not fit in an int
+                return metaData.isSigned(index) ? new IntColumn(name) : new LongColumn(name);
+            case Types.BIGINT:
+                return metaData.isSigned(index) ? new LongColumn(name) : new ObjectColumn(name);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // Whole numbers that fit in a long, decimals with a fraction keep their exact value
+                if (metaData.getScale(index) == 0 && metaData.getPrecision(index) > 0 && metaData.getPrecision(index) <= 18) {
+                    return new LongColumn(name);
+                }
+                return new ObjectColumn(name);
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new DoubleColumn(name);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn(name);
+            default:
+                return new ObjectColumn(name);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Get the columns in select order
+     * @return
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Get the column by position, starting at 0
+     * @param index
+     * @return
+     */
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Get the column by label, the label is also matched in lower case
+     * @param label
+     * @return null if there is no such column
+     */
+    public Column getColumn(String label) {
+        Column column = columnMap.get(label);
+        if (column == null) {
+            column = columnMap.get(label.toLowerCase(Locale.ROOT));
+        }
+        return column;
+    }
+
+    public LongColumn getLongColumn(String label) throws Exception {
+        return getColumn(label, LongColumn.class);
+    }
+
+    public IntColumn getIntColumn(String label) throws Exception {
+        return getColumn(label, IntColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String label) throws Exception {
+        return getColumn(label, DoubleColumn.class);
+    }
+
+    public StringColumn getStringColumn(String label) throws Exception {
+        return getColumn(label, StringColumn.class);
+    }
+
+    private <C extends Column> C getColumn(String label, Class<C> type) throws Exception {
+        Column column = getColumn(label);
+        if (column == null) {
+            throw new Exception("No column [" + label + "] in the result");
+        }
+        if (!type.isInstance(column)) {
+            throw new Exception("Column [" + label + "] is a " + column.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+}
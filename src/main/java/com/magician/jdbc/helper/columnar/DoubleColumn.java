@@ -0,0 +1,57 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of double values, SQL NULL is stored as 0D and marked in the null bitmap
+ */
+public class DoubleColumn extends Column {
+
+    private double[] values = new double[16];
+
+    DoubleColumn(String name) {
+        super(name);
+    }
+
+    /**
+     * Get the value of the row, check isNull first when the column can be NULL
+     * @param row
+     * @return
+     */
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    /**
+     * Get the values, one per row
+     * @return
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rowCount == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[rowCount] = resultSet.getDouble(index);
+        if (resultSet.wasNull()) {
+            setNull(rowCount);
+        }
+        rowCount++;
+    }
+
+    @Override
+    void trim() {
+        super.trim();
+        values = Arrays.copyOf(values, rowCount);
+    }
+}
@@ -0,0 +1,57 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of int values, SQL NULL is stored as 0 and marked in the null bitmap
+ */
+public class IntColumn extends Column {
+
+    private int[] values = new int[16];
+
+    IntColumn(String name) {
+        super(name);
+    }
+
+    /**
+     * Get the value of the row, check isNull first when the column can be NULL
+     * @param row
+     * @return
+     */
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    /**
+     * Get the values, one per row
+     * @return
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rowCount == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[rowCount] = resultSet.getInt(index);
+        if (resultSet.wasNull()) {
+            setNull(rowCount);
+        }
+        rowCount++;
+    }
+
+    @Override
+    void trim() {
+        super.trim();
+        values = Arrays.copyOf(values, rowCount);
+    }
+}
@@ -0,0 +1,57 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of long values, SQL NULL is stored as 0L and marked in the null bitmap
+ */
+public class LongColumn extends Column {
+
+    private long[] values = new long[16];
+
+    LongColumn(String name) {
+        super(name);
+    }
+
+    /**
+     * Get the value of the row, check isNull first when the column can be NULL
+     * @param row
+     * @return
+     */
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    /**
+     * Get the values, one per row
+     * @return
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rowCount == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[rowCount] = resultSet.getLong(index);
+        if (resultSet.wasNull()) {
+            setNull(rowCount);
+        }
+        rowCount++;
+    }
+
+    @Override
+    void trim() {
+        super.trim();
+        values = Arrays.copyOf(values, rowCount);
+    }
+}
@@ -0,0 +1,41 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of values that have no primitive form, such as decimals with a fraction, dates and binary data
+ */
+public class ObjectColumn extends Column {
+
+    private Object[] values = new Object[16];
+
+    ObjectColumn(String name) {
+        super(name);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return values[row];
+    }
+
+    @Override
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rowCount == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        Object value = resultSet.getObject(index);
+        values[rowCount] = value;
+        if (value == null) {
+            setNull(rowCount);
+        }
+        rowCount++;
+    }
+
+    @Override
+    void trim() {
+        super.trim();
+        values = Arrays.copyOf(values, rowCount);
+    }
+}
@@ -0,0 +1,92 @@
+package com.magician.jdbc.helper.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Column of strings, dictionary encoded: each distinct string is kept once and rows hold its code
+ */
+public class StringColumn extends Column {
+
+    private int[] codes = new int[16];
+
+    private List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Code of each string, only while the column is read
+     */
+    private Map<String, Integer> codeMap = new HashMap<>();
+
+    StringColumn(String name) {
+        super(name);
+    }
+
+    /**
+     * Get the string of the row, null for SQL NULL
+     * @param row
+     * @return
+     */
+    public String getString(int row) {
+        return isNull(row) ? null : dictionary.get(codes[row]);
+    }
+
+    /**
+     * Get the dictionary code of the row, -1 for SQL NULL
+     * @param row
+     * @return
+     */
+    public int getCode(int row) {
+        return isNull(row) ? -1 : codes[row];
+    }
+
+    /**
+     * Get the codes, one per row
+     * @return
+     */
+    public int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * Get the distinct strings, a code is the index of its string
+     * @return
+     */
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    @Override
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rowCount == codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length));
+        }
+        String value = resultSet.getString(index);
+        if (value == null) {
+            codes[rowCount] = -1;
+            setNull(rowCount);
+        } else {
+            Integer code = codeMap.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codeMap.put(value, code);
+            }
+            codes[rowCount] = code;
+        }
+        rowCount++;
+    }
+
+    @Override
+    void trim() {
+        super.trim();
+        codes = Arrays.copyOf(codes, rowCount);
+        dictionary = Collections.unmodifiableList(new ArrayList<>(dictionary));
+        codeMap = null;
+    }
+}
@@ -12,6 +12,13 @@ public class ConnectionManager {
 
     private boolean isTransaction;
 
+    /**
+     * The replica the connection was taken from, null for primary and transaction connections
+     */
+    private DataSourceNode node;
+
+    private long acquiredTime;
+
     public Connection getConnection() {
         return connection;
     }
@@ -28,10 +35,26 @@ public class ConnectionManager {
         isTransaction = transaction;
     }
 
+    public DataSourceNode getNode() {
+        return node;
+    }
+
+    public void setNode(DataSourceNode node) {
+        this.node = node;
+        this.acquiredTime = System.nanoTime();
+    }
+
     public void close() throws SQLException {
         // If the connection does not have a transaction close it, otherwise it is handed over to the transaction manager to close it
         if (!isTransaction && connection != null) {
-            connection.close();
+            try {
+                connection.close();
+            } finally {
+                if (node != null) {
+                    node.release(System.nanoTime() - acquiredTime);
+                    node = null;
+                }
+            }
         }
     }
 }
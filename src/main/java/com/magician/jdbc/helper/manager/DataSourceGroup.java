@@ -0,0 +1,155 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.core.constant.enums.LoadBalanceStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A primary data source with its replicas, registered under one name.
+ * Writes and transactions use the primary, queries outside a transaction use the replicas
+ */
+public class DataSourceGroup {
+
+    private static Logger logger = LoggerFactory.getLogger(DataSourceGroup.class);
+
+    private String name;
+
+    private DataSource primary;
+
+    private final List<DataSourceNode> replicas;
+
+    private LoadBalanceStrategy loadBalanceStrategy;
+
+    /**
+     * Consecutive connection failures after which a replica is ejected
+     */
+    private volatile int failureThreshold = 3;
+
+    /**
+     * How long an ejected replica is left out
+     */
+    private volatile long ejectMillis = 30000;
+
+    private AtomicInteger next = new AtomicInteger();
+
+    public DataSourceGroup(String name, LoadBalanceStrategy loadBalanceStrategy, DataSource primary, DataSource... replicas) {
+        this.name = name;
+        this.primary = primary;
+        this.loadBalanceStrategy = loadBalanceStrategy == null ? LoadBalanceStrategy.ROUND_ROBIN : loadBalanceStrategy;
+        List<DataSourceNode> nodes = new ArrayList<>(replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            nodes.add(new DataSourceNode(name + "-replica-" + i, replicas[i]));
+        }
+        this.replicas = Collections.unmodifiableList(nodes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSourceNode> getReplicas() {
+        return replicas;
+    }
+
+    public LoadBalanceStrategy getLoadBalanceStrategy() {
+        return loadBalanceStrategy;
+    }
+
+    public void setEjection(int failureThreshold, long ejectMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.ejectMillis = ejectMillis;
+    }
+
+    /**
+     * Get a connection for a query.
+     * A replica that fails is skipped and the next one chosen, when no replica is available the primary is used
+     * @param connectionManager receives the connection and the replica it was taken from
+     * @throws Exception
+     */
+    public void getReadConnection(ConnectionManager connectionManager) throws Exception {
+        List<DataSourceNode> candidates = new ArrayList<>(replicas.size());
+        for (DataSourceNode node : replicas) {
+            if (node.isAvailable()) {
+                candidates.add(node);
+            }
+        }
+
+        while (candidates.size() > 0) {
+            DataSourceNode node = choose(candidates);
+            try {
+                Connection connection = node.getConnection(failureThreshold, ejectMillis);
+                if (connection == null) {
+                    // The group was replaced or removed after the lookup
+                    candidates.remove(node);
+                    continue;
+                }
+                try {
+                    connection.setAutoCommit(true);
+                    StatementCacheManager.attach(name, connection);
+                } catch (Exception e) {
+                    node.release(0);
+                    connection.close();
+                    throw e;
+                }
+                connectionManager.setConnection(connection);
+                connectionManager.setNode(node);
+                return;
+            } catch (Exception e) {
+                logger.warn("Unable to get a connection from replica [{}]", node.getName(), e);
+                candidates.remove(node);
+            }
+        }
+
+        DataSourceManager.getConnection(name, connectionManager);
+    }
+
+    private DataSourceNode choose(List<DataSourceNode> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+
+        switch (loadBalanceStrategy) {
+            case LEAST_IN_FLIGHT:
+                // Start at a rotating position so that ties are spread over the replicas
+                DataSourceNode least = null;
+                for (int i = 0; i < candidates.size(); i++) {
+                    DataSourceNode node = candidates.get((start + i) % candidates.size());
+                    if (least == null || node.getInFlight() < least.getInFlight()) {
+                        least = node;
+                    }
+                }
+                return least;
+            case LATENCY_WEIGHTED:
+                // Weight is the inverse of the latency, nodes without samples count as 0.1 ms so that they get tried
+                double[] weights = new double[candidates.size()];
+                double total = 0;
+                for (int i = 0; i < candidates.size(); i++) {
+                    weights[i] = 1.0 / Math.max(candidates.get(i).getLatencyNanos(), 100000L);
+                    total += weights[i];
+                }
+                double point = ThreadLocalRandom.current().nextDouble(total);
+                for (int i = 0; i < weights.length; i++) {
+                    point -= weights[i];
+                    if (point < 0) {
+                        return candidates.get(i);
+                    }
+                }
+                return candidates.get(candidates.size() - 1);
+            default:
+                return candidates.get(start);
+        }
+    }
+}
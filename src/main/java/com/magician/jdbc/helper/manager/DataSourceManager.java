@@ -1,28 +1,186 @@
 package com.magician.jdbc.helper.manager;
 
+import com.magician.jdbc.helper.pool.PooledDataSource;
+
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.util.*;
 
 /**
  * Data source management
+ * The registry is copy-on-write: lookups read an immutable snapshot without locking,
+ * changes copy the snapshot under a lock and publish the copy.
+ * A built-in pool that is removed or replaced is closed once its last connection is closed,
+ * unless it is still registered under another name or in a group. Other data sources are left to their owner to close
  */
 public class DataSourceManager {
 
-    private static Map<String, DataSource> dataSourceMap = new HashMap<>();
+    /**
+     * Maximum number of times a lookup is repeated when it hits a data source that was just replaced
+     */
+    private static final int MAX_RETRY = 16;
+
+    private static final Object lock = new Object();
+
+    private static volatile Map<String, DataSourceNode> dataSourceNodeMap = Collections.emptyMap();
+
+    /**
+     * The same data sources as dataSourceNodeMap, for getDataSources
+     */
+    private static volatile Map<String, DataSource> dataSourceMap = Collections.emptyMap();
+
+    /**
+     * Groups of a primary and its replicas, the primary is also in dataSourceMap under the group name
+     */
+    private static volatile Map<String, DataSourceGroup> dataSourceGroupMap = Collections.emptyMap();
 
     /**
      * Default data source name
      */
-    private static String defaultDataSourceName;
+    private static volatile String defaultDataSourceName;
 
     public static Map<String, DataSource> getDataSourceMap() {
         return dataSourceMap;
     }
 
+    /**
+     * Add a data source, an existing data source with the same name is replaced.
+     * Connections already taken from the replaced data source keep working, a built-in pool is closed after the last of them is closed.
+     * Adding the same data source again under its name changes nothing
+     * @param name
+     * @param dataSource
+     */
     public static void addDataSource(String name, DataSource dataSource) {
-        dataSourceMap.put(name, dataSource);
+        put(name, new DataSourceNode(name, dataSource), null);
+    }
+
+    /**
+     * Add a group, its primary is registered as the data source with the name of the group.
+     * An existing data source or group with the same name is replaced
+     * @param dataSourceGroup
+     */
+    public static void addDataSourceGroup(DataSourceGroup dataSourceGroup) {
+        put(dataSourceGroup.getName(), new DataSourceNode(dataSourceGroup.getName(), dataSourceGroup.getPrimary()), dataSourceGroup);
     }
+
+    /**
+     * Remove a data source or group.
+     * New queries can no longer use it, a built-in pool is closed after the last connection taken from it is closed
+     * @param name
+     * @return false if there is no data source with the name
+     */
+    public static boolean removeDataSource(String name) {
+        DataSourceNode oldNode;
+        DataSourceGroup oldGroup;
+        Set<DataSource> live;
+        synchronized (lock) {
+            Map<String, DataSourceNode> nodes = new HashMap<>(dataSourceNodeMap);
+            Map<String, DataSource> dataSources = new HashMap<>(dataSourceMap);
+            Map<String, DataSourceGroup> groups = new HashMap<>(dataSourceGroupMap);
+            oldNode = nodes.remove(name);
+            dataSources.remove(name);
+            oldGroup = groups.remove(name);
+            publish(nodes, dataSources, groups);
+            live = liveDataSources(nodes, groups);
+        }
+        retire(oldNode, oldGroup, live);
+        return oldNode != null;
+    }
+
+    private static void put(String name, DataSourceNode dataSourceNode, DataSourceGroup dataSourceGroup) {
+        DataSourceNode oldNode;
+        DataSourceGroup oldGroup;
+        Set<DataSource> live;
+        synchronized (lock) {
+            Map<String, DataSourceNode> nodes = new HashMap<>(dataSourceNodeMap);
+            Map<String, DataSource> dataSources = new HashMap<>(dataSourceMap);
+            Map<String, DataSourceGroup> groups = new HashMap<>(dataSourceGroupMap);
+            DataSourceNode current = nodes.get(name);
+            if (current != null && current.getDataSource() == dataSourceNode.getDataSource()) {
+                // Same data source, keep the node and the count of its connections in use
+                dataSourceNode = current;
+            }
+            oldNode = nodes.put(name, dataSourceNode);
+            if (oldNode == dataSourceNode) {
+                oldNode = null;
+            }
+            dataSources.put(name, dataSourceNode.getDataSource());
+            if (dataSourceGroup != null) {
+                oldGroup = groups.put(name, dataSourceGroup);
+            } else {
+                oldGroup = groups.remove(name);
+            }
+            publish(nodes, dataSources, groups);
+            live = liveDataSources(nodes, groups);
+        }
+        retire(oldNode, oldGroup, live);
+    }
+
+    private static void publish(Map<String, DataSourceNode> nodes, Map<String, DataSource> dataSources, Map<String, DataSourceGroup> groups) {
+        dataSourceGroupMap = Collections.unmodifiableMap(groups);
+        dataSourceMap = Collections.unmodifiableMap(dataSources);
+        dataSourceNodeMap = Collections.unmodifiableMap(nodes);
+    }
+
+    /**
+     * The data sources still registered, as a primary or as a replica
+     * @param nodes
+     * @param groups
+     * @return
+     */
+    private static Set<DataSource> liveDataSources(Map<String, DataSourceNode> nodes, Map<String, DataSourceGroup> groups) {
+        Set<DataSource> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DataSourceNode node : nodes.values()) {
+            live.add(node.getDataSource());
+        }
+        for (DataSourceGroup group : groups.values()) {
+            for (DataSourceNode replica : group.getReplicas()) {
+                live.add(replica.getDataSource());
+            }
+        }
+        return live;
+    }
+
+    private static void retire(DataSourceNode oldNode, DataSourceGroup oldGroup, Set<DataSource> live) {
+        if (oldNode != null) {
+            retire(oldNode, live);
+        }
+        if (oldGroup != null) {
+            for (DataSourceNode replica : oldGroup.getReplicas()) {
+                retire(replica, live);
+            }
+        }
+    }
+
+    /**
+     * Stop giving out connections of the node, and close its data source once they are closed
+     * if it is a built-in pool that is not registered anymore
+     * @param node
+     * @param live
+     */
+    private static void retire(DataSourceNode node, Set<DataSource> live) {
+        DataSource dataSource = node.getDataSource();
+        node.retire(dataSource instanceof PooledDataSource && !live.contains(dataSource));
+    }
+
+    /**
+     * Get the group with the name
+     * @param name
+     * @return null if the data source is not a group
+     */
+    public static DataSourceGroup getDataSourceGroup(String name) {
+        return dataSourceGroupMap.get(name);
+    }
+
+    /**
+     * Get the data source with the name together with the count of its connections in use
+     * @param name
+     * @return
+     */
+    public static DataSourceNode getDataSourceNode(String name) {
+        return dataSourceNodeMap.get(name);
+    }
+
     /**
      * Get the default data source name
      *
@@ -49,17 +207,53 @@ public class DataSourceManager {
 
     /**
      * get database connection
+     * The connection is not counted, a data source that is removed or replaced may be closed while it is still in use,
+     * use getConnection(String, ConnectionManager) for connections that are waited for
      *
      * @return
      * @throws Exception
      */
     public static Connection getConnection(String dataSourceName) throws Exception {
-        DataSource dataSource = dataSourceMap.get(dataSourceName);
-        if (dataSource == null) {
+        DataSourceNode dataSourceNode = dataSourceNodeMap.get(dataSourceName);
+        if (dataSourceNode == null) {
             throw new Exception("No data source with name [" + dataSourceName + "] found");
         }
-        Connection connection = dataSource.getConnection();
+        Connection connection = dataSourceNode.getDataSource().getConnection();
         connection.setAutoCommit(true);
+        StatementCacheManager.attach(dataSourceName, connection);
         return connection;
     }
+
+    /**
+     * get database connection, it is counted until connectionManager is closed
+     *
+     * @param dataSourceName
+     * @param connectionManager receives the connection and the data source it was taken from
+     * @throws Exception
+     */
+    public static void getConnection(String dataSourceName, ConnectionManager connectionManager) throws Exception {
+        for (int i = 0; i < MAX_RETRY; i++) {
+            DataSourceNode dataSourceNode = dataSourceNodeMap.get(dataSourceName);
+            if (dataSourceNode == null) {
+                break;
+            }
+            Connection connection = dataSourceNode.getConnection();
+            if (connection == null) {
+                // Replaced after the lookup, take the new one
+                continue;
+            }
+            try {
+                connection.setAutoCommit(true);
+                StatementCacheManager.attach(dataSourceName, connection);
+            } catch (Exception e) {
+                connection.close();
+                dataSourceNode.release(0);
+                throw e;
+            }
+            connectionManager.setConnection(connection);
+            connectionManager.setNode(dataSourceNode);
+            return;
+        }
+        throw new Exception("No data source with name [" + dataSourceName + "] found");
+    }
 }
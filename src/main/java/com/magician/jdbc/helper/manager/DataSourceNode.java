@@ -0,0 +1,180 @@
+package com.magician.jdbc.helper.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registered data source or a replica of a data source group,
+ * with the statistics used to balance the load, eject it when it fails and close it once it is no longer used
+ */
+public class DataSourceNode {
+
+    private static Logger logger = LoggerFactory.getLogger(DataSourceNode.class);
+
+    private String name;
+
+    private DataSource dataSource;
+
+    /**
+     * Number of connections taken from the node and not closed yet
+     */
+    private AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Consecutive failures to get a connection
+     */
+    private AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Moving average of the time a connection is held, in nanoseconds
+     */
+    private volatile long latencyNanos;
+
+    /**
+     * The node is not used until this time, in milliseconds
+     */
+    private volatile long ejectedUntil;
+
+    /**
+     * Removed from the registry, no more connections are given out
+     */
+    private volatile boolean retired;
+
+    /**
+     * Close the data source once the node is retired and its last connection is closed
+     */
+    private volatile boolean closeOnDrain;
+
+    private AtomicBoolean closed = new AtomicBoolean();
+
+    public DataSourceNode(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public boolean isAvailable() {
+        return !retired && ejectedUntil <= System.currentTimeMillis();
+    }
+
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Get a connection, it is counted until release is called
+     * @return null if the node was retired
+     * @throws Exception
+     */
+    public Connection getConnection() throws Exception {
+        return getConnection(0, 0);
+    }
+
+    /**
+     * Get a connection, after failureThreshold consecutive failures the node is ejected for ejectMillis.
+     * Once that time has passed the node is tried again
+     * @param failureThreshold 0 never ejects the node
+     * @param ejectMillis
+     * @return null if the node was retired
+     * @throws Exception
+     */
+    public Connection getConnection(int failureThreshold, long ejectMillis) throws Exception {
+        inFlight.incrementAndGet();
+        if (retired) {
+            decrement();
+            return null;
+        }
+        try {
+            Connection connection = dataSource.getConnection();
+            failures.set(0);
+            return connection;
+        } catch (Exception e) {
+            decrement();
+            if (failureThreshold > 0 && failures.incrementAndGet() >= failureThreshold) {
+                failures.set(0);
+                ejectedUntil = System.currentTimeMillis() + ejectMillis;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Called when a connection of the node is closed
+     * @param heldNanos how long the connection was held
+     */
+    public void release(long heldNanos) {
+        long latency = latencyNanos;
+        latencyNanos = latency == 0 ? heldNanos : latency + (heldNanos - latency) / 8;
+        decrement();
+    }
+
+    /**
+     * Stop giving out connections
+     * @param close close the data source once the connections in use are closed
+     */
+    public void retire(boolean close) {
+        closeOnDrain = close;
+        retired = true;
+        if (inFlight.get() == 0) {
+            closeDataSource();
+        }
+    }
+
+    private void decrement() {
+        if (inFlight.decrementAndGet() == 0 && retired) {
+            closeDataSource();
+        }
+    }
+
+    /**
+     * Close the data source if the node was retired with close and the data source can be closed
+     */
+    private void closeDataSource() {
+        if (!closeOnDrain || !closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                logger.warn("Error closing data source [{}]", name, e);
+            }
+        }
+    }
+
+    /**
+     * Eject the node, for example when a health check outside the framework fails
+     * @param ejectMillis
+     */
+    public void eject(long ejectMillis) {
+        ejectedUntil = System.currentTimeMillis() + ejectMillis;
+    }
+
+    /**
+     * Put an ejected node back into use
+     */
+    public void recover() {
+        failures.set(0);
+        ejectedUntil = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.core.util.LRUCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * PreparedStatement cache of one physical connection, evicted statements are closed
+ */
+public class StatementCache {
+
+    private static Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private Connection connection;
+
+    private LRUCache<String, PreparedStatement> statements;
+
+    private StatementCacheStats stats;
+
+    public StatementCache(Connection connection, int maxSize, StatementCacheStats stats) {
+        this.connection = connection;
+        this.stats = stats;
+        this.statements = new LRUCache<>(maxSize, statement -> {
+            stats.evict();
+            closeStatement(statement);
+        });
+    }
+
+    /**
+     * Get the cached statement for the sql, prepare and cache one if there is none.
+     * The statement stays open, callers must not close it
+     * @param sql
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement preparedStatement = statements.get(sql);
+        if (preparedStatement != null && !preparedStatement.isClosed()) {
+            stats.hit();
+            return preparedStatement;
+        }
+        stats.miss();
+        preparedStatement = connection.prepareStatement(sql);
+        statements.put(sql, preparedStatement);
+        return preparedStatement;
+    }
+
+    public int getMaxSize() {
+        return statements.getMaxSize();
+    }
+
+    /**
+     * Change the number of statements kept, statements beyond the new size are closed
+     * @param maxSize
+     */
+    public void setMaxSize(int maxSize) {
+        statements.setMaxSize(maxSize);
+    }
+
+    /**
+     * Close all cached statements
+     */
+    public void close() {
+        for (PreparedStatement preparedStatement : statements.clear()) {
+            closeStatement(preparedStatement);
+        }
+    }
+
+    private static void closeStatement(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing cached statement", e);
+        }
+    }
+}
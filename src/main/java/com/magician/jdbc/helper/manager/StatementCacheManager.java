@@ -0,0 +1,158 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.helper.pool.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statement cache management.
+ * A cache belongs to a physical connection: it is kept while the connection goes back to the pool and is borrowed again,
+ * and is dropped when the pool closes the physical connection.
+ * The built-in pool keeps the cache on its own connections, the physical connection of other pools is found with Connection.unwrap
+ */
+public class StatementCacheManager {
+
+    private static Logger logger = LoggerFactory.getLogger(StatementCacheManager.class);
+
+    /**
+     * Cache size of each data source, data sources without a size do not cache statements
+     */
+    private static Map<String, Integer> cacheSizeMap = new ConcurrentHashMap<>();
+
+    private static Map<String, StatementCacheStats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Caches of the physical connections of other pools.
+     * A cache references its connection, so a weak map would never let go of it,
+     * the caches of closed connections are dropped instead whenever a cache is created for a new physical connection
+     */
+    private static Map<Connection, StatementCache> physicalCacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * Data sources already warned about connections that can not hold a cache
+     */
+    private static Set<String> warnedSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Set the maximum number of statements cached per connection of the data source, 0 turns caching off
+     * @param dataSourceName
+     * @param size
+     */
+    public static void setCacheSize(String dataSourceName, int size) {
+        if (size > 0) {
+            cacheSizeMap.put(dataSourceName, size);
+        } else {
+            cacheSizeMap.remove(dataSourceName);
+        }
+    }
+
+    /**
+     * Get the statement cache statistics of the data source
+     * @param dataSourceName
+     * @return
+     */
+    public static StatementCacheStats getStats(String dataSourceName) {
+        return statsMap.computeIfAbsent(dataSourceName, key -> new StatementCacheStats());
+    }
+
+    /**
+     * Give a connection that has just been taken from the data source the statement cache of its physical connection,
+     * it is created the first time the physical connection is borrowed
+     * @param dataSourceName
+     * @param connection
+     * @throws SQLException
+     */
+    public static void attach(String dataSourceName, Connection connection) throws SQLException {
+        if (cacheSizeMap.isEmpty() && physicalCacheMap.isEmpty()) {
+            return;
+        }
+        Integer size = cacheSizeMap.get(dataSourceName);
+        if (connection instanceof PooledConnection) {
+            if (size != null) {
+                ((PooledConnection) connection).attachStatementCache(size, getStats(dataSourceName));
+            }
+            return;
+        }
+        Connection physical = physical(connection);
+        if (size == null) {
+            // Caching was turned off for the data source
+            StatementCache statementCache = physical == null ? null : physicalCacheMap.remove(physical);
+            if (statementCache != null) {
+                statementCache.close();
+            }
+            return;
+        }
+        if (physical == null) {
+            if (warnedSet.add(dataSourceName)) {
+                logger.warn("Statements of data source [{}] are not cached, its connections do not unwrap to a physical connection that outlives them", dataSourceName);
+            }
+            return;
+        }
+        StatementCache statementCache = physicalCacheMap.get(physical);
+        if (statementCache == null) {
+            dropClosed();
+            // A physical connection is only used by the one borrower at a time
+            physicalCacheMap.put(physical, new StatementCache(physical, size, getStats(dataSourceName)));
+        } else if (statementCache.getMaxSize() != size) {
+            statementCache.setMaxSize(size);
+        }
+    }
+
+    /**
+     * Get the statement cache of the connection
+     * @param connection
+     * @return null if statements of this connection are not cached
+     * @throws SQLException
+     */
+    public static StatementCache getCache(Connection connection) throws SQLException {
+        if (connection instanceof PooledConnection) {
+            return ((PooledConnection) connection).getStatementCache();
+        }
+        if (physicalCacheMap.isEmpty()) {
+            return null;
+        }
+        Connection physical = physical(connection);
+        return physical == null ? null : physicalCacheMap.get(physical);
+    }
+
+    /**
+     * The physical connection behind a connection handed out by a pool
+     * @param connection
+     * @return null if the connection does not unwrap to another connection, it is then closed for good when it is closed
+     */
+    private static Connection physical(Connection connection) {
+        try {
+            Connection physical = connection.unwrap(Connection.class);
+            return physical == connection ? null : physical;
+        } catch (SQLException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drop the caches of the physical connections the pools have closed, the driver closed their statements with them
+     */
+    private static void dropClosed() {
+        Iterator<Map.Entry<Connection, StatementCache>> iterator = physicalCacheMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Connection, StatementCache> entry = iterator.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                iterator.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.magician.jdbc.helper.manager;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement cache statistics of a data source
+ */
+public class StatementCacheStats {
+
+    private LongAdder hitCount = new LongAdder();
+
+    private LongAdder missCount = new LongAdder();
+
+    private LongAdder evictionCount = new LongAdder();
+
+    public void hit() {
+        hitCount.increment();
+    }
+
+    public void miss() {
+        missCount.increment();
+    }
+
+    public void evict() {
+        evictionCount.increment();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Proportion of prepareStatement calls served from the cache
+     * @return
+     */
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
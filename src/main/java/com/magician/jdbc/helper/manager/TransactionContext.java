@@ -0,0 +1,82 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.core.constant.enums.TractionLevel;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transaction of the current thread, connections are taken from a data source the first time it is used
+ */
+public class TransactionContext {
+
+    private TractionLevel tractionLevel;
+
+    /**
+     * nanoTime when the transaction began
+     */
+    private long startTime = System.nanoTime();
+
+    /**
+     * Data sources covered by the transaction, null means all of them
+     */
+    private Set<String> dataSourceNames;
+
+    /**
+     * Connections taken so far, keyed by data source name
+     */
+    private Map<String, Connection> connections = new LinkedHashMap<>();
+
+    /**
+     * Data sources the connections were taken from, keyed by data source name
+     */
+    private Map<String, DataSourceNode> nodes = new HashMap<>();
+
+    /**
+     * Run after the transaction is committed or rolled back
+     */
+    private List<Runnable> afterCompletions = new ArrayList<>();
+
+    public TransactionContext(TractionLevel tractionLevel, String[] dataSourceNames) {
+        this.tractionLevel = tractionLevel;
+        if (dataSourceNames != null && dataSourceNames.length > 0) {
+            this.dataSourceNames = new HashSet<>(Arrays.asList(dataSourceNames));
+        }
+    }
+
+    public TractionLevel getTractionLevel() {
+        return tractionLevel;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Whether the data source takes part in this transaction
+     * @param dataSourceName
+     * @return
+     */
+    public boolean contains(String dataSourceName) {
+        return dataSourceNames == null || dataSourceNames.contains(dataSourceName);
+    }
+
+    public Map<String, Connection> getConnections() {
+        return connections;
+    }
+
+    public Map<String, DataSourceNode> getNodes() {
+        return nodes;
+    }
+
+    public List<Runnable> getAfterCompletions() {
+        return afterCompletions;
+    }
+}
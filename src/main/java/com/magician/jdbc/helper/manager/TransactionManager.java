@@ -2,13 +2,16 @@ package com.magician.jdbc.helper.manager;
 
 import com.magician.jdbc.core.constant.enums.TractionLevel;
 import com.magician.jdbc.core.util.ThreadUtil;
+import com.magician.jdbc.helper.monitor.MonitorManager;
+import com.magician.jdbc.helper.monitor.TransactionEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * transaction management
@@ -20,45 +23,131 @@ public class TransactionManager {
 	private static Logger logger = LoggerFactory.getLogger(TransactionManager.class);
 
 	/**
-	 * Get a database connection and set it to not commit automatically
-	 * Put the acquired connection in the cache
+	 * Start a transaction on all data sources
+	 * Connections are taken when a data source is first used and put in the cache
 	 */
 	public static void beginTraction() throws Exception {
 		beginTraction(TractionLevel.READ_COMMITTED);
 	}
 
 	/**
-	 * Get a database connection and set it to not commit automatically
-	 * Put the acquired connection in the cache
+	 * Start a transaction on all data sources
+	 * Connections are taken when a data source is first used and put in the cache
 	 */
 	public static void beginTraction(TractionLevel tractionLevel) throws Exception {
-		try {
-			Map<String, DataSource> maps = DataSourceManager.getDataSources();
+		beginTraction(tractionLevel, new String[0]);
+	}
 
-			Map<String, Connection> connections = new HashMap<>();
+	/**
+	 * Start a transaction on the specified data sources, the other data sources keep committing automatically
+	 * Connections are taken when a data source is first used and put in the cache
+	 */
+	public static void beginTraction(String... dataSources) throws Exception {
+		beginTraction(TractionLevel.READ_COMMITTED, dataSources);
+	}
 
-			for (String key : maps.keySet()) {
-				Connection connection = maps.get(key).getConnection();
-				connection.setAutoCommit(false);
-				connection.setTransactionIsolation(tractionLevel.getLevel());
-				connections.put(key, connection);
+	/**
+	 * Start a transaction on the specified data sources, the other data sources keep committing automatically
+	 * Connections are taken when a data source is first used and put in the cache
+	 */
+	public static void beginTraction(TractionLevel tractionLevel, String... dataSources) throws Exception {
+		try {
+			Map<String, DataSource> maps = DataSourceManager.getDataSources();
+			for (String dataSource : dataSources) {
+				if (!maps.containsKey(dataSource)) {
+					throw new Exception("No data source with name [" + dataSource + "] found");
+				}
 			}
 
-			ThreadUtil.getThreadLocal().set(connections);
+			ThreadUtil.getThreadLocal().set(new TransactionContext(tractionLevel, dataSources));
 		} catch (Exception e) {
 			logger.error("Error begin transaction", e);
 			throw e;
 		}
 	}
 
+	/**
+	 * Whether the current thread has a transaction, on any data source
+	 * @return
+	 */
+	public static boolean isTransaction() {
+		return getTransactionContext() != null;
+	}
+
+	/**
+	 * Whether the current thread has a transaction that covers the data source
+	 * @param dataSourceName
+	 * @return
+	 */
+	public static boolean isTransaction(String dataSourceName) {
+		TransactionContext transactionContext = getTransactionContext();
+		return transactionContext != null && transactionContext.contains(dataSourceName);
+	}
+
+	/**
+	 * Run the action after the current transaction on the data source is committed or rolled back
+	 * @param dataSourceName
+	 * @param action
+	 * @return false if the current thread has no transaction covering the data source, the action is not kept
+	 */
+	public static boolean afterCompletion(String dataSourceName, Runnable action) {
+		TransactionContext transactionContext = getTransactionContext();
+		if (transactionContext == null || !transactionContext.contains(dataSourceName)) {
+			return false;
+		}
+		transactionContext.getAfterCompletions().add(action);
+		return true;
+	}
+
+	/**
+	 * Get the transaction connection of the data source, it is taken and set to not commit automatically on first use
+	 * @param dataSourceName
+	 * @return null if the current thread has no transaction covering the data source
+	 */
+	public static Connection getConnection(String dataSourceName) throws Exception {
+		TransactionContext transactionContext = getTransactionContext();
+		if (transactionContext == null || !transactionContext.contains(dataSourceName)) {
+			return null;
+		}
+
+		Map<String, Connection> connections = transactionContext.getConnections();
+		Connection connection = connections.get(dataSourceName);
+		if (connection != null) {
+			return connection;
+		}
+
+		DataSourceNode dataSourceNode = null;
+		while (connection == null) {
+			dataSourceNode = DataSourceManager.getDataSourceNode(dataSourceName);
+			if (dataSourceNode == null) {
+				throw new Exception("No data source with name [" + dataSourceName + "] found");
+			}
+			// null when the data source was replaced after the lookup
+			connection = dataSourceNode.getConnection();
+		}
+		try {
+			connection.setAutoCommit(false);
+			connection.setTransactionIsolation(transactionContext.getTractionLevel().getLevel());
+			StatementCacheManager.attach(dataSourceName, connection);
+		} catch (Exception e) {
+			connection.close();
+			dataSourceNode.release(0);
+			throw e;
+		}
+		connections.put(dataSourceName, connection);
+		transactionContext.getNodes().put(dataSourceName, dataSourceNode);
+		return connection;
+	}
+
 	/**
 	 * Get the current thread's database connection from the cache and commit the transaction
 	 */
 	public static void commit() throws Exception {
-		Map<String, Connection> connections = getConnectionMap();
-		if (connections == null) {
+		TransactionContext transactionContext = getTransactionContext();
+		if (transactionContext == null) {
 			return;
 		}
+		Map<String, Connection> connections = transactionContext.getConnections();
 
 		boolean success = true;
 
@@ -73,10 +162,14 @@ public class TransactionManager {
 			}
 		}
 
-		close(connections);
+		close(transactionContext);
 
 		ThreadUtil.getThreadLocal().remove();
 
+		afterCompletion(transactionContext);
+
+		transactionEvent(transactionContext, true, success);
+
 		if(success == false){
 			throw new Exception("rollback transaction error");
 		}
@@ -86,10 +179,11 @@ public class TransactionManager {
 	 * Get the current thread's database connection from the cache and roll back the transaction
 	 */
 	public static void rollback() throws Exception {
-		Map<String, Connection> connections = getConnectionMap();
-		if (connections == null) {
+		TransactionContext transactionContext = getTransactionContext();
+		if (transactionContext == null) {
 			return;
 		}
+		Map<String, Connection> connections = transactionContext.getConnections();
 
 		boolean success = true;
 
@@ -104,20 +198,55 @@ public class TransactionManager {
 			}
 		}
 
-		close(connections);
+		close(transactionContext);
 
 		ThreadUtil.getThreadLocal().remove();
 
+		afterCompletion(transactionContext);
+
+		transactionEvent(transactionContext, false, success);
+
 		if(success == false){
 			throw new Exception("rollback transaction error");
 		}
 	}
 
+	/**
+	 * Run the actions registered during the transaction
+	 * @param transactionContext
+	 */
+	private static void afterCompletion(TransactionContext transactionContext){
+		for (Runnable action : transactionContext.getAfterCompletions()) {
+			try {
+				action.run();
+			} catch (Exception e) {
+				logger.error("Error running after transaction completion", e);
+			}
+		}
+	}
+
+	/**
+	 * Send the duration of the transaction to the listeners
+	 * @param transactionContext
+	 * @param commit
+	 * @param success
+	 */
+	private static void transactionEvent(TransactionContext transactionContext, boolean commit, boolean success){
+		if (!MonitorManager.isEnabled()) {
+			return;
+		}
+		long durationNanos = System.nanoTime() - transactionContext.getStartTime();
+		Set<String> dataSources = new HashSet<>(transactionContext.getConnections().keySet());
+		MonitorManager.transaction(new TransactionEvent(dataSources, durationNanos, commit, success));
+	}
+
 	/**
 	 * Close the connection
-	 * @param connections
+	 * @param transactionContext
 	 */
-	private static void close(Map<String, Connection> connections){
+	private static void close(TransactionContext transactionContext){
+		Map<String, Connection> connections = transactionContext.getConnections();
+		long durationNanos = System.nanoTime() - transactionContext.getStartTime();
 		for (String key : connections.keySet()) {
 			try {
 				Connection connection = connections.get(key);
@@ -125,19 +254,24 @@ public class TransactionManager {
 			} catch (Exception e) {
 				logger.error("rollback transaction error", e);
 				continue;
+			} finally {
+				DataSourceNode dataSourceNode = transactionContext.getNodes().get(key);
+				if (dataSourceNode != null) {
+					dataSourceNode.release(durationNanos);
+				}
 			}
 		}
 	}
 
 	/**
-	 * Get connection from ThreadLocal
+	 * Get the transaction from ThreadLocal
 	 * @return
 	 */
-	private static Map<String, Connection> getConnectionMap(){
+	private static TransactionContext getTransactionContext(){
 		Object transactionObj = ThreadUtil.getThreadLocal().get();
-		if(transactionObj == null || (transactionObj instanceof Map) == false){
+		if(transactionObj == null || (transactionObj instanceof TransactionContext) == false){
 			return null;
 		}
-		return (Map<String, Connection>) transactionObj;
+		return (TransactionContext) transactionObj;
 	}
 }
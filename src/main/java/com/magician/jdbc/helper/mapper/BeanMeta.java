@@ -0,0 +1,382 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.alibaba.fastjson2.annotation.JSONField;
+import com.magician.jdbc.core.util.JSONUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Property metadata of a class, parsed once and cached
+ */
+public class BeanMeta {
+
+    private static Map<Class<?>, BeanMeta> beanMetaMap = new ConcurrentHashMap<>();
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private Class<?> cls;
+
+    private boolean record;
+
+    /**
+     * ()Object for beans, (Object[])Object for records
+     */
+    private MethodHandle constructor;
+
+    private List<BeanProperty> properties = new ArrayList<>();
+
+    private Map<String, BeanProperty> propertyMap = new HashMap<>();
+
+    /**
+     * Properties keyed by lowercase name without underscores, so that user_name and USERNAME both find userName
+     */
+    private Map<String, BeanProperty> looseMap = new HashMap<>();
+
+    /**
+     * Readable properties, superclass first and then in declaration order
+     */
+    private List<BeanProperty> readableProperties = new ArrayList<>();
+
+    private BeanMeta() {}
+
+    /**
+     * Get the metadata of the class
+     * @param cls
+     * @return
+     */
+    public static BeanMeta get(Class<?> cls) {
+        BeanMeta beanMeta = beanMetaMap.get(cls);
+        if (beanMeta == null) {
+            beanMeta = beanMetaMap.computeIfAbsent(cls, BeanMeta::parse);
+        }
+        return beanMeta;
+    }
+
+    public Class<?> getCls() {
+        return cls;
+    }
+
+    public boolean isRecord() {
+        return record;
+    }
+
+    /**
+     * Whether newInstance can create the class, that is it is a record or has a no-argument constructor
+     * @return
+     */
+    public boolean isInstantiable() {
+        return constructor != null;
+    }
+
+    public List<BeanProperty> getProperties() {
+        return properties;
+    }
+
+    public List<BeanProperty> getReadableProperties() {
+        return readableProperties;
+    }
+
+    /**
+     * Convert a bean or a record to a Map of property name to value, read directly from the object.
+     * Values keep their java types, so that they are bound by their type handlers, and the order of the properties is kept.
+     * A Map is returned as it is
+     * @param obj
+     * @return
+     */
+    public static Map<String, Object> toMap(Object obj) {
+        if (obj == null) {
+            return new HashMap<>();
+        }
+        if (obj instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) obj;
+            return map;
+        }
+        if (obj instanceof CharSequence) {
+            // A JSON string, as accepted before
+            return JSONUtil.toMap(obj);
+        }
+        EntityMapper<?> entityMapper = EntityMapperManager.get(obj.getClass());
+        if (entityMapper != null) {
+            return toMap(entityMapper, obj);
+        }
+        return get(obj.getClass()).readProperties(obj);
+    }
+
+    private static <T> Map<String, Object> toMap(EntityMapper<T> entityMapper, Object obj) {
+        return entityMapper.toMap(entityMapper.getType().cast(obj));
+    }
+
+    /**
+     * Read all readable properties of the object
+     * @param obj
+     * @return
+     */
+    public Map<String, Object> readProperties(Object obj) {
+        Map<String, Object> map = new LinkedHashMap<>(readableProperties.size() * 4 / 3 + 1);
+        for (BeanProperty beanProperty : readableProperties) {
+            map.put(beanProperty.getName(), beanProperty.getValue(obj));
+        }
+        return map;
+    }
+
+    /**
+     * Find the property for a column label
+     * @param label
+     * @return
+     */
+    public BeanProperty findProperty(String label) {
+        BeanProperty beanProperty = propertyMap.get(label);
+        if (beanProperty == null) {
+            beanProperty = looseMap.get(looseName(label));
+        }
+        return beanProperty;
+    }
+
+    /**
+     * Create an instance with the no-argument constructor
+     * @return
+     * @throws Exception
+     */
+    public Object newInstance() throws Exception {
+        if (constructor == null) {
+            throw new Exception(cls.getName() + " has no no-argument constructor");
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception(e);
+        }
+    }
+
+    /**
+     * Create a record with the canonical constructor
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    public Object newRecord(Object[] args) throws Exception {
+        try {
+            return (Object) constructor.invokeExact(args);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception(e);
+        }
+    }
+
+    private static BeanMeta parse(Class<?> cls) {
+        BeanMeta beanMeta = new BeanMeta();
+        beanMeta.cls = cls;
+        beanMeta.record = cls.isRecord();
+        try {
+            if (beanMeta.record) {
+                parseRecord(beanMeta);
+            } else {
+                parseBean(beanMeta);
+            }
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException("Unable to parse the properties of " + cls.getName(), e);
+        }
+        for (BeanProperty beanProperty : beanMeta.properties) {
+            beanMeta.propertyMap.putIfAbsent(beanProperty.getName(), beanProperty);
+            beanMeta.looseMap.putIfAbsent(looseName(beanProperty.getName()), beanProperty);
+        }
+        return beanMeta;
+    }
+
+    private static void parseRecord(BeanMeta beanMeta) throws IllegalAccessException, NoSuchMethodException {
+        RecordComponent[] components = beanMeta.cls.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            // Annotations of a component are also on its accessor
+            Method accessor = components[i].getAccessor();
+            JSONField jsonField = accessor.getAnnotation(JSONField.class);
+            beanMeta.properties.add(new BeanProperty(annotatedName(jsonField, components[i].getName()), types[i], null, i));
+
+            if (jsonField != null && !jsonField.serialize()) {
+                continue;
+            }
+            accessor.setAccessible(true);
+            MethodHandle getter = lookup.unreflect(accessor).asType(GETTER_TYPE);
+            beanMeta.readableProperties.add(new BeanProperty(annotatedName(jsonField, components[i].getName()), types[i], null, getter, i));
+        }
+        Constructor<?> canonical = beanMeta.cls.getDeclaredConstructor(types);
+        canonical.setAccessible(true);
+        beanMeta.constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+                .asSpreader(Object[].class, types.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    private static void parseBean(BeanMeta beanMeta) throws IllegalAccessException {
+        Class<?> cls = beanMeta.cls;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            if (!Modifier.isAbstract(cls.getModifiers())) {
+                Constructor<?> constructor = cls.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                beanMeta.constructor = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            }
+        } catch (NoSuchMethodException | RuntimeException e) {
+            // Without a no-argument constructor the class can still be described, just not instantiated
+        }
+
+        Map<String, Method> setters = new TreeMap<>();
+        for (Method method : cls.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+                    || method.getParameterCount() != 1
+                    || method.getName().length() < 4
+                    || !method.getName().startsWith("set")) {
+                continue;
+            }
+            setters.putIfAbsent(decapitalize(method.getName().substring(3)), method);
+        }
+
+        // Superclass fields first, then declaration order, so that the property order is stable
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || names.contains(field.getName())) {
+                    continue;
+                }
+                Method setter = setters.remove(field.getName());
+                if (setter != null) {
+                    addSetter(beanMeta, lookup, field.getName(), setter, field.getAnnotation(JSONField.class));
+                    names.add(field.getName());
+                } else if (Modifier.isPublic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    JSONField jsonField = field.getAnnotation(JSONField.class);
+                    if (jsonField != null && !jsonField.deserialize()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    MethodHandle handle = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                    beanMeta.properties.add(new BeanProperty(annotatedName(jsonField, field.getName()), field.getType(), handle, -1));
+                    names.add(field.getName());
+                }
+            }
+        }
+
+        // Setters that do not correspond to a field
+        for (Map.Entry<String, Method> entry : setters.entrySet()) {
+            addSetter(beanMeta, lookup, entry.getKey(), entry.getValue(), null);
+        }
+
+        parseGetters(beanMeta, lookup, hierarchy);
+    }
+
+    private static void parseGetters(BeanMeta beanMeta, MethodHandles.Lookup lookup, List<Class<?>> hierarchy) throws IllegalAccessException {
+        Map<String, Method> getters = new TreeMap<>();
+        for (Method method : beanMeta.cls.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+                    || method.getParameterCount() != 0
+                    || method.getReturnType() == void.class
+                    || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = method.getName();
+            if (name.length() > 3 && name.startsWith("get")) {
+                getters.putIfAbsent(decapitalize(name.substring(3)), method);
+            } else if (name.length() > 2 && name.startsWith("is")
+                    && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                getters.putIfAbsent(decapitalize(name.substring(2)), method);
+            }
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || names.contains(field.getName())) {
+                    continue;
+                }
+                Method getter = getters.remove(field.getName());
+                if (getter != null) {
+                    addGetter(beanMeta, lookup, field.getName(), getter, field.getAnnotation(JSONField.class));
+                    names.add(field.getName());
+                } else if (Modifier.isPublic(field.getModifiers())) {
+                    JSONField jsonField = field.getAnnotation(JSONField.class);
+                    if (jsonField != null && !jsonField.serialize()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    MethodHandle handle = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    beanMeta.readableProperties.add(new BeanProperty(annotatedName(jsonField, field.getName()), field.getType(), null, handle, -1));
+                    names.add(field.getName());
+                }
+            }
+        }
+
+        // Getters that do not correspond to a field
+        for (Map.Entry<String, Method> entry : getters.entrySet()) {
+            addGetter(beanMeta, lookup, entry.getKey(), entry.getValue(), null);
+        }
+    }
+
+    private static void addGetter(BeanMeta beanMeta, MethodHandles.Lookup lookup, String name, Method getter, JSONField fieldAnnotation) throws IllegalAccessException {
+        JSONField jsonField = getter.getAnnotation(JSONField.class);
+        if (jsonField == null) {
+            jsonField = fieldAnnotation;
+        }
+        if (jsonField != null && !jsonField.serialize()) {
+            return;
+        }
+        try {
+            getter.setAccessible(true);
+        } catch (RuntimeException e) {
+            return;
+        }
+        MethodHandle handle = lookup.unreflect(getter).asType(GETTER_TYPE);
+        beanMeta.readableProperties.add(new BeanProperty(annotatedName(jsonField, name), getter.getReturnType(), null, handle, -1));
+    }
+
+    private static void addSetter(BeanMeta beanMeta, MethodHandles.Lookup lookup, String name, Method setter, JSONField fieldAnnotation) throws IllegalAccessException {
+        JSONField jsonField = setter.getAnnotation(JSONField.class);
+        if (jsonField == null) {
+            jsonField = fieldAnnotation;
+        }
+        if (jsonField != null && !jsonField.deserialize()) {
+            return;
+        }
+        try {
+            setter.setAccessible(true);
+        } catch (RuntimeException e) {
+            return;
+        }
+        MethodHandle handle = lookup.unreflect(setter).asType(SETTER_TYPE);
+        beanMeta.properties.add(new BeanProperty(annotatedName(jsonField, name), setter.getParameterTypes()[0], handle, -1));
+    }
+
+    private static String annotatedName(JSONField jsonField, String name) {
+        if (jsonField != null && jsonField.name() != null && !jsonField.name().isEmpty()) {
+            return jsonField.name();
+        }
+        return name;
+    }
+
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static String looseName(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
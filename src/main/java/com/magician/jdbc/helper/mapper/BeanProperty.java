@@ -0,0 +1,108 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.alibaba.fastjson2.util.TypeUtils;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A property of a bean or a component of a record
+ */
+public class BeanProperty {
+
+    /**
+     * property name
+     */
+    private String name;
+
+    /**
+     * property type
+     */
+    private Class<?> type;
+
+    /**
+     * Setter with the signature (Object, Object)void, null for records
+     */
+    private MethodHandle setter;
+
+    /**
+     * Getter with the signature (Object)Object, null for properties that are only written
+     */
+    private MethodHandle getter;
+
+    /**
+     * Position in the canonical constructor, only used by records
+     */
+    private int index;
+
+    public BeanProperty(String name, Class<?> type, MethodHandle setter, int index) {
+        this.name = name;
+        this.type = type;
+        this.setter = setter;
+        this.index = index;
+    }
+
+    public BeanProperty(String name, Class<?> type, MethodHandle setter, MethodHandle getter, int index) {
+        this(name, type, setter, index);
+        this.getter = getter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public MethodHandle getSetter() {
+        return setter;
+    }
+
+    public MethodHandle getGetter() {
+        return getter;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Read the value from the bean
+     * @param bean
+     * @return
+     */
+    public Object getValue(Object bean) {
+        try {
+            return (Object) getter.invokeExact(bean);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read the property [" + name + "]", e);
+        }
+    }
+
+    /**
+     * Write a value into the bean, converting it to the property type if needed
+     * @param bean
+     * @param value
+     * @throws Exception
+     */
+    public void setValue(Object bean, Object value) throws Exception {
+        if (setter == null) {
+            throw new Exception("Property [" + name + "] of a record can not be written");
+        }
+        if (value == null && type.isPrimitive()) {
+            return;
+        }
+        if (value != null && !type.isInstance(value)) {
+            value = TypeUtils.cast(value, type);
+        }
+        try {
+            setter.invokeExact(bean, value);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write the columns of a row into the properties of a bean through its setters
+ * @param <T>
+ */
+public class BeanRowMapper<T> implements RowMapper<T> {
+
+    private BeanMeta beanMeta;
+
+    private int[] columnIndexes;
+
+    private ColumnReader[] readers;
+
+    private MethodHandle[] setters;
+
+    public BeanRowMapper(Class<T> cls, String[] labels) {
+        this.beanMeta = BeanMeta.get(cls);
+
+        List<BeanProperty> matched = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            BeanProperty beanProperty = beanMeta.findProperty(labels[i]);
+            if (beanProperty == null) {
+                continue;
+            }
+            matched.add(beanProperty);
+            indexes.add(i + 1);
+        }
+
+        this.columnIndexes = new int[matched.size()];
+        this.readers = new ColumnReader[matched.size()];
+        this.setters = new MethodHandle[matched.size()];
+        for (int i = 0; i < matched.size(); i++) {
+            columnIndexes[i] = indexes.get(i);
+            readers[i] = ColumnReader.of(matched.get(i).getType());
+            setters[i] = matched.get(i).getSetter();
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws Exception {
+        Object bean = beanMeta.newInstance();
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = readers[i].read(resultSet, columnIndexes[i]);
+            if (value == null) {
+                continue;
+            }
+            try {
+                setters[i].invokeExact(bean, value);
+            } catch (Exception e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new Exception(e);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        T row = (T) bean;
+        return row;
+    }
+}
@@ -0,0 +1,87 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column labels of a result set and the position of each label, resolved once and shared by all rows of the result
+ */
+public class ColumnIndex {
+
+    /**
+     * All column labels in result set order
+     */
+    private String[] labels;
+
+    /**
+     * Distinct labels, a label that appears more than once keeps its last column like a HashMap would
+     */
+    private String[] keys;
+
+    /**
+     * Value position of each entry in keys
+     */
+    private int[] positions;
+
+    private Map<String, Integer> indexMap;
+
+    public ColumnIndex(String[] labels) {
+        this.labels = labels;
+        this.indexMap = new HashMap<>((int) (labels.length / 0.75f) + 1);
+        for (int i = 0; i < labels.length; i++) {
+            indexMap.put(labels[i], i);
+        }
+
+        this.keys = new String[indexMap.size()];
+        this.positions = new int[indexMap.size()];
+        int size = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (indexMap.get(labels[i]) == i) {
+                keys[size] = labels[i];
+                positions[size] = i;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Read the current row of the result set
+     * @param resultSet
+     * @return
+     * @throws Exception
+     */
+    public RowMap read(ResultSet resultSet) throws Exception {
+        Object[] values = new Object[labels.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(i + 1);
+        }
+        return new RowMap(this, values);
+    }
+
+    /**
+     * Position of the label, -1 if there is no such column
+     * @param label
+     * @return
+     */
+    public int indexOf(Object label) {
+        Integer index = indexMap.get(label);
+        return index == null ? -1 : index;
+    }
+
+    public String[] getLabels() {
+        return labels;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String getKey(int entry) {
+        return keys[entry];
+    }
+
+    int getPosition(int entry) {
+        return positions[entry];
+    }
+}
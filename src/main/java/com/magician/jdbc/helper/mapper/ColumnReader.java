@@ -0,0 +1,180 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.alibaba.fastjson2.util.TypeUtils;
+import com.magician.jdbc.helper.type.TypeHandler;
+import com.magician.jdbc.helper.type.TypeHandlerManager;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+
+/**
+ * Read a column with the getter that matches the target java type
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    /**
+     * Read the value of the column, returns null for SQL NULL
+     * @param resultSet
+     * @param index
+     * @return
+     * @throws SQLException
+     */
+    Object read(ResultSet resultSet, int index) throws SQLException;
+
+    /**
+     * Get the reader for the java type, a TypeHandler registered for the type or one of its supertypes is used first
+     * @param type
+     * @return
+     */
+    static ColumnReader of(Class<?> type) {
+        TypeHandler<?> typeHandler = TypeHandlerManager.getUserHandler(type);
+        if (typeHandler != null) {
+            return typeHandler::getResult;
+        }
+        if (type == String.class) {
+            return ResultSet::getString;
+        }
+        if (type == long.class || type == Long.class) {
+            return (rs, i) -> {
+                long value = rs.getLong(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == int.class || type == Integer.class) {
+            return (rs, i) -> {
+                int value = rs.getInt(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == double.class || type == Double.class) {
+            return (rs, i) -> {
+                double value = rs.getDouble(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == float.class || type == Float.class) {
+            return (rs, i) -> {
+                float value = rs.getFloat(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == short.class || type == Short.class) {
+            return (rs, i) -> {
+                short value = rs.getShort(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == byte.class || type == Byte.class) {
+            return (rs, i) -> {
+                byte value = rs.getByte(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return (rs, i) -> {
+                boolean value = rs.getBoolean(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        }
+        if (type == BigInteger.class) {
+            return (rs, i) -> {
+                BigDecimal value = rs.getBigDecimal(i);
+                return value == null ? null : value.toBigInteger();
+            };
+        }
+        if (type == byte[].class) {
+            return ResultSet::getBytes;
+        }
+        if (type == Timestamp.class) {
+            return ResultSet::getTimestamp;
+        }
+        if (type == java.sql.Date.class) {
+            return ResultSet::getDate;
+        }
+        if (type == Time.class) {
+            return ResultSet::getTime;
+        }
+        if (type == Date.class) {
+            return (rs, i) -> {
+                Timestamp value = rs.getTimestamp(i);
+                return value == null ? null : new Date(value.getTime());
+            };
+        }
+        if (type == LocalDateTime.class) {
+            return (rs, i) -> {
+                Timestamp value = rs.getTimestamp(i);
+                return value == null ? null : value.toLocalDateTime();
+            };
+        }
+        if (type == LocalDate.class) {
+            return (rs, i) -> {
+                java.sql.Date value = rs.getDate(i);
+                return value == null ? null : value.toLocalDate();
+            };
+        }
+        if (type == LocalTime.class) {
+            return (rs, i) -> {
+                Time value = rs.getTime(i);
+                return value == null ? null : value.toLocalTime();
+            };
+        }
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return (rs, i) -> {
+                Object value = rs.getObject(i);
+                if (value == null) {
+                    return null;
+                }
+                if (value instanceof Number) {
+                    return constants[((Number) value).intValue()];
+                }
+                for (Object constant : constants) {
+                    if (((Enum<?>) constant).name().equals(value.toString())) {
+                        return constant;
+                    }
+                }
+                throw new SQLException("No enum constant " + type.getName() + "." + value);
+            };
+        }
+        if (type == Object.class) {
+            return ResultSet::getObject;
+        }
+        return (rs, i) -> {
+            Object value = rs.getObject(i);
+            if (value == null || type.isInstance(value)) {
+                return value;
+            }
+            return TypeUtils.cast(value, type);
+        };
+    }
+
+    /**
+     * Is it a type that is read from a single column instead of being assembled from several columns
+     * @param type
+     * @return
+     */
+    static boolean isSingleColumnType(Class<?> type) {
+        if (type.isPrimitive() || type.isEnum() || type == byte[].class || TypeHandlerManager.getUserHandler(type) != null) {
+            return true;
+        }
+        return type == String.class
+                || Number.class.isAssignableFrom(type)
+                || type == Boolean.class
+                || Date.class.isAssignableFrom(type)
+                || type == LocalDateTime.class
+                || type == LocalDate.class
+                || type == LocalTime.class;
+    }
+}
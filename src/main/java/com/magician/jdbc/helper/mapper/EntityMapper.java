@@ -0,0 +1,31 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.util.Map;
+
+/**
+ * Mapping code of one class, generated at build time for classes annotated with JDBCEntity.
+ * When one exists it is used instead of the runtime bean metadata, in both directions
+ * @param <T>
+ */
+public interface EntityMapper<T> {
+
+    /**
+     * The class this mapper handles
+     * @return
+     */
+    Class<T> getType();
+
+    /**
+     * Create the row mapper for a result set with these column labels
+     * @param labels
+     * @return
+     */
+    RowMapper<T> getRowMapper(String[] labels);
+
+    /**
+     * Read the properties of the object into a Map of property name to value, used to bind it as sql parameters
+     * @param obj
+     * @return
+     */
+    Map<String, Object> toMap(T obj);
+}
@@ -0,0 +1,149 @@
+package com.magician.jdbc.helper.mapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Find the generated EntityMapper of a class.
+ * Generated mappers are registered through META-INF/services, a mapper named after the class with the suffix _JDBCMapper is also found
+ */
+public class EntityMapperManager {
+
+    private static Logger logger = LoggerFactory.getLogger(EntityMapperManager.class);
+
+    /**
+     * Suffix of the generated class name
+     */
+    public static final String SUFFIX = "_JDBCMapper";
+
+    /**
+     * Marks classes that have no generated mapper
+     */
+    private static final EntityMapper<?> NONE = new EntityMapper<Object>() {
+        @Override
+        public Class<Object> getType() {
+            return Object.class;
+        }
+
+        @Override
+        public RowMapper<Object> getRowMapper(String[] labels) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> toMap(Object obj) {
+            return null;
+        }
+    };
+
+    private static Map<Class<?>, EntityMapper<?>> entityMapperMap = new ConcurrentHashMap<>();
+
+    private static volatile boolean loaded;
+
+    /**
+     * Register a mapper, replaces the one found for the same class
+     * @param entityMapper
+     */
+    public static void register(EntityMapper<?> entityMapper) {
+        entityMapperMap.put(entityMapper.getType(), entityMapper);
+    }
+
+    /**
+     * Get the generated mapper of the class
+     * @param cls
+     * @param <T>
+     * @return null if there is none
+     */
+    public static <T> EntityMapper<T> get(Class<T> cls) {
+        if (!loaded) {
+            load();
+        }
+        EntityMapper<?> entityMapper = entityMapperMap.get(cls);
+        if (entityMapper == null) {
+            entityMapper = entityMapperMap.computeIfAbsent(cls, EntityMapperManager::find);
+        }
+        if (entityMapper == NONE) {
+            return null;
+        }
+        // Mappers are kept under the class they map
+        @SuppressWarnings("unchecked")
+        EntityMapper<T> typed = (EntityMapper<T>) entityMapper;
+        return typed;
+    }
+
+    /**
+     * Match column labels to property names, by name first and then ignoring case and underscores
+     * @param properties
+     * @param labels
+     * @return for each label the index of its property, -1 if there is none
+     */
+    public static int[] match(String[] properties, String[] labels) {
+        int[] slots = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            slots[i] = -1;
+            for (int j = 0; j < properties.length; j++) {
+                if (properties[j].equals(labels[i])) {
+                    slots[i] = j;
+                    break;
+                }
+            }
+            if (slots[i] >= 0) {
+                continue;
+            }
+            String label = BeanMeta.looseName(labels[i]);
+            for (int j = 0; j < properties.length; j++) {
+                if (BeanMeta.looseName(properties[j]).equals(label)) {
+                    slots[i] = j;
+                    break;
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        @SuppressWarnings("rawtypes")
+        Iterator<EntityMapper> iterator = ServiceLoader.load(EntityMapper.class, EntityMapperManager.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                EntityMapper<?> entityMapper = iterator.next();
+                entityMapperMap.putIfAbsent(entityMapper.getType(), entityMapper);
+            } catch (ServiceConfigurationError e) {
+                // A listed mapper that no longer exists, the others are still loaded
+                logger.warn("Unable to load a generated entity mapper", e);
+            }
+        }
+        loaded = true;
+    }
+
+    private static EntityMapper<?> find(Class<?> cls) {
+        if (cls.getClassLoader() == null) {
+            return NONE;
+        }
+        try {
+            Class<?> mapperClass = Class.forName(cls.getName() + SUFFIX, true, cls.getClassLoader());
+            if (!EntityMapper.class.isAssignableFrom(mapperClass)) {
+                return NONE;
+            }
+            EntityMapper<?> entityMapper = (EntityMapper<?>) mapperClass.getDeclaredConstructor().newInstance();
+            return entityMapper.getType() == cls ? entityMapper : NONE;
+        } catch (ClassNotFoundException e) {
+            return NONE;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Unable to create the generated mapper of " + cls.getName(), e);
+            return NONE;
+        }
+    }
+}
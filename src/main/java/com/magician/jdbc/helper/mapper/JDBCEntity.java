@@ -0,0 +1,17 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a bean or a record for which an EntityMapper is generated at build time.
+ * Needs the Magician-JDBC-Processor annotation processor, without it the class is mapped at runtime as before
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JDBCEntity {
+}
@@ -0,0 +1,33 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.magician.jdbc.core.util.JSONUtil;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Convert the columns of a row with fastjson2, as all rows were converted before the row mappers.
+ * Used for classes BeanMeta can not create, such as classes built through a creator or an all-arguments constructor
+ * @param <T>
+ */
+public class JSONRowMapper<T> implements RowMapper<T> {
+
+    private Class<T> cls;
+
+    private String[] labels;
+
+    public JSONRowMapper(Class<T> cls, String[] labels) {
+        this.cls = cls;
+        this.labels = labels;
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws Exception {
+        Map<String, Object> row = new HashMap<>((int) (labels.length / 0.75f) + 1);
+        for (int i = 0; i < labels.length; i++) {
+            row.put(labels[i], resultSet.getObject(i + 1));
+        }
+        return JSONUtil.toJavaObject(row, cls);
+    }
+}
@@ -0,0 +1,71 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Put the columns of a row into a Map keyed by column label.
+ * When only a Map is asked for, the row is a read-only RowMap sharing the labels of the result
+ * @param <T>
+ */
+public class MapRowMapper<T> implements RowMapper<T> {
+
+    /**
+     * Constructor of the requested Map type, null means HashMap or RowMap
+     */
+    private MethodHandle constructor;
+
+    private String[] labels;
+
+    /**
+     * Set when the requested type is satisfied by a RowMap
+     */
+    private ColumnIndex columnIndex;
+
+    public MapRowMapper(Class<T> cls, String[] labels) {
+        this.labels = labels;
+        if (cls == Map.class || cls == Object.class) {
+            this.columnIndex = new ColumnIndex(labels);
+        } else if (!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers()) && cls != HashMap.class) {
+            try {
+                this.constructor = MethodHandles.publicLookup()
+                        .findConstructor(cls, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException(cls.getName() + " has no public no-argument constructor", e);
+            }
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws Exception {
+        if (columnIndex != null) {
+            @SuppressWarnings("unchecked")
+            T map = (T) columnIndex.read(resultSet);
+            return map;
+        }
+        Map<String, Object> row;
+        if (constructor == null) {
+            row = new HashMap<>((int) (labels.length / 0.75f) + 1);
+        } else {
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = (Map<String, Object>) (Object) constructor.invokeExact();
+                row = map;
+            } catch (Throwable e) {
+                throw new Exception(e);
+            }
+        }
+        for (int i = 0; i < labels.length; i++) {
+            row.put(labels[i], resultSet.getObject(i + 1));
+        }
+        @SuppressWarnings("unchecked")
+        T map = (T) row;
+        return map;
+    }
+}
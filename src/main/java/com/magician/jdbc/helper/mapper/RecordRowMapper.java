@@ -0,0 +1,73 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pass the columns of a row to the canonical constructor of a record
+ * @param <T>
+ */
+public class RecordRowMapper<T> implements RowMapper<T> {
+
+    private BeanMeta beanMeta;
+
+    private int[] columnIndexes;
+
+    private int[] argIndexes;
+
+    private ColumnReader[] readers;
+
+    /**
+     * Arguments used for components without a column, primitives need their zero value
+     */
+    private Object[] defaultArgs;
+
+    public RecordRowMapper(Class<T> cls, String[] labels) {
+        this.beanMeta = BeanMeta.get(cls);
+
+        List<BeanProperty> properties = beanMeta.getProperties();
+        this.defaultArgs = new Object[properties.size()];
+        for (BeanProperty beanProperty : properties) {
+            if (beanProperty.getType().isPrimitive()) {
+                defaultArgs[beanProperty.getIndex()] = Array.get(Array.newInstance(beanProperty.getType(), 1), 0);
+            }
+        }
+
+        List<BeanProperty> matched = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            BeanProperty beanProperty = beanMeta.findProperty(labels[i]);
+            if (beanProperty == null) {
+                continue;
+            }
+            matched.add(beanProperty);
+            indexes.add(i + 1);
+        }
+
+        this.columnIndexes = new int[matched.size()];
+        this.argIndexes = new int[matched.size()];
+        this.readers = new ColumnReader[matched.size()];
+        for (int i = 0; i < matched.size(); i++) {
+            columnIndexes[i] = indexes.get(i);
+            argIndexes[i] = matched.get(i).getIndex();
+            readers[i] = ColumnReader.of(matched.get(i).getType());
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws Exception {
+        Object[] args = defaultArgs.clone();
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = readers[i].read(resultSet, columnIndexes[i]);
+            if (value == null) {
+                continue;
+            }
+            args[argIndexes[i]] = value;
+        }
+        @SuppressWarnings("unchecked")
+        T row = (T) beanMeta.newRecord(args);
+        return row;
+    }
+}
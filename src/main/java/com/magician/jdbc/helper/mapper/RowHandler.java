@@ -0,0 +1,16 @@
+package com.magician.jdbc.helper.mapper;
+
+/**
+ * Receives the rows of a query one at a time
+ * @param <T>
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * Handle one row
+     * @param row
+     * @throws Exception
+     */
+    void handle(T row) throws Exception;
+}
@@ -0,0 +1,96 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only row keyed by column label.
+ * Only the values are held by the row, the labels and their positions are shared through a ColumnIndex
+ */
+public class RowMap extends AbstractMap<String, Object> {
+
+    private final ColumnIndex columnIndex;
+
+    private final Object[] values;
+
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    public RowMap(ColumnIndex columnIndex, Object[] values) {
+        this.columnIndex = columnIndex;
+        this.values = values;
+    }
+
+    /**
+     * Get a value by column position, starting from 0
+     * @param index
+     * @return
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = columnIndex.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return columnIndex.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return columnIndex.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return columnIndex.size() == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new Iterator<Map.Entry<String, Object>>() {
+
+                private int entry;
+
+                @Override
+                public boolean hasNext() {
+                    return entry < columnIndex.size();
+                }
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    if (entry >= columnIndex.size()) {
+                        throw new NoSuchElementException();
+                    }
+                    int position = columnIndex.getPosition(entry);
+                    String key = columnIndex.getKey(entry);
+                    entry++;
+                    return new AbstractMap.SimpleImmutableEntry<>(key, values[position]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return columnIndex.size();
+        }
+    }
+}
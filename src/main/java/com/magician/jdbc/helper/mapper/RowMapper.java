@@ -0,0 +1,19 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.sql.ResultSet;
+
+/**
+ * Convert the current row of a ResultSet into an object
+ * @param <T>
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the row the ResultSet is currently positioned on
+     * @param resultSet
+     * @return
+     * @throws Exception
+     */
+    T mapRow(ResultSet resultSet) throws Exception;
+}
@@ -0,0 +1,112 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Create row mappers, one per (class, column labels) is built and then reused
+ */
+public class RowMapperFactory {
+
+    private static Map<MapperKey, RowMapper<?>> rowMapperMap = new ConcurrentHashMap<>();
+
+    /**
+     * Get the row mapper for the class and the columns of the result set
+     * @param cls
+     * @param metaData
+     * @param <T>
+     * @return
+     * @throws SQLException
+     */
+    public static <T> RowMapper<T> getRowMapper(Class<T> cls, ResultSetMetaData metaData) throws SQLException {
+        return getRowMapper(cls, getColumnLabels(metaData));
+    }
+
+    /**
+     * Get the row mapper for the class and the column labels
+     * @param cls
+     * @param labels
+     * @param <T>
+     * @return
+     */
+    public static <T> RowMapper<T> getRowMapper(Class<T> cls, String[] labels) {
+        MapperKey mapperKey = new MapperKey(cls, labels);
+        RowMapper<?> rowMapper = rowMapperMap.get(mapperKey);
+        if (rowMapper == null) {
+            rowMapper = rowMapperMap.computeIfAbsent(mapperKey, key -> createRowMapper(cls, labels));
+        }
+        // The key holds the class the mapper was created for
+        @SuppressWarnings("unchecked")
+        RowMapper<T> typed = (RowMapper<T>) rowMapper;
+        return typed;
+    }
+
+    /**
+     * Read the column labels of the result set
+     * @param metaData
+     * @return
+     * @throws SQLException
+     */
+    public static String[] getColumnLabels(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
+    private static <T> RowMapper<T> createRowMapper(Class<T> cls, String[] labels) {
+        if (Map.class.isAssignableFrom(cls) || cls == Object.class) {
+            return new MapRowMapper<>(cls, labels);
+        }
+        if (ColumnReader.isSingleColumnType(cls)) {
+            return new SingleColumnRowMapper<>(cls);
+        }
+        EntityMapper<T> entityMapper = EntityMapperManager.get(cls);
+        if (entityMapper != null) {
+            return entityMapper.getRowMapper(labels);
+        }
+        if (cls.isRecord()) {
+            return new RecordRowMapper<>(cls, labels);
+        }
+        if (!BeanMeta.get(cls).isInstantiable()) {
+            return new JSONRowMapper<>(cls, labels);
+        }
+        return new BeanRowMapper<>(cls, labels);
+    }
+
+    private static final class MapperKey {
+
+        private final Class<?> cls;
+
+        private final String[] labels;
+
+        private final int hash;
+
+        private MapperKey(Class<?> cls, String[] labels) {
+            this.cls = cls;
+            this.labels = labels;
+            this.hash = 31 * cls.hashCode() + Arrays.hashCode(labels);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MapperKey)) {
+                return false;
+            }
+            MapperKey other = (MapperKey) obj;
+            return cls == other.cls && Arrays.equals(labels, other.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.magician.jdbc.helper.mapper;
+
+import java.sql.ResultSet;
+
+/**
+ * Use the first column of a row as the value, for queries such as select count(0)
+ * @param <T>
+ */
+public class SingleColumnRowMapper<T> implements RowMapper<T> {
+
+    private ColumnReader reader;
+
+    public SingleColumnRowMapper(Class<T> cls) {
+        this.reader = ColumnReader.of(cls);
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws Exception {
+        // The reader of a primitive returns its wrapper, so Class.cast can not be used
+        @SuppressWarnings("unchecked")
+        T value = (T) reader.read(resultSet, 1);
+        return value;
+    }
+}
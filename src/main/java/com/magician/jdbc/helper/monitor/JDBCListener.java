@@ -0,0 +1,31 @@
+package com.magician.jdbc.helper.monitor;
+
+/**
+ * Receives timings of database operations, register it with MagicianJDBC.addListener.
+ * Methods are called on the thread that ran the operation and should return quickly
+ */
+public interface JDBCListener {
+
+    /**
+     * A connection has been taken for a JDBCTemplate operation
+     * @param dataSource
+     * @param acquireNanos time spent getting the connection
+     * @param transaction whether it is the connection of a transaction
+     */
+    default void onConnectionAcquired(String dataSource, long acquireNanos, boolean transaction) {
+    }
+
+    /**
+     * A statement has finished, successfully or not
+     * @param statementEvent
+     */
+    default void onStatement(StatementEvent statementEvent) {
+    }
+
+    /**
+     * A transaction has been committed or rolled back
+     * @param transactionEvent
+     */
+    default void onTransaction(TransactionEvent transactionEvent) {
+    }
+}
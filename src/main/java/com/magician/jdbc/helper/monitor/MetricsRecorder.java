@@ -0,0 +1,172 @@
+package com.magician.jdbc.helper.monitor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory recorder of latency histograms per normalized sql, it also logs statements slower than a threshold.
+ * Connection acquire and transaction latencies are kept per data source.
+ * Usage: MagicianJDBC.createJDBC().addListener(new MetricsRecorder(500))
+ */
+public class MetricsRecorder implements JDBCListener {
+
+    private static Logger logger = LoggerFactory.getLogger(MetricsRecorder.class);
+
+    /**
+     * Statements beyond this number of distinct sql are recorded under this key
+     */
+    public static final String OTHER_SQL = "<other>";
+
+    private Map<String, SqlMetrics> sqlMetricsMap = new ConcurrentHashMap<>();
+
+    private Map<String, LatencyHistogram> acquireLatencyMap = new ConcurrentHashMap<>();
+
+    private Map<String, LatencyHistogram> transactionLatencyMap = new ConcurrentHashMap<>();
+
+    /**
+     * Statements taking longer are logged, 0 turns logging off
+     */
+    private volatile long slowThresholdNanos;
+
+    private int maxSqlCount = 1000;
+
+    public MetricsRecorder() {
+        this(0);
+    }
+
+    /**
+     * @param slowThresholdMillis statements taking longer are logged as warnings, 0 turns logging off
+     */
+    public MetricsRecorder(long slowThresholdMillis) {
+        setSlowThresholdMillis(slowThresholdMillis);
+    }
+
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Set the maximum number of distinct sql to keep statistics for, the default is 1000
+     * @param maxSqlCount
+     */
+    public void setMaxSqlCount(int maxSqlCount) {
+        this.maxSqlCount = maxSqlCount;
+    }
+
+    @Override
+    public void onConnectionAcquired(String dataSource, long acquireNanos, boolean transaction) {
+        String key = dataSource == null ? "" : dataSource;
+        acquireLatencyMap.computeIfAbsent(key, name -> new LatencyHistogram()).record(acquireNanos);
+    }
+
+    @Override
+    public void onStatement(StatementEvent statementEvent) {
+        String sql = normalize(statementEvent.getSql());
+        SqlMetrics sqlMetrics = sqlMetricsMap.get(sql);
+        if (sqlMetrics == null) {
+            if (sqlMetricsMap.size() >= maxSqlCount) {
+                sql = OTHER_SQL;
+            }
+            sqlMetrics = sqlMetricsMap.computeIfAbsent(sql, SqlMetrics::new);
+        }
+        sqlMetrics.record(statementEvent);
+
+        if (slowThresholdNanos > 0 && statementEvent.getTotalNanos() >= slowThresholdNanos) {
+            logger.warn("slow sql:{},time:{}ms,execute:{}ms,map:{}ms,rows:{}",
+                    statementEvent.getSql(),
+                    TimeUnit.NANOSECONDS.toMillis(statementEvent.getTotalNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(statementEvent.getExecuteNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(statementEvent.getMapNanos()),
+                    statementEvent.getRows());
+        }
+    }
+
+    @Override
+    public void onTransaction(TransactionEvent transactionEvent) {
+        // A transaction on several data sources counts for each of them, one that used none under ""
+        Set<String> dataSources = transactionEvent.getDataSources();
+        if (dataSources == null || dataSources.isEmpty()) {
+            dataSources = Collections.singleton("");
+        }
+        for (String dataSource : dataSources) {
+            String key = dataSource == null ? "" : dataSource;
+            transactionLatencyMap.computeIfAbsent(key, name -> new LatencyHistogram()).record(transactionEvent.getDurationNanos());
+        }
+    }
+
+    /**
+     * Get the statistics of every normalized sql
+     * @return
+     */
+    public Map<String, SqlMetrics> getSqlMetrics() {
+        return Collections.unmodifiableMap(sqlMetricsMap);
+    }
+
+    /**
+     * Get the connection acquire latency of every data source, it is not part of the statement timings
+     * @return
+     */
+    public Map<String, LatencyHistogram> getAcquireLatency() {
+        return Collections.unmodifiableMap(acquireLatencyMap);
+    }
+
+    /**
+     * Get the transaction latency of every data source, from beginTraction until commit or rollback
+     * @return
+     */
+    public Map<String, LatencyHistogram> getTransactionLatency() {
+        return Collections.unmodifiableMap(transactionLatencyMap);
+    }
+
+    /**
+     * Forget everything recorded so far
+     */
+    public void reset() {
+        sqlMetricsMap.clear();
+        acquireLatencyMap.clear();
+        transactionLatencyMap.clear();
+    }
+
+    /**
+     * Collapse whitespace and lists of question marks, so that in (?,?,?) and in (?,?) count as the same sql
+     * @param sql
+     * @return
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(sql.length());
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = result.length() > 0;
+                continue;
+            }
+            if (c == ',' && result.length() > 0 && result.charAt(result.length() - 1) == '?') {
+                int next = i + 1;
+                while (next < sql.length() && Character.isWhitespace(sql.charAt(next))) {
+                    next++;
+                }
+                if (next < sql.length() && sql.charAt(next) == '?') {
+                    i = next;
+                    space = false;
+                    continue;
+                }
+            }
+            if (space) {
+                result.append(' ');
+                space = false;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.magician.jdbc.helper.monitor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Listener management, events are only built when at least one listener is registered
+ */
+public class MonitorManager {
+
+    private static Logger logger = LoggerFactory.getLogger(MonitorManager.class);
+
+    private static List<JDBCListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled;
+
+    public static void addListener(JDBCListener listener) {
+        listeners.add(listener);
+        enabled = true;
+    }
+
+    public static void removeListener(JDBCListener listener) {
+        listeners.remove(listener);
+        enabled = !listeners.isEmpty();
+    }
+
+    /**
+     * Whether any listener is registered
+     * @return
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void connectionAcquired(String dataSource, long acquireNanos, boolean transaction) {
+        for (JDBCListener listener : listeners) {
+            try {
+                listener.onConnectionAcquired(dataSource, acquireNanos, transaction);
+            } catch (Exception e) {
+                logger.warn("JDBCListener onConnectionAcquired error", e);
+            }
+        }
+    }
+
+    public static void statement(StatementEvent statementEvent) {
+        for (JDBCListener listener : listeners) {
+            try {
+                listener.onStatement(statementEvent);
+            } catch (Exception e) {
+                logger.warn("JDBCListener onStatement error", e);
+            }
+        }
+    }
+
+    public static void transaction(TransactionEvent transactionEvent) {
+        for (JDBCListener listener : listeners) {
+            try {
+                listener.onTransaction(transactionEvent);
+            } catch (Exception e) {
+                logger.warn("JDBCListener onTransaction error", e);
+            }
+        }
+    }
+}
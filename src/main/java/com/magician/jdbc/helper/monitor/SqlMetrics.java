@@ -0,0 +1,69 @@
+package com.magician.jdbc.helper.monitor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one normalized sql
+ */
+public class SqlMetrics {
+
+    private String sql;
+
+    private LongAdder errorCount = new LongAdder();
+
+    private LongAdder rows = new LongAdder();
+
+    private LatencyHistogram executeLatency = new LatencyHistogram();
+
+    private LatencyHistogram mapLatency = new LatencyHistogram();
+
+    private LatencyHistogram totalLatency = new LatencyHistogram();
+
+    public SqlMetrics(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Add a statement
+     * @param statementEvent
+     */
+    public void record(StatementEvent statementEvent) {
+        if (statementEvent.getError() != null) {
+            errorCount.increment();
+        }
+        if (statementEvent.getRows() > 0) {
+            rows.add(statementEvent.getRows());
+        }
+        executeLatency.record(statementEvent.getExecuteNanos());
+        mapLatency.record(statementEvent.getMapNanos());
+        totalLatency.record(statementEvent.getTotalNanos());
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return totalLatency.getCount();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public LatencyHistogram getExecuteLatency() {
+        return executeLatency;
+    }
+
+    public LatencyHistogram getMapLatency() {
+        return mapLatency;
+    }
+
+    public LatencyHistogram getTotalLatency() {
+        return totalLatency;
+    }
+}
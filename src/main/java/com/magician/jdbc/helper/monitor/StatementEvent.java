@@ -0,0 +1,81 @@
+package com.magician.jdbc.helper.monitor;
+
+/**
+ * Timings of one statement.
+ * The time taken to get the connection is not included, it is reported through JDBCListener.onConnectionAcquired
+ */
+public class StatementEvent {
+
+    /**
+     * sql with question marks
+     */
+    private String sql;
+
+    /**
+     * number of bound parameters, or of rows for batches
+     */
+    private int paramCount;
+
+    /**
+     * rows returned by a query or affected by an update, -1 if unknown
+     */
+    private long rows;
+
+    /**
+     * time from sending the statement until the driver returned
+     */
+    private long executeNanos;
+
+    /**
+     * time spent reading and mapping rows
+     */
+    private long mapNanos;
+
+    /**
+     * time spent in the operation, including binding parameters but not getting the connection
+     */
+    private long totalNanos;
+
+    /**
+     * exception thrown by the statement, null on success
+     */
+    private Throwable error;
+
+    public StatementEvent(String sql, int paramCount, long rows, long executeNanos, long mapNanos, long totalNanos, Throwable error) {
+        this.sql = sql;
+        this.paramCount = paramCount;
+        this.rows = rows;
+        this.executeNanos = executeNanos;
+        this.mapNanos = mapNanos;
+        this.totalNanos = totalNanos;
+        this.error = error;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParamCount() {
+        return paramCount;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getMapNanos() {
+        return mapNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,52 @@
+package com.magician.jdbc.helper.monitor;
+
+import java.util.Set;
+
+/**
+ * Duration and outcome of one transaction
+ */
+public class TransactionEvent {
+
+    /**
+     * data sources the transaction took connections from
+     */
+    private Set<String> dataSources;
+
+    /**
+     * time from beginTraction until the connections were closed
+     */
+    private long durationNanos;
+
+    /**
+     * true for commit, false for rollback
+     */
+    private boolean commit;
+
+    /**
+     * false if committing or rolling back failed on any connection
+     */
+    private boolean success;
+
+    public TransactionEvent(Set<String> dataSources, long durationNanos, boolean commit, boolean success) {
+        this.dataSources = dataSources;
+        this.durationNanos = durationNanos;
+        this.commit = commit;
+        this.success = success;
+    }
+
+    public Set<String> getDataSources() {
+        return dataSources;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isCommit() {
+        return commit;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+}
@@ -0,0 +1,120 @@
+package com.magician.jdbc.helper.pool;
+
+/**
+ * Configuration of the built-in connection pool, times are in milliseconds
+ */
+public class PoolConfig {
+
+    /**
+     * Maximum number of connections, idle and in use
+     */
+    private int maxPoolSize = 10;
+
+    /**
+     * Number of idle connections kept open
+     */
+    private int minIdle = 2;
+
+    /**
+     * How long getConnection waits for a connection before failing
+     */
+    private long connectionTimeout = 30000;
+
+    /**
+     * Idle connections above minIdle are closed after this time
+     */
+    private long idleTimeout = 600000;
+
+    /**
+     * Connections are closed after this time, 0 means no limit.
+     * Keep it below the connection timeout of the database
+     */
+    private long maxLifetime = 1800000;
+
+    /**
+     * How often idle connections are validated and the pool filled up to minIdle
+     */
+    private long validationInterval = 30000;
+
+    /**
+     * Timeout of one validation, in seconds
+     */
+    private int validationTimeout = 5;
+
+    /**
+     * Query used to validate connections, null uses Connection.isValid
+     */
+    private String validationQuery;
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public PoolConfig setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public PoolConfig setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+        return this;
+    }
+
+    public long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public PoolConfig setConnectionTimeout(long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        return this;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public PoolConfig setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public PoolConfig setMaxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+        return this;
+    }
+
+    public long getValidationInterval() {
+        return validationInterval;
+    }
+
+    public PoolConfig setValidationInterval(long validationInterval) {
+        this.validationInterval = validationInterval;
+        return this;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public PoolConfig setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+        return this;
+    }
+
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public PoolConfig setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+        return this;
+    }
+}
@@ -0,0 +1,85 @@
+package com.magician.jdbc.helper.pool;
+
+import com.magician.jdbc.helper.manager.StatementCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A physical connection of the pool with its state.
+ * The settings the connection currently has are remembered so that setting the same value again costs nothing
+ */
+class PoolEntry {
+
+    static final int NOT_IN_USE = 0;
+
+    static final int IN_USE = 1;
+
+    /**
+     * Taken by the housekeeper for validation or eviction
+     */
+    static final int RESERVED = -1;
+
+    static final int REMOVED = -2;
+
+    final Connection connection;
+
+    final AtomicInteger state = new AtomicInteger();
+
+    final long createTime = System.currentTimeMillis();
+
+    volatile long lastAccessTime = createTime;
+
+    boolean autoCommit;
+
+    int transactionIsolation;
+
+    boolean readOnly;
+
+    /**
+     * Settings of a new connection, restored when the connection is returned
+     */
+    final int defaultTransactionIsolation;
+
+    final boolean defaultReadOnly;
+
+    /**
+     * Statements kept prepared on the physical connection, only used by the thread that has borrowed it
+     */
+    StatementCache statementCache;
+
+    PoolEntry(Connection connection, int state) throws SQLException {
+        this.connection = connection;
+        if (!connection.getAutoCommit()) {
+            connection.setAutoCommit(true);
+        }
+        this.autoCommit = true;
+        this.transactionIsolation = connection.getTransactionIsolation();
+        this.readOnly = connection.isReadOnly();
+        this.defaultTransactionIsolation = transactionIsolation;
+        this.defaultReadOnly = readOnly;
+        this.state.set(state);
+    }
+
+    boolean reserve(int expect, int update) {
+        return state.compareAndSet(expect, update);
+    }
+
+    boolean isExpired(long now, long maxLifetime) {
+        return maxLifetime > 0 && now - createTime >= maxLifetime;
+    }
+
+    void closeQuietly() {
+        state.set(REMOVED);
+        if (statementCache != null) {
+            statementCache.close();
+            statementCache = null;
+        }
+        try {
+            connection.close();
+        } catch (Exception e) {
+            // The connection is discarded anyway
+        }
+    }
+}
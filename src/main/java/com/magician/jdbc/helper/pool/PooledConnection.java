@@ -0,0 +1,421 @@
+package com.magician.jdbc.helper.pool;
+
+import com.magician.jdbc.helper.manager.StatementCache;
+import com.magician.jdbc.helper.manager.StatementCacheStats;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * The connection handed out by the pool, close gives the physical connection back to the pool.
+ * Settings that already have the requested value are not sent to the database again
+ */
+public class PooledConnection implements Connection {
+
+    private PooledDataSource pool;
+
+    private PoolEntry entry;
+
+    private Connection delegate;
+
+    private boolean closed;
+
+    /**
+     * Statements were created since the last commit or rollback while auto-commit was off
+     */
+    private boolean dirty;
+
+    /**
+     * Statements created through this connection, those still open when it is closed are closed with it
+     */
+    private List<Statement> statements = new ArrayList<>();
+
+    /**
+     * Size at which closed statements are dropped from the list
+     */
+    private int purgeSize = 16;
+
+    PooledConnection(PooledDataSource pool, PoolEntry entry) {
+        this.pool = pool;
+        this.entry = entry;
+        this.delegate = entry.connection;
+    }
+
+    private Connection open() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+        return delegate;
+    }
+
+    private Connection statement() throws SQLException {
+        Connection connection = open();
+        if (!entry.autoCommit) {
+            dirty = true;
+        }
+        return connection;
+    }
+
+    private <T extends Statement> T track(T statement) {
+        if (statements.size() >= purgeSize) {
+            statements.removeIf(PooledConnection::isClosed);
+            purgeSize = Math.max(16, statements.size() * 2);
+        }
+        statements.add(statement);
+        return statement;
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Close the statements the borrower left open, they must not run on the connection after it is given to someone else
+     */
+    private void closeStatements() {
+        for (Statement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // The connection is reset or evicted by the pool, nothing more to do here
+            }
+        }
+        statements.clear();
+    }
+
+    /**
+     * Give the physical connection a statement cache if it has none, it stays with the physical connection across borrows
+     * @param maxSize
+     * @param stats
+     * @throws SQLException
+     */
+    public void attachStatementCache(int maxSize, StatementCacheStats stats) throws SQLException {
+        open();
+        if (entry.statementCache == null) {
+            entry.statementCache = new StatementCache(delegate, maxSize, stats);
+        } else if (entry.statementCache.getMaxSize() != maxSize) {
+            entry.statementCache.setMaxSize(maxSize);
+        }
+    }
+
+    /**
+     * Get the statement cache of the physical connection
+     * @return null if it has none
+     * @throws SQLException
+     */
+    public StatementCache getStatementCache() throws SQLException {
+        if (entry.statementCache == null) {
+            return null;
+        }
+        // Cached statements run on the physical connection, they count as work of the open transaction
+        statement();
+        return entry.statementCache;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeStatements();
+        pool.recycle(entry, dirty);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        if (open() != null && entry.autoCommit != autoCommit) {
+            delegate.setAutoCommit(autoCommit);
+            entry.autoCommit = autoCommit;
+            if (autoCommit) {
+                // Switching auto-commit on commits the open transaction
+                dirty = false;
+            }
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        open();
+        return entry.autoCommit;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        if (open() != null && entry.transactionIsolation != level) {
+            delegate.setTransactionIsolation(level);
+            entry.transactionIsolation = level;
+        }
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        open();
+        return entry.transactionIsolation;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if (open() != null && entry.readOnly != readOnly) {
+            delegate.setReadOnly(readOnly);
+            entry.readOnly = readOnly;
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        open();
+        return entry.readOnly;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        open().commit();
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        open().rollback();
+        dirty = false;
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        open().rollback(savepoint);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(statement().createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(statement().createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(statement().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return track(statement().prepareStatement(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(statement().prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(statement().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(statement().prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(statement().prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(statement().prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(statement().prepareCall(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(statement().prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(statement().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return open().nativeSQL(sql);
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return open().getMetaData();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        open().setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return open().getCatalog();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return open().getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        open().clearWarnings();
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return open().getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        open().setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        open().setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return open().getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return open().setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return open().setSavepoint(name);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        open().releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return open().createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return open().createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return open().createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return open().createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return !closed && delegate.isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        delegate.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        delegate.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return open().getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return open().getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return open().createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return open().createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        open().setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return open().getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        // The physical connection is gone, it must not go back into the pool
+        closed = true;
+        pool.abort(entry);
+        delegate.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        open().setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return open().getNetworkTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return open().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || open().isWrapperFor(iface);
+    }
+}
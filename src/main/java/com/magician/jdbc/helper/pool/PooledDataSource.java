@@ -0,0 +1,415 @@
+package com.magician.jdbc.helper.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lightweight connection pool around a DataSource of a driver.
+ * Borrowing and returning take no lock: a thread first tries the connections it returned itself,
+ * then claims an idle connection of the pool with a compare-and-set, then opens a new one while the pool is below its maximum,
+ * and finally waits for a connection handed over by a returning thread.
+ * A background thread validates idle connections, closes those past their idle timeout or max lifetime, and keeps minIdle connections open
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(PooledDataSource.class);
+
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    /**
+     * Maximum number of connections remembered per thread
+     */
+    private static final int LOCAL_SIZE = 16;
+
+    /**
+     * How many times a returning thread retries the hand-off before leaving the connection idle
+     */
+    private static final int HANDOFF_SPINS = 64;
+
+    /**
+     * Longest single wait on the hand-off queue, a waiter scans the pool again after it
+     */
+    private static final long HANDOFF_SLICE = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final DataSource dataSource;
+
+    private final PoolConfig poolConfig;
+
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of connections, including those being opened
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    /**
+     * Number of threads waiting for a hand-off, opening a connection does not count
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+
+    /**
+     * Connections last returned by the current thread, most likely still idle when the thread asks again
+     */
+    private final ThreadLocal<List<PoolEntry>> localEntries = ThreadLocal.withInitial(() -> new ArrayList<>(LOCAL_SIZE));
+
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    public PooledDataSource(DataSource dataSource) {
+        this(dataSource, new PoolConfig());
+    }
+
+    public PooledDataSource(DataSource dataSource, PoolConfig poolConfig) {
+        this.dataSource = dataSource;
+        this.poolConfig = poolConfig;
+
+        String threadName = "magician-jdbc-pool-" + poolNumber.incrementAndGet();
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, Math.max(poolConfig.getValidationInterval(), 1000), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The pool is closed");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(poolConfig.getConnectionTimeout());
+        return new PooledConnection(this, borrow(deadline));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The pool only gives out connections of its own user");
+    }
+
+    private PoolEntry borrow(long deadline) throws SQLException {
+        for (;;) {
+            List<PoolEntry> local = localEntries.get();
+            for (int i = local.size() - 1; i >= 0; i--) {
+                PoolEntry entry = local.remove(i);
+                if (entry.reserve(PoolEntry.NOT_IN_USE, PoolEntry.IN_USE) && usable(entry)) {
+                    return entry;
+                }
+            }
+
+            PoolEntry idle = claimIdle();
+            if (idle != null) {
+                return idle;
+            }
+
+            PoolEntry created = create(PoolEntry.IN_USE);
+            if (created != null) {
+                return created;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLTransientConnectionException("No connection available within " + poolConfig.getConnectionTimeout()
+                        + "ms, total: " + total.get() + ", waiting: " + waiters.get());
+            }
+
+            waiters.incrementAndGet();
+            try {
+                // Scan again once counted, a connection returned before this point was left idle rather than handed over
+                idle = claimIdle();
+                if (idle != null) {
+                    return idle;
+                }
+                PoolEntry entry = handoffQueue.poll(Math.min(remaining, HANDOFF_SLICE), TimeUnit.NANOSECONDS);
+                if (entry != null && entry.reserve(PoolEntry.NOT_IN_USE, PoolEntry.IN_USE) && usable(entry)) {
+                    return entry;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+    }
+
+    private PoolEntry claimIdle() {
+        for (PoolEntry entry : entries) {
+            if (entry.reserve(PoolEntry.NOT_IN_USE, PoolEntry.IN_USE) && usable(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check a connection that was just claimed, it is removed if it has passed its max lifetime
+     * @param entry
+     * @return
+     */
+    private boolean usable(PoolEntry entry) {
+        if (entry.isExpired(System.currentTimeMillis(), poolConfig.getMaxLifetime())) {
+            remove(entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Open a connection if the pool is below its maximum
+     * @param state state of the new connection
+     * @return null if the pool is full
+     * @throws SQLException
+     */
+    private PoolEntry create(int state) throws SQLException {
+        for (;;) {
+            int count = total.get();
+            if (count >= poolConfig.getMaxPoolSize()) {
+                return null;
+            }
+            if (total.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            PoolEntry entry = new PoolEntry(connection, state);
+            entries.add(entry);
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (Exception closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Take back a connection closed by the application, its settings are restored before it is given out again
+     * @param entry
+     * @param dirty statements ran since the last commit or rollback
+     */
+    void recycle(PoolEntry entry, boolean dirty) {
+        try {
+            Connection connection = entry.connection;
+            if (!entry.autoCommit) {
+                if (dirty) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+                entry.autoCommit = true;
+            }
+            if (entry.transactionIsolation != entry.defaultTransactionIsolation) {
+                connection.setTransactionIsolation(entry.defaultTransactionIsolation);
+                entry.transactionIsolation = entry.defaultTransactionIsolation;
+            }
+            if (entry.readOnly != entry.defaultReadOnly) {
+                connection.setReadOnly(entry.defaultReadOnly);
+                entry.readOnly = entry.defaultReadOnly;
+            }
+        } catch (SQLException e) {
+            logger.warn("Error resetting a pooled connection, it is closed", e);
+            remove(entry);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (closed || entry.isExpired(now, poolConfig.getMaxLifetime())) {
+            remove(entry);
+            return;
+        }
+        entry.lastAccessTime = now;
+        release(entry);
+
+        List<PoolEntry> local = localEntries.get();
+        if (local.size() < LOCAL_SIZE) {
+            local.add(entry);
+        }
+    }
+
+    /**
+     * Mark the connection idle and hand it to a waiting thread if there is one.
+     * If no waiter takes it after a few tries it stays idle, waiters scan the pool before and between their waits
+     * @param entry
+     */
+    private void release(PoolEntry entry) {
+        entry.state.set(PoolEntry.NOT_IN_USE);
+        for (int i = 0; i < HANDOFF_SPINS && waiters.get() > 0; i++) {
+            if (entry.state.get() != PoolEntry.NOT_IN_USE || handoffQueue.offer(entry)) {
+                return;
+            }
+            // A waiter is between its scan and the hand-off queue
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Forget a connection that was aborted by the application
+     * @param entry
+     */
+    void abort(PoolEntry entry) {
+        entry.state.set(PoolEntry.REMOVED);
+        if (entries.remove(entry)) {
+            total.decrementAndGet();
+        }
+    }
+
+    private void remove(PoolEntry entry) {
+        entry.closeQuietly();
+        if (entries.remove(entry)) {
+            total.decrementAndGet();
+        }
+    }
+
+    /**
+     * Validate and evict idle connections, then open connections up to minIdle
+     */
+    private void houseKeep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (PoolEntry entry : entries) {
+                if (!entry.reserve(PoolEntry.NOT_IN_USE, PoolEntry.RESERVED)) {
+                    continue;
+                }
+                boolean idleTooLong = poolConfig.getIdleTimeout() > 0
+                        && now - entry.lastAccessTime > poolConfig.getIdleTimeout()
+                        && total.get() > poolConfig.getMinIdle();
+                if (closed || idleTooLong || entry.isExpired(now, poolConfig.getMaxLifetime()) || !validate(entry)) {
+                    remove(entry);
+                } else {
+                    release(entry);
+                }
+            }
+
+            while (!closed && total.get() < poolConfig.getMinIdle()) {
+                PoolEntry entry = create(PoolEntry.RESERVED);
+                if (entry == null) {
+                    break;
+                }
+                release(entry);
+            }
+        } catch (Exception e) {
+            logger.warn("Error maintaining the connection pool", e);
+        }
+    }
+
+    private boolean validate(PoolEntry entry) {
+        try {
+            if (poolConfig.getValidationQuery() == null) {
+                return entry.connection.isValid(poolConfig.getValidationTimeout());
+            }
+            try (Statement statement = entry.connection.createStatement()) {
+                statement.setQueryTimeout(poolConfig.getValidationTimeout());
+                statement.execute(poolConfig.getValidationQuery());
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("Pooled connection failed validation, it is closed", e);
+            return false;
+        }
+    }
+
+    /**
+     * Close the idle connections and stop the background thread, connections in use are closed when they are returned
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        for (PoolEntry entry : entries) {
+            if (entry.reserve(PoolEntry.NOT_IN_USE, PoolEntry.REMOVED)) {
+                remove(entry);
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public PoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    public int getIdleConnections() {
+        int count = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.state.get() == PoolEntry.NOT_IN_USE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getActiveConnections() {
+        int count = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.state.get() == PoolEntry.IN_USE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getWaitingThreads() {
+        return waiters.get();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
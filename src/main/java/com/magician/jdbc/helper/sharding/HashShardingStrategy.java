@@ -0,0 +1,38 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shard number is the hash of the value modulo the number of shards.
+ * The hash is taken from the text of the value, so 1, 1L and "1" go to the same shard and the result does not depend on the JVM
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+
+    private List<ShardTarget> shards;
+
+    public HashShardingStrategy(ShardTarget... shards) {
+        this(Arrays.asList(shards));
+    }
+
+    public HashShardingStrategy(List<ShardTarget> shards) {
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Override
+    public ShardTarget shard(Object value) throws Exception {
+        if (value == null) {
+            throw new Exception("Sharding value is null");
+        }
+        int hash = value.toString().hashCode();
+        // Spread the high bits, String.hashCode of similar keys differs mostly in the low bits
+        hash ^= (hash >>> 16);
+        return shards.get(Math.floorMod(hash, shards.size()));
+    }
+
+    @Override
+    public List<ShardTarget> allShards() {
+        return shards;
+    }
+}
@@ -0,0 +1,43 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shard number is the numeric value modulo the number of shards
+ */
+public class ModShardingStrategy implements ShardingStrategy {
+
+    private List<ShardTarget> shards;
+
+    public ModShardingStrategy(ShardTarget... shards) {
+        this(Arrays.asList(shards));
+    }
+
+    public ModShardingStrategy(List<ShardTarget> shards) {
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Override
+    public ShardTarget shard(Object value) throws Exception {
+        long number;
+        if (value instanceof Number) {
+            number = ((Number) value).longValue();
+        } else if (value != null) {
+            try {
+                number = Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new Exception("Sharding value [" + value + "] is not a number");
+            }
+        } else {
+            throw new Exception("Sharding value is null");
+        }
+        return shards.get((int) Math.floorMod(number, (long) shards.size()));
+    }
+
+    @Override
+    public List<ShardTarget> allShards() {
+        return shards;
+    }
+}
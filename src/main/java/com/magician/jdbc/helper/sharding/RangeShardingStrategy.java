@@ -0,0 +1,61 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Each shard takes the values from its lower bound up to the lower bound of the next shard.
+ * Numbers are compared as long, other values must be Comparable and of the same type as the bounds
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+
+    private TreeMap<Comparable<Object>, ShardTarget> ranges = new TreeMap<>();
+
+    private List<ShardTarget> shards = new ArrayList<>();
+
+    /**
+     * Add a shard for the values from lowerBound, inclusive
+     * @param lowerBound
+     * @param shardTarget
+     * @return
+     */
+    public RangeShardingStrategy addRange(Comparable<?> lowerBound, ShardTarget shardTarget) {
+        ranges.put(normalize(lowerBound), shardTarget);
+        if (!shards.contains(shardTarget)) {
+            shards.add(shardTarget);
+        }
+        return this;
+    }
+
+    @Override
+    public ShardTarget shard(Object value) throws Exception {
+        if (!(value instanceof Comparable)) {
+            throw new Exception("Sharding value [" + value + "] can not be compared");
+        }
+        Map.Entry<Comparable<Object>, ShardTarget> entry = ranges.floorEntry(normalize((Comparable<?>) value));
+        if (entry == null) {
+            throw new Exception("Sharding value [" + value + "] is below the first range");
+        }
+        return entry.getValue();
+    }
+
+    @Override
+    public List<ShardTarget> allShards() {
+        return shards;
+    }
+
+    /**
+     * Numbers become Long, other values are compared with the bounds as they are
+     * @param value
+     * @return
+     */
+    private static Comparable<Object> normalize(Comparable<?> value) {
+        Comparable<?> normalized = value instanceof Number ? Long.valueOf(((Number) value).longValue()) : value;
+        // Values of another type than the bounds fail in compareTo, as TreeMap expects
+        @SuppressWarnings("unchecked")
+        Comparable<Object> comparable = (Comparable<Object>) normalized;
+        return comparable;
+    }
+}
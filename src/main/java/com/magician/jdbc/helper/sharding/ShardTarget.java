@@ -0,0 +1,67 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.Objects;
+
+/**
+ * Where the rows of a shard are: a data source and optionally a suffix of the physical table
+ */
+public class ShardTarget {
+
+    private String dataSource;
+
+    /**
+     * Appended to the logical table name, null when the physical table has the logical name
+     */
+    private String tableSuffix;
+
+    public ShardTarget(String dataSource) {
+        this(dataSource, null);
+    }
+
+    public ShardTarget(String dataSource, String tableSuffix) {
+        this.dataSource = dataSource;
+        this.tableSuffix = tableSuffix;
+    }
+
+    public String getDataSource() {
+        return dataSource;
+    }
+
+    public String getTableSuffix() {
+        return tableSuffix;
+    }
+
+    /**
+     * Get the physical table of the logical table
+     * @param logicalTable
+     * @return
+     */
+    public String getTableName(String logicalTable) {
+        if (tableSuffix == null) {
+            return logicalTable;
+        }
+        return logicalTable + tableSuffix;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ShardTarget)) {
+            return false;
+        }
+        ShardTarget other = (ShardTarget) obj;
+        return Objects.equals(dataSource, other.dataSource) && Objects.equals(tableSuffix, other.tableSuffix);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(dataSource) + Objects.hashCode(tableSuffix);
+    }
+
+    @Override
+    public String toString() {
+        return tableSuffix == null ? dataSource : dataSource + ":" + tableSuffix;
+    }
+}
@@ -0,0 +1,34 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sharding rules, keyed by logical table
+ */
+public class ShardingManager {
+
+    private static Map<String, ShardingRule> ruleMap = new ConcurrentHashMap<>();
+
+    /**
+     * Add the rule of a logical table, it replaces an earlier rule of the table
+     * @param shardingRule
+     */
+    public static void addRule(ShardingRule shardingRule) {
+        ruleMap.put(shardingRule.getLogicalTable().toLowerCase(Locale.ROOT), shardingRule);
+    }
+
+    /**
+     * Get the rule of a logical table
+     * @param logicalTable
+     * @return null if the table is not sharded
+     */
+    public static ShardingRule getRule(String logicalTable) {
+        return ruleMap.get(logicalTable.toLowerCase(Locale.ROOT));
+    }
+
+    public static void removeRule(String logicalTable) {
+        ruleMap.remove(logicalTable.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,101 @@
+package com.magician.jdbc.helper.sharding;
+
+import com.magician.jdbc.helper.templete.model.Condition;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How a logical table is split: the sharding column and the strategy that maps its values to shards
+ */
+public class ShardingRule {
+
+    /**
+     * column = ? or column in (?, ?), optionally after and, the column optionally quoted or qualified
+     */
+    private static final Pattern CONDITION_PATTERN = Pattern.compile(
+            "^\\s*(?:and\\s+)?[`\"]?(?:\\w+[`\"]?\\.[`\"]?)?(\\w+)[`\"]?\\s*(?:=\\s*\\?|in\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern OR_PATTERN = Pattern.compile("(^|\\W)or(\\W|$)", Pattern.CASE_INSENSITIVE);
+
+    private String logicalTable;
+
+    private String shardingColumn;
+
+    private ShardingStrategy shardingStrategy;
+
+    public ShardingRule(String logicalTable, String shardingColumn, ShardingStrategy shardingStrategy) {
+        this.logicalTable = logicalTable;
+        this.shardingColumn = shardingColumn;
+        this.shardingStrategy = shardingStrategy;
+    }
+
+    public String getLogicalTable() {
+        return logicalTable;
+    }
+
+    public String getShardingColumn() {
+        return shardingColumn;
+    }
+
+    public ShardingStrategy getShardingStrategy() {
+        return shardingStrategy;
+    }
+
+    /**
+     * Get the shards the conditions can match
+     * @param conditions
+     * @return all shards when the conditions have no equality or in condition on the sharding column, or contain an or
+     * @throws Exception
+     */
+    public Set<ShardTarget> route(List<Condition> conditions) throws Exception {
+        List<Object> values = null;
+        if (conditions != null) {
+            for (Condition condition : conditions) {
+                if (condition.getVal() == null || condition.isNotWhere()) {
+                    continue;
+                }
+                if (OR_PATTERN.matcher(condition.getKey()).find()) {
+                    // The rows of an or can be on any shard
+                    return new LinkedHashSet<>(shardingStrategy.allShards());
+                }
+                Matcher matcher = CONDITION_PATTERN.matcher(condition.getKey());
+                if (values == null && matcher.matches() && matcher.group(1).equalsIgnoreCase(shardingColumn)) {
+                    values = Arrays.asList(condition.getVal());
+                }
+            }
+        }
+        if (values == null || values.isEmpty()) {
+            return new LinkedHashSet<>(shardingStrategy.allShards());
+        }
+        Set<ShardTarget> shardTargets = new LinkedHashSet<>();
+        for (Object value : values) {
+            shardTargets.add(shardingStrategy.shard(value));
+        }
+        return shardTargets;
+    }
+
+    /**
+     * Get the shard of a row
+     * @param data row as a Map of column to value
+     * @return
+     * @throws Exception if the row has no value for the sharding column
+     */
+    public ShardTarget route(Map<String, Object> data) throws Exception {
+        Object value = data.get(shardingColumn);
+        if (value == null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(shardingColumn)) {
+                    value = entry.getValue();
+                    break;
+                }
+            }
+        }
+        if (value == null) {
+            throw new Exception("The sharding column [" + shardingColumn + "] of table [" + logicalTable + "] has no value");
+        }
+        return shardingStrategy.shard(value);
+    }
+}
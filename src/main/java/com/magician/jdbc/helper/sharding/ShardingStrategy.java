@@ -0,0 +1,23 @@
+package com.magician.jdbc.helper.sharding;
+
+import java.util.List;
+
+/**
+ * Maps the value of a sharding column to a shard
+ */
+public interface ShardingStrategy {
+
+    /**
+     * Get the shard of the value
+     * @param value
+     * @return
+     * @throws Exception if the value belongs to no shard
+     */
+    ShardTarget shard(Object value) throws Exception;
+
+    /**
+     * Get all shards, statements without a value of the sharding column run on all of them
+     * @return
+     */
+    List<ShardTarget> allShards();
+}
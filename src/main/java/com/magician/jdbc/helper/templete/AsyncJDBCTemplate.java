@@ -0,0 +1,189 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.helper.templete.model.KeysetPageModel;
+import com.magician.jdbc.helper.templete.model.KeysetParamModel;
+import com.magician.jdbc.helper.templete.model.PageModel;
+import com.magician.jdbc.helper.templete.model.PageParamModel;
+import com.magician.jdbc.helper.templete.model.PreparedQuery;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous database operations, each call runs on the executor of ExecutorUtil and returns a CompletableFuture.
+ * Calls take their own connection and never take part in a transaction of the calling thread.
+ * The number of calls running at the same time is capped per data source, calls over the cap wait in a queue without holding a thread
+ */
+public class AsyncJDBCTemplate {
+
+    /**
+     * Default maximum number of concurrent calls per data source
+     */
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private static Map<String, ConcurrencyLimiter> limiterMap = new ConcurrentHashMap<>();
+
+    private JDBCTemplate jdbcTemplate;
+
+    private ConcurrencyLimiter limiter;
+
+    AsyncJDBCTemplate(JDBCTemplate jdbcTemplate, String dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.limiter = getLimiter(dataSource);
+    }
+
+    /**
+     * Set the maximum number of asynchronous calls running at the same time on a data source, the default is 8.
+     * Keep it at or below the size of the connection pool
+     * @param dataSource
+     * @param maxConcurrency
+     */
+    public static void setMaxConcurrency(String dataSource, int maxConcurrency) {
+        // Changed in place, templates created before keep sharing the limiter
+        getLimiter(dataSource).setMaxConcurrency(maxConcurrency);
+    }
+
+    static ConcurrencyLimiter getLimiter(String dataSource) {
+        String key = dataSource == null ? "" : dataSource;
+        return limiterMap.computeIfAbsent(key, name -> new ConcurrencyLimiter(DEFAULT_MAX_CONCURRENCY));
+    }
+
+    /* -------------------------------------- SQL-free operation of a single table ------------------------------------------ */
+
+    /**
+     * Asynchronous JDBCTemplate.select
+     */
+    public <T> CompletableFuture<List<T>> select(String tableName, ConditionBuilder conditionBuilder, Class<T> cls) {
+        return submit(() -> jdbcTemplate.select(tableName, conditionBuilder, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.select of the given columns
+     */
+    public <T> CompletableFuture<List<T>> select(String tableName, String[] columns, ConditionBuilder conditionBuilder, Class<T> cls) {
+        return submit(() -> jdbcTemplate.select(tableName, columns, conditionBuilder, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.select with a PreparedQuery
+     */
+    public <T> CompletableFuture<List<T>> select(PreparedQuery preparedQuery, Class<T> cls, Object... params) {
+        return submit(() -> jdbcTemplate.select(preparedQuery, cls, params));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.exec with a PreparedQuery
+     */
+    public CompletableFuture<Integer> exec(PreparedQuery preparedQuery, Object... params) {
+        return submit(() -> jdbcTemplate.exec(preparedQuery, params));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.update
+     */
+    public CompletableFuture<Integer> update(String tableName, Object data, ConditionBuilder conditionBuilder) {
+        return submit(() -> jdbcTemplate.update(tableName, data, conditionBuilder));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.delete
+     */
+    public CompletableFuture<Integer> delete(String tableName, ConditionBuilder conditionBuilder) {
+        return submit(() -> jdbcTemplate.delete(tableName, conditionBuilder));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.insert
+     */
+    public CompletableFuture<Integer> insert(String tableName, Object data) {
+        return submit(() -> jdbcTemplate.insert(tableName, data));
+    }
+
+    /* -------------------------------------- Customize sql to do complex operations ------------------------------------------ */
+
+    /**
+     * Asynchronous JDBCTemplate.selectList
+     */
+    public <T> CompletableFuture<List<T>> selectList(String sql, Object param, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectList(sql, param, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.selectList
+     */
+    public <T> CompletableFuture<List<T>> selectList(String sql, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectList(sql, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.selectOne
+     */
+    public <T> CompletableFuture<T> selectOne(String sql, Object param, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectOne(sql, param, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.selectOne
+     */
+    public <T> CompletableFuture<T> selectOne(String sql, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectOne(sql, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.exec
+     */
+    public CompletableFuture<Integer> exec(String sql, Object param) {
+        return submit(() -> jdbcTemplate.exec(sql, param));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.exec
+     */
+    public CompletableFuture<Integer> exec(String sql) {
+        return submit(() -> jdbcTemplate.exec(sql));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.execBatch
+     */
+    public CompletableFuture<int[]> execBatch(String sql, List<?> paramList) {
+        return submit(() -> jdbcTemplate.execBatch(sql, paramList));
+    }
+
+    /* -------------------------------------- Paging query ------------------------------------------ */
+
+    /**
+     * Asynchronous JDBCTemplate.selectPage
+     */
+    public <T> CompletableFuture<PageModel<T>> selectPage(String sql, PageParamModel pageParamModel, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectPage(sql, pageParamModel, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.selectPageCustomCountSql
+     */
+    public <T> CompletableFuture<PageModel<T>> selectPageCustomCountSql(String sql, String countSql, PageParamModel pageParamModel, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectPageCustomCountSql(sql, countSql, pageParamModel, cls));
+    }
+
+    /**
+     * Asynchronous JDBCTemplate.selectKeyset
+     */
+    public <T> CompletableFuture<KeysetPageModel<T>> selectKeyset(String sql, KeysetParamModel keysetParamModel, Class<T> cls) {
+        return submit(() -> jdbcTemplate.selectKeyset(sql, keysetParamModel, cls));
+    }
+
+    /**
+     * Run the call on the executor once the data source is below its cap
+     * @param callable
+     * @param <R>
+     * @return
+     */
+    private <R> CompletableFuture<R> submit(Callable<R> callable) {
+        return limiter.submit(callable);
+    }
+}
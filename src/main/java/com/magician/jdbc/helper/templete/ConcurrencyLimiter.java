@@ -0,0 +1,143 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.core.util.ExecutorUtil;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of asynchronous calls of one data source running at the same time.
+ * Calls over the cap wait in a queue and are handed to the executor when a running call finishes,
+ * so no executor thread is held while waiting
+ */
+class ConcurrencyLimiter {
+
+    private volatile int maxConcurrency;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+
+    ConcurrencyLimiter(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Change the cap, waiting calls are started at once if it was raised
+     * @param maxConcurrency
+     */
+    void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        drain();
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Run the call on the executor, after the calls queued before it once the cap allows
+     * @param callable
+     * @param <R>
+     * @return
+     */
+    <R> CompletableFuture<R> submit(Callable<R> callable) {
+        Task<R> task = new Task<>(callable);
+        pending.offer(task);
+        drain();
+        return task.future;
+    }
+
+    /**
+     * Run the call on the executor only if it can start at once
+     * @param callable
+     * @param <R>
+     * @return null if the cap is reached or calls are waiting
+     */
+    <R> CompletableFuture<R> trySubmit(Callable<R> callable) {
+        for (;;) {
+            int count = running.get();
+            if (count >= maxConcurrency || !pending.isEmpty()) {
+                return null;
+            }
+            if (running.compareAndSet(count, count + 1)) {
+                Task<R> task = new Task<>(callable);
+                dispatch(task);
+                return task.future;
+            }
+        }
+    }
+
+    /**
+     * Start waiting calls while the cap allows.
+     * Both a new call and a finishing call come here, so a call queued while another finishes is never left behind
+     */
+    private void drain() {
+        for (;;) {
+            int count = running.get();
+            if (count >= maxConcurrency || pending.isEmpty()) {
+                return;
+            }
+            if (!running.compareAndSet(count, count + 1)) {
+                continue;
+            }
+            Task<?> task = pending.poll();
+            if (task == null) {
+                // Taken by another thread, give the slot back and look again
+                running.decrementAndGet();
+                continue;
+            }
+            dispatch(task);
+        }
+    }
+
+    private void dispatch(Task<?> task) {
+        try {
+            ExecutorUtil.getExecutor().execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished();
+                }
+            });
+        } catch (RuntimeException e) {
+            task.future.completeExceptionally(e);
+            finished();
+        }
+    }
+
+    private void finished() {
+        running.decrementAndGet();
+        drain();
+    }
+
+    private static final class Task<R> {
+
+        private final Callable<R> callable;
+
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Task(Callable<R> callable) {
+            this.callable = callable;
+        }
+
+        private void run() {
+            if (future.isDone()) {
+                // Cancelled while waiting
+                return;
+            }
+            try {
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
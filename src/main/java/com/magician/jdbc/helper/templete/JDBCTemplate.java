@@ -1,32 +1,81 @@
 package com.magician.jdbc.helper.templete;
 
-import com.magician.jdbc.core.util.JSONUtil;
-import com.magician.jdbc.core.util.ThreadUtil;
+import com.magician.jdbc.core.constant.enums.CountStrategy;
 import com.magician.jdbc.helper.DBHelper;
+import com.magician.jdbc.helper.cache.CountCache;
+import com.magician.jdbc.helper.cache.ProjectionCache;
+import com.magician.jdbc.helper.cache.ResultCache;
+import com.magician.jdbc.helper.columnar.ColumnarResult;
 import com.magician.jdbc.helper.manager.ConnectionManager;
+import com.magician.jdbc.helper.manager.DataSourceGroup;
 import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.mapper.BeanMeta;
+import com.magician.jdbc.helper.mapper.BeanProperty;
+import com.magician.jdbc.helper.mapper.ColumnReader;
+import com.magician.jdbc.helper.mapper.RowHandler;
+import com.magician.jdbc.helper.mapper.RowMapper;
+import com.magician.jdbc.helper.mapper.RowMapperFactory;
+import com.magician.jdbc.helper.monitor.MonitorManager;
 import com.magician.jdbc.helper.templete.conversion.SqlConversion;
 import com.magician.jdbc.helper.templete.model.Condition;
+import com.magician.jdbc.helper.templete.model.KeysetPageModel;
+import com.magician.jdbc.helper.templete.model.KeysetParamModel;
 import com.magician.jdbc.helper.templete.model.PageModel;
 import com.magician.jdbc.helper.templete.model.PageParamModel;
+import com.magician.jdbc.helper.templete.model.PreparedQuery;
 import com.magician.jdbc.helper.templete.model.SqlBuilderModel;
 import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * database operations
  */
 public class JDBCTemplate {
 
+    private static Logger logger = LoggerFactory.getLogger(JDBCTemplate.class);
+
+    /**
+     * Default number of rows per batch
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default number of rows fetched per round trip by cursor queries
+     */
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Default maximum number of parameters in one multi-row insert, below the 2100 of SQL Server
+     */
+    private static final int DEFAULT_MAX_PARAMS = 2000;
+
     /**
      * data source
      */
     private String dataSource;
 
+    /**
+     * Send queries to the primary of a data source group instead of a replica
+     */
+    private boolean readPrimary;
+
+    /**
+     * Milliseconds query results are cached, -1 uses the setting of the data source
+     */
+    private long cacheTtl = -1;
+
     private JDBCTemplate(){}
 
     /**
@@ -51,10 +100,61 @@ public class JDBCTemplate {
         return jdbcTemplate;
     }
 
+    /**
+     * Get the asynchronous version of this JDBCTemplate
+     * @return
+     */
+    public AsyncJDBCTemplate async(){
+        return new AsyncJDBCTemplate(this, dataSource);
+    }
+
+    /**
+     * Send the queries of this JDBCTemplate to the primary of the data source group,
+     * for reads that must see writes the replicas may not have received yet
+     * @return
+     */
+    public JDBCTemplate primary(){
+        JDBCTemplate jdbcTemplate = copy();
+        jdbcTemplate.readPrimary = true;
+        return jdbcTemplate;
+    }
+
+    /**
+     * Cache the results of select and selectList of this JDBCTemplate for 60 seconds
+     * @return
+     */
+    public JDBCTemplate cache(){
+        return cache(60000);
+    }
+
+    /**
+     * Cache the results of select and selectList of this JDBCTemplate for ttl milliseconds, 0 turns caching off.
+     * A result is dropped as soon as a write through any JDBCTemplate of the data source touches one of its tables,
+     * writes made outside Magician-JDBC are only seen when the ttl has passed.
+     * Queries inside a transaction are not cached
+     * @param ttl
+     * @return
+     */
+    public JDBCTemplate cache(long ttl){
+        JDBCTemplate jdbcTemplate = copy();
+        jdbcTemplate.cacheTtl = ttl;
+        return jdbcTemplate;
+    }
+
+    private JDBCTemplate copy(){
+        JDBCTemplate jdbcTemplate = new JDBCTemplate();
+        jdbcTemplate.dataSource = dataSource;
+        jdbcTemplate.readPrimary = readPrimary;
+        jdbcTemplate.cacheTtl = cacheTtl;
+        return jdbcTemplate;
+    }
+
     /* -------------------------------------- SQL-free operation of a single table ------------------------------------------ */
 
     /**
-     * No sql, single table query
+     * No sql, single table query.
+     * Only the columns of the table that a property of cls maps to are selected, the column list is worked out once per table and class
+     * and read again after the ttl of ProjectionCache, or when the select fails because the columns of the table have changed
      * @param tableName
      * @param conditionBuilder
      * @param cls
@@ -63,30 +163,83 @@ public class JDBCTemplate {
      * @throws Exception
      */
     public <T> List<T> select(String tableName, ConditionBuilder conditionBuilder, Class<T> cls) throws Exception {
-        ConnectionManager connectionManager = getConnection();
+        String columns = projection(tableName, cls);
         try {
-            List<Condition> conditions = conditionBuilder.build();
-            StringBuffer sql = new StringBuffer();
-            sql.append("select * from ");
-            sql.append(tableName);
-
-            List<Map<String, Object>> result = null;
-            if (conditions != null && conditions.size() > 0) {
-                sql.append(" where ");
-                SqlBuilderModel sqlBuilderModel = SqlConversion.getSql(sql, conditions);
-                result = DBHelper.selectList(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams());
-            } else {
-                result = DBHelper.selectList(sql.toString(), connectionManager.getConnection(), null);
+            return select(tableName, columns, conditionBuilder, cls);
+        } catch (SQLException e) {
+            // A column of the cached list may have been dropped or renamed, read the columns again and retry once if they changed
+            if (columns.equals("*") || !ProjectionCache.remove(dataSource, tableName, cls)) {
+                throw e;
             }
-
-            List<T> resultList = new ArrayList<>();
-            for (Map<String, Object> item : result){
-                resultList.add(JSONUtil.toJavaObject(item, cls));
+            String current = projection(tableName, cls);
+            if (current.equals(columns)) {
+                throw e;
             }
-            return resultList;
-        } catch (Exception e){
+            logger.warn("The columns of {} have changed, selecting {} instead of {}", tableName, current, columns);
+            return select(tableName, current, conditionBuilder, cls);
+        }
+    }
+
+    /**
+     * No sql, single table query of the given columns
+     * @param tableName
+     * @param columns
+     * @param conditionBuilder
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> List<T> select(String tableName, String[] columns, ConditionBuilder conditionBuilder, Class<T> cls) throws Exception {
+        return select(tableName, columns == null || columns.length == 0 ? "*" : String.join(",", columns), conditionBuilder, cls);
+    }
+
+    private <T> List<T> select(String tableName, String columns, ConditionBuilder conditionBuilder, Class<T> cls) throws Exception {
+        List<Condition> conditions = conditionBuilder.build();
+        StringBuffer sql = new StringBuffer();
+        sql.append("select ");
+        sql.append(columns);
+        sql.append(" from ");
+        sql.append(tableName);
+
+        if (conditions != null && conditions.size() > 0) {
+            sql.append(" where ");
+            SqlBuilderModel sqlBuilderModel = SqlConversion.getSql(sql, conditions);
+            return query(sqlBuilderModel.getSql(), sqlBuilderModel.getParams(), cls, new String[]{tableName});
+        } else {
+            return query(sql.toString(), null, cls, new String[]{tableName});
+        }
+    }
+
+    /**
+     * Run a select built once with PreparedQuery.select, only the values of the conditions are passed
+     * @param preparedQuery
+     * @param cls
+     * @param params
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> List<T> select(PreparedQuery preparedQuery, Class<T> cls, Object... params) throws Exception {
+        return query(preparedQuery.getSql(), preparedQuery.bind(params), cls, new String[]{preparedQuery.getTableName()});
+    }
+
+    /**
+     * Run an update or a delete built once with PreparedQuery, the values of the set columns come first
+     * @param preparedQuery
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    public int exec(PreparedQuery preparedQuery, Object... params) throws Exception {
+        Object[] values = preparedQuery.bind(params);
+        ConnectionManager connectionManager = getConnection();
+        try {
+            return DBHelper.update(preparedQuery.getSql(), connectionManager.getConnection(), values);
+        } catch (Exception e) {
             throw e;
         } finally {
+            invalidate(preparedQuery.getTableName());
             connectionManager.close();
         }
     }
@@ -109,7 +262,7 @@ public class JDBCTemplate {
         ConnectionManager connectionManager = getConnection();
 
         try {
-            Map<String, Object> paramMap = JSONUtil.toMap(data);
+            Map<String, Object> paramMap = BeanMeta.toMap(data);
 
             StringBuffer sql = new StringBuffer();
             sql.append("update ");
@@ -141,6 +294,7 @@ public class JDBCTemplate {
         } catch (Exception e) {
             throw e;
         } finally {
+            invalidate(tableName);
             connectionManager.close();
         }
     }
@@ -170,6 +324,7 @@ public class JDBCTemplate {
         } catch (Exception e) {
             throw e;
         } finally {
+            invalidate(tableName);
             connectionManager.close();
         }
     }
@@ -184,43 +339,234 @@ public class JDBCTemplate {
     public int insert(String tableName, Object data) throws Exception {
         ConnectionManager connectionManager = getConnection();
         try {
-            StringBuffer sql = new StringBuffer();
-            sql.append("insert into ");
-            sql.append(tableName);
-            sql.append(" (");
+            SqlBuilderModel sqlBuilderModel = insertSql(tableName, data);
+            return DBHelper.update(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams());
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            invalidate(tableName);
+            connectionManager.close();
+        }
+    }
 
-            StringBuffer values = new StringBuffer();
-            values.append(") values (");
+    /**
+     * No sql, single table insert, returns the key generated by the database
+     * @param tableName
+     * @param data
+     * @return
+     * @throws Exception
+     */
+    public Object insertReturnKey(String tableName, Object data) throws Exception {
+        return insertReturnKey(tableName, data, null);
+    }
 
-            Map<String, Object> paramMap = JSONUtil.toMap(data);
+    /**
+     * No sql, single table insert, returns the key generated by the database and writes it into the keyColumn property of data
+     * @param tableName
+     * @param data
+     * @param keyColumn generated column, also the property or Map key the value is written to
+     * @return
+     * @throws Exception
+     */
+    public Object insertReturnKey(String tableName, Object data, String keyColumn) throws Exception {
+        ConnectionManager connectionManager = getConnection();
+        try {
+            SqlBuilderModel sqlBuilderModel = insertSql(tableName, data);
+            List<Object> keys = DBHelper.insertReturnKeys(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams(), keyColumn);
+            if (keys.size() < 1) {
+                return null;
+            }
+            if (keyColumn != null) {
+                writeKey(data, keyColumn, keys.get(0));
+            }
+            return keys.get(0);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            invalidate(tableName);
+            connectionManager.close();
+        }
+    }
 
-            List<Object> paramList = new ArrayList<>();
+    /**
+     * No sql, single table insert of many rows with multi-row values statements, at most 2000 parameters per statement.
+     * All statements are committed together, or none if one fails
+     * @param tableName
+     * @param dataList
+     * @return the keys generated by the database
+     * @throws Exception
+     */
+    public List<Object> insertValues(String tableName, List<?> dataList) throws Exception {
+        return insertValues(tableName, dataList, null, DEFAULT_MAX_PARAMS);
+    }
 
-            Boolean first = false;
-            for (Map.Entry<String, Object> item : paramMap.entrySet()) {
-                if (item.getValue() == null) {
-                    continue;
-                }
-                if (first) {
-                    sql.append(",");
-                    values.append(",");
-                }
-                sql.append(item.getKey());
-                values.append("?");
-                paramList.add(item.getValue());
+    /**
+     * No sql, single table insert of many rows with multi-row values statements, at most 2000 parameters per statement.
+     * All statements are committed together, or none if one fails
+     * @param tableName
+     * @param dataList
+     * @param keyColumn generated column, also the property or Map key the values are written to
+     * @return the keys generated by the database
+     * @throws Exception
+     */
+    public List<Object> insertValues(String tableName, List<?> dataList, String keyColumn) throws Exception {
+        return insertValues(tableName, dataList, keyColumn, DEFAULT_MAX_PARAMS);
+    }
 
-                first = true;
+    /**
+     * No sql, single table insert of many rows with insert into t (...) values (...),(...) statements.
+     * Rows are split into statements of at most maxParams parameters.
+     * Outside a transaction the statements run in one local transaction, so a failure inserts no rows at all,
+     * inside a transaction they are left to it.
+     * Generated keys are written into the rows in the order the driver returns them, which MySQL and PostgreSQL return in insert order
+     * @param tableName
+     * @param dataList
+     * @param keyColumn generated column, also the property or Map key the values are written to, null to only return the keys
+     * @param maxParams
+     * @return the keys generated by the database
+     * @throws Exception
+     */
+    public List<Object> insertValues(String tableName, List<?> dataList, String keyColumn, int maxParams) throws Exception {
+        List<Object> keys = new ArrayList<>();
+        if (dataList == null || dataList.size() < 1) {
+            return keys;
+        }
+
+        Set<String> columns = new LinkedHashSet<>();
+        List<Object[]> paramsList = insertParams(dataList, columns);
+        if (columns.size() < 1) {
+            throw new Exception("There are no columns to insert");
+        }
+        int rowsPerStatement = Math.max(1, maxParams / columns.size());
+
+        StringBuilder rowSql = new StringBuilder();
+        rowSql.append("(");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                rowSql.append(",");
+            }
+            rowSql.append("?");
+        }
+        rowSql.append(")");
+
+        ConnectionManager connectionManager = getConnection();
+        Connection connection = connectionManager.getConnection();
+        boolean localTransaction = !connectionManager.isTransaction() && paramsList.size() > rowsPerStatement;
+        try {
+            if (localTransaction) {
+                connection.setAutoCommit(false);
             }
+            for (int offset = 0; offset < paramsList.size(); offset += rowsPerStatement) {
+                int end = Math.min(offset + rowsPerStatement, paramsList.size());
 
-            sql.append(values);
-            sql.append(")");
+                StringBuilder sql = new StringBuilder();
+                sql.append("insert into ");
+                sql.append(tableName);
+                sql.append(" (");
+                sql.append(String.join(",", columns));
+                sql.append(") values ");
 
-            return DBHelper.update(sql.toString(), connectionManager.getConnection(), paramList.toArray());
+                Object[] params = new Object[(end - offset) * columns.size()];
+                for (int row = offset; row < end; row++) {
+                    if (row > offset) {
+                        sql.append(",");
+                    }
+                    sql.append(rowSql);
+                    System.arraycopy(paramsList.get(row), 0, params, (row - offset) * columns.size(), columns.size());
+                }
+
+                List<Object> chunkKeys = DBHelper.insertReturnKeys(sql.toString(), connection, params, keyColumn);
+                if (keyColumn != null) {
+                    for (int i = 0; i < chunkKeys.size() && offset + i < end; i++) {
+                        writeKey(dataList.get(offset + i), keyColumn, chunkKeys.get(i));
+                    }
+                }
+                keys.addAll(chunkKeys);
+            }
+            if (localTransaction) {
+                connection.commit();
+            }
+            return keys;
         } catch (Exception e) {
+            if (localTransaction) {
+                connection.rollback();
+            }
             throw e;
         } finally {
-            connectionManager.close();
+            try {
+                if (localTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                invalidate(tableName);
+                connectionManager.close();
+            }
+        }
+    }
+
+    /**
+     * Build the insert sql of one row, columns with null values are left out
+     * @param tableName
+     * @param data
+     * @return
+     */
+    private SqlBuilderModel insertSql(String tableName, Object data) {
+        StringBuffer sql = new StringBuffer();
+        sql.append("insert into ");
+        sql.append(tableName);
+        sql.append(" (");
+
+        StringBuffer values = new StringBuffer();
+        values.append(") values (");
+
+        Map<String, Object> paramMap = BeanMeta.toMap(data);
+
+        List<Object> paramList = new ArrayList<>();
+
+        Boolean first = false;
+        for (Map.Entry<String, Object> item : paramMap.entrySet()) {
+            if (item.getValue() == null) {
+                continue;
+            }
+            if (first) {
+                sql.append(",");
+                values.append(",");
+            }
+            sql.append(item.getKey());
+            values.append("?");
+            paramList.add(item.getValue());
+
+            first = true;
         }
+
+        sql.append(values);
+        sql.append(")");
+
+        SqlBuilderModel sqlBuilderModel = new SqlBuilderModel();
+        sqlBuilderModel.setSql(sql.toString());
+        sqlBuilderModel.setParams(paramList.toArray());
+        return sqlBuilderModel;
+    }
+
+    /**
+     * Write a generated key into the row it was generated for
+     * @param data
+     * @param keyColumn
+     * @param key
+     * @throws Exception
+     */
+    private void writeKey(Object data, String keyColumn, Object key) throws Exception {
+        if (data instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> row = (Map<String, Object>) data;
+            row.put(keyColumn, key);
+            return;
+        }
+        BeanProperty beanProperty = BeanMeta.get(data.getClass()).findProperty(keyColumn);
+        if (beanProperty == null) {
+            throw new Exception(data.getClass().getName() + " has no property for the key column [" + keyColumn + "]");
+        }
+        beanProperty.setValue(data, key);
     }
 
     /* -------------------------------------- Customize sql to do complex operations ------------------------------------------ */
@@ -235,31 +581,113 @@ public class JDBCTemplate {
      * @throws Exception
      */
     public <T> List<T> selectList(String sql, Object param, Class<T> cls) throws Exception {
+        if (param instanceof Object[]) {
+            return query(sql, (Object[]) param, cls, null);
+        }
 
-        ConnectionManager connectionManager = getConnection();
-        try {
-            List<T> resultList = new ArrayList<>();
+        SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(sql, param);
+        return query(sqlBuilderModel.getSql(), sqlBuilderModel.getParams(), cls, null);
+    }
 
-            if (param instanceof Object[]) {
-                List<Map<String, Object>> result = DBHelper.selectList(sql, connectionManager.getConnection(), (Object[]) param);
-                for (Map<String, Object> item : result) {
-                    resultList.add(JSONUtil.toJavaObject(item, cls));
-                }
-            } else {
+    /**
+     * Run a query, through the result cache when it is turned on
+     * @param sql
+     * @param params
+     * @param cls
+     * @param tables tables the query reads, null to find them in the sql
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    private <T> List<T> query(String sql, Object[] params, Class<T> cls, String[] tables) throws Exception {
+        long ttl = cacheTtl >= 0 ? cacheTtl : ResultCache.getTtl(dataSource);
+        if (ttl > 0 && !TransactionManager.isTransaction(dataSource)) {
+            return ResultCache.select(dataSource, sql, params, cls, tables, ttl, () -> queryList(sql, params, cls));
+        }
+        return queryList(sql, params, cls);
+    }
 
-                SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(sql, param);
+    /**
+     * The columns of the table that the properties of cls map to, * for Maps, single column types,
+     * or when no column matches
+     * @param tableName
+     * @param cls
+     * @return
+     * @throws Exception
+     */
+    private String projection(String tableName, Class<?> cls) throws Exception {
+        if (!ProjectionCache.isEnabled()
+                || Map.class.isAssignableFrom(cls)
+                || cls == Object.class
+                || ColumnReader.isSingleColumnType(cls)) {
+            return "*";
+        }
+        String columns = ProjectionCache.get(dataSource, tableName, cls);
+        if (columns != null) {
+            return columns;
+        }
 
-                List<Map<String, Object>> result = DBHelper.selectList(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams());
-                for (Map<String, Object> item : result) {
-                    resultList.add(JSONUtil.toJavaObject(item, cls));
-                }
+        String[] labels;
+        String quote;
+        ConnectionManager connectionManager = getConnection(true);
+        try {
+            Connection connection = connectionManager.getConnection();
+            try (ResultSet resultSet = DBHelper.select("select * from " + tableName + " where 1 = 0", connection, null)) {
+                labels = RowMapperFactory.getColumnLabels(resultSet.getMetaData());
             }
-            return resultList;
+            quote = connection.getMetaData().getIdentifierQuoteString();
         } catch (Exception e) {
             throw e;
         } finally {
             connectionManager.close();
         }
+        if (quote == null || quote.trim().isEmpty()) {
+            quote = "";
+        }
+
+        BeanMeta beanMeta = BeanMeta.get(cls);
+        StringBuilder projection = new StringBuilder();
+        for (String label : labels) {
+            if (beanMeta.findProperty(label) == null) {
+                continue;
+            }
+            if (projection.length() > 0) {
+                projection.append(",");
+            }
+            projection.append(quote).append(label).append(quote);
+        }
+        columns = projection.length() == 0 ? "*" : projection.toString();
+        ProjectionCache.put(dataSource, tableName, cls, columns);
+        return columns;
+    }
+
+    private <T> List<T> queryList(String sql, Object[] params, Class<T> cls) throws Exception {
+        ConnectionManager connectionManager = getConnection(true);
+        try {
+            return DBHelper.selectList(sql, connectionManager.getConnection(), params, cls);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            connectionManager.close();
+        }
+    }
+
+    /**
+     * Drop the cached results that read the tables, again when the transaction ends if there is one
+     * @param tables
+     */
+    private void invalidate(String... tables) {
+        ResultCache.invalidate(dataSource, tables);
+        TransactionManager.afterCompletion(dataSource, () -> ResultCache.invalidate(dataSource, tables));
+    }
+
+    /**
+     * Drop the cached results that read the tables written by the sql, again when the transaction ends if there is one
+     * @param sql
+     */
+    private void invalidateSql(String sql) {
+        ResultCache.invalidateSql(dataSource, sql);
+        TransactionManager.afterCompletion(dataSource, () -> ResultCache.invalidateSql(dataSource, sql));
     }
 
     /**
@@ -305,6 +733,40 @@ public class JDBCTemplate {
         return selectOne(sql, new Object[0], cls);
     }
 
+    /**
+     * Query into a columnar result, for large numeric results that are processed by column.
+     * Numbers are kept in primitive arrays, strings are dictionary encoded and SQL NULL is kept in a bitmap
+     * @param sql
+     * @param param
+     * @return
+     * @throws Exception
+     */
+    public ColumnarResult selectColumnar(String sql, Object param) throws Exception {
+        ConnectionManager connectionManager = getConnection(true);
+        try {
+            if (param instanceof Object[]) {
+                return DBHelper.selectColumnar(sql, connectionManager.getConnection(), (Object[]) param);
+            }
+
+            SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(sql, param);
+            return DBHelper.selectColumnar(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams());
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            connectionManager.close();
+        }
+    }
+
+    /**
+     * Query into a columnar result
+     * @param sql
+     * @return
+     * @throws Exception
+     */
+    public ColumnarResult selectColumnar(String sql) throws Exception {
+        return selectColumnar(sql, new Object[0]);
+    }
+
     /**
      * insert, delete, update
      * @param sql
@@ -323,6 +785,7 @@ public class JDBCTemplate {
         } catch (Exception e) {
             throw e;
         } finally {
+            invalidateSql(sql);
             connectionManager.close();
         }
     }
@@ -336,6 +799,305 @@ public class JDBCTemplate {
         return exec(sql, new Object[0]);
     }
 
+    /* -------------------------------------- Batch operations ------------------------------------------ */
+
+    /**
+     * No sql, single table batch insert, rows are sent in chunks of 1000
+     * @param tableName
+     * @param dataList
+     * @return
+     * @throws Exception
+     */
+    public int[] insertBatch(String tableName, List<?> dataList) throws Exception {
+        return insertBatch(tableName, dataList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * No sql, single table batch insert.
+     * The columns are all properties that are not null in at least one row, rows without a value for such a column insert null
+     * @param tableName
+     * @param dataList
+     * @param batchSize
+     * @return the insert count of each row
+     * @throws Exception
+     */
+    public int[] insertBatch(String tableName, List<?> dataList, int batchSize) throws Exception {
+        if (dataList == null || dataList.size() < 1) {
+            return new int[0];
+        }
+
+        Set<String> columns = new LinkedHashSet<>();
+        List<Object[]> paramsList = insertParams(dataList, columns);
+        if (columns.size() < 1) {
+            throw new Exception("There are no columns to insert");
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("insert into ");
+        sql.append(tableName);
+        sql.append(" (");
+        sql.append(String.join(",", columns));
+        sql.append(") values (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(",");
+            }
+            sql.append("?");
+        }
+        sql.append(")");
+
+        return execBatch(sql.toString(), paramsList, batchSize);
+    }
+
+    /**
+     * Get the insert parameters of the rows.
+     * The columns are all properties that are not null in at least one row, rows without a value for such a column insert null
+     * @param dataList
+     * @param columns receives the columns, in the order of the parameters
+     * @return
+     */
+    private List<Object[]> insertParams(List<?> dataList, Set<String> columns) {
+        List<Map<String, Object>> paramMaps = new ArrayList<>(dataList.size());
+        for (Object data : dataList) {
+            Map<String, Object> paramMap = BeanMeta.toMap(data);
+            for (Map.Entry<String, Object> item : paramMap.entrySet()) {
+                if (item.getValue() != null) {
+                    columns.add(item.getKey());
+                }
+            }
+            paramMaps.add(paramMap);
+        }
+
+        List<Object[]> paramsList = new ArrayList<>(paramMaps.size());
+        for (Map<String, Object> paramMap : paramMaps) {
+            Object[] params = new Object[columns.size()];
+            int index = 0;
+            for (String column : columns) {
+                params[index++] = paramMap.get(column);
+            }
+            paramsList.add(params);
+        }
+        return paramsList;
+    }
+
+    /**
+     * Execute the sql once per element, rows are sent in chunks of 1000
+     * @param sql
+     * @param paramList elements are Object[] or objects for the {name} placeholders
+     * @return
+     * @throws Exception
+     */
+    public int[] execBatch(String sql, List<?> paramList) throws Exception {
+        return execBatch(sql, paramList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Execute the sql once per element, with one statement and one round trip per chunk.
+     * Outside a transaction each chunk is committed on its own, inside a transaction nothing is committed
+     * @param sql
+     * @param paramList elements are Object[] or objects for the {name} placeholders
+     * @param batchSize
+     * @return the update count of each element
+     * @throws Exception
+     */
+    public int[] execBatch(String sql, List<?> paramList, int batchSize) throws Exception {
+        if (paramList == null || paramList.size() < 1) {
+            return new int[0];
+        }
+
+        String executeSql = sql;
+        List<Object[]> paramsList = new ArrayList<>(paramList.size());
+        for (Object param : paramList) {
+            if (param instanceof Object[]) {
+                paramsList.add((Object[]) param);
+            } else {
+                SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(sql, param);
+                executeSql = sqlBuilderModel.getSql();
+                paramsList.add(sqlBuilderModel.getParams());
+            }
+        }
+
+        ConnectionManager connectionManager = getConnection();
+        try {
+            return DBHelper.updateBatch(executeSql, connectionManager.getConnection(), paramsList, batchSize, !connectionManager.isTransaction());
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            invalidateSql(sql);
+            connectionManager.close();
+        }
+    }
+
+    /**
+     * Execute the sql once per row of parameters, rows are sent in chunks of 1000
+     * @param sql
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    public int[] execBatch(String sql, Object[][] params) throws Exception {
+        return execBatch(sql, params, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Execute the sql once per row of parameters
+     * @param sql
+     * @param params
+     * @param batchSize
+     * @return the update count of each row
+     * @throws Exception
+     */
+    public int[] execBatch(String sql, Object[][] params, int batchSize) throws Exception {
+        if (params == null) {
+            return new int[0];
+        }
+        return execBatch(sql, Arrays.asList(params), batchSize);
+    }
+
+    /* -------------------------------------- Streaming query ------------------------------------------ */
+
+    /**
+     * Query with a cursor and map rows lazily as the stream is consumed, 1000 rows are fetched per round trip
+     * @param sql
+     * @param param
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> Stream<T> stream(String sql, Object param, Class<T> cls) throws Exception {
+        return stream(sql, param, cls, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Query with a cursor and map rows lazily as the stream is consumed, memory use does not depend on the number of rows.
+     * The stream holds a connection until it is closed, always use it in a try-with-resources block.
+     * Errors while reading rows are thrown as RuntimeException.
+     * MySQL only streams rows with fetchSize Integer.MIN_VALUE or with useCursorFetch=true on the url
+     * @param sql
+     * @param param
+     * @param cls
+     * @param fetchSize
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> Stream<T> stream(String sql, Object param, Class<T> cls, int fetchSize) throws Exception {
+        ConnectionManager connectionManager = getConnection(true);
+        ResultSet resultSet = null;
+        try {
+            resultSet = openCursor(connectionManager, sql, param, fetchSize);
+            RowMapper<T> rowMapper = RowMapperFactory.getRowMapper(cls, resultSet.getMetaData());
+
+            ResultSet cursor = resultSet;
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!cursor.next()) {
+                            return false;
+                        }
+                        action.accept(rowMapper.mapRow(cursor));
+                        return true;
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException("Error reading row", e);
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> closeCursor(cursor, connectionManager));
+        } catch (Exception e) {
+            closeCursor(resultSet, connectionManager);
+            throw e;
+        }
+    }
+
+    /**
+     * Query with a cursor and pass the rows to the handler one at a time, 1000 rows are fetched per round trip
+     * @param sql
+     * @param param
+     * @param cls
+     * @param rowHandler
+     * @param <T>
+     * @throws Exception
+     */
+    public <T> void forEach(String sql, Object param, Class<T> cls, RowHandler<T> rowHandler) throws Exception {
+        forEach(sql, param, cls, rowHandler, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Query with a cursor and pass the rows to the handler one at a time, memory use does not depend on the number of rows
+     * @param sql
+     * @param param
+     * @param cls
+     * @param rowHandler
+     * @param fetchSize
+     * @param <T>
+     * @throws Exception
+     */
+    public <T> void forEach(String sql, Object param, Class<T> cls, RowHandler<T> rowHandler, int fetchSize) throws Exception {
+        ConnectionManager connectionManager = getConnection(true);
+        ResultSet resultSet = null;
+        try {
+            resultSet = openCursor(connectionManager, sql, param, fetchSize);
+            RowMapper<T> rowMapper = RowMapperFactory.getRowMapper(cls, resultSet.getMetaData());
+            while (resultSet.next()) {
+                rowHandler.handle(rowMapper.mapRow(resultSet));
+            }
+        } finally {
+            closeCursor(resultSet, connectionManager);
+        }
+    }
+
+    /**
+     * Open a cursor.
+     * Outside a transaction auto-commit is switched off while the cursor is open, some drivers (PostgreSQL) ignore the fetch size otherwise
+     * @param connectionManager
+     * @param sql
+     * @param param
+     * @param fetchSize
+     * @return
+     * @throws Exception
+     */
+    private ResultSet openCursor(ConnectionManager connectionManager, String sql, Object param, int fetchSize) throws Exception {
+        Connection connection = connectionManager.getConnection();
+        if (!connectionManager.isTransaction()) {
+            connection.setAutoCommit(false);
+        }
+        if (param instanceof Object[]) {
+            return DBHelper.selectCursor(sql, connection, (Object[]) param, fetchSize);
+        }
+        SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(sql, param);
+        return DBHelper.selectCursor(sqlBuilderModel.getSql(), connection, sqlBuilderModel.getParams(), fetchSize);
+    }
+
+    /**
+     * Close the cursor and hand back the connection
+     * @param resultSet
+     * @param connectionManager
+     */
+    private void closeCursor(ResultSet resultSet, ConnectionManager connectionManager) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (!connectionManager.isTransaction()) {
+                Connection connection = connectionManager.getConnection();
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            logger.warn("Error closing cursor", e);
+        } finally {
+            try {
+                connectionManager.close();
+            } catch (Exception e) {
+                logger.warn("Error closing connection", e);
+            }
+        }
+    }
+
     /* -------------------------------------- Paging query ------------------------------------------ */
 
     /**
@@ -353,7 +1115,7 @@ public class JDBCTemplate {
     }
 
     /**
-     * Paging query with custom countSql
+     * Paging query with custom countSql, the count is run according to the countStrategy of pageParamModel
      * @param sql
      * @param countSql
      * @param pageParamModel
@@ -364,10 +1126,40 @@ public class JDBCTemplate {
      */
     public <T> PageModel<T> selectPageCustomCountSql(String sql, String countSql, PageParamModel pageParamModel, Class<T> cls) throws Exception {
 
-        Map result = selectOne(countSql, pageParamModel.getParam(), Map.class);
-        Object totalObj = result.get("total");
-        if (totalObj == null || "".equals(totalObj)) {
-            totalObj = 0;
+        CountStrategy countStrategy = pageParamModel.getCountStrategy();
+        if (countStrategy == null) {
+            countStrategy = CountStrategy.EXACT;
+        }
+        if (countStrategy == CountStrategy.PARALLEL && TransactionManager.isTransaction(dataSource)) {
+            // A second connection would not see the uncommitted changes of the transaction
+            countStrategy = CountStrategy.EXACT;
+        }
+
+        Integer total = null;
+        boolean totalExact = false;
+        CompletableFuture<Integer> totalFuture = null;
+
+        if (countStrategy != CountStrategy.NONE) {
+            SqlBuilderModel countSqlModel = SqlConversion.builderSql(countSql, pageParamModel.getParam());
+            if (countStrategy == CountStrategy.CACHED) {
+                total = CountCache.get(dataSource, countSqlModel.getSql(), countSqlModel.getParams());
+                if (total == null) {
+                    total = selectTotal(countSqlModel);
+                    totalExact = true;
+                    CountCache.put(dataSource, countSqlModel.getSql(), countSqlModel.getParams(), total, pageParamModel.getCountCacheTtl());
+                }
+            } else if (countStrategy == CountStrategy.PARALLEL) {
+                // Counted against the async cap of the data source. If no slot is free the count runs here,
+                // waiting for a slot could deadlock when the page query itself runs as an async call
+                totalFuture = AsyncJDBCTemplate.getLimiter(dataSource).trySubmit(() -> selectTotal(countSqlModel));
+                if (totalFuture == null) {
+                    total = selectTotal(countSqlModel);
+                }
+                totalExact = true;
+            } else {
+                total = selectTotal(countSqlModel);
+                totalExact = true;
+            }
         }
 
         pageParamModel.getParam().put("pageStart",(pageParamModel.getCurrentPage()-1) * pageParamModel.getPageSize());
@@ -377,23 +1169,159 @@ public class JDBCTemplate {
         stringBuffer.append(sql);
         stringBuffer.append(" limit {pageStart},{pageSize}");
 
-        List<T> resultList = selectList(stringBuffer.toString(), pageParamModel.getParam(), cls);
+        List<T> resultList;
+        try {
+            resultList = selectList(stringBuffer.toString(), pageParamModel.getParam(), cls);
+        } catch (Exception e) {
+            if (totalFuture != null) {
+                totalFuture.cancel(false);
+            }
+            throw e;
+        }
+
+        if (totalFuture != null) {
+            try {
+                total = totalFuture.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
 
         PageModel<T> pageModel = new PageModel<>();
-        pageModel.setPageCount(Integer.parseInt(totalObj.toString()));
         pageModel.setCurrentPage(pageParamModel.getCurrentPage());
         pageModel.setPageSize(pageParamModel.getPageSize());
-        pageModel.setPageTotal(getPageTotal(pageModel));
+        if (total != null) {
+            pageModel.setPageCount(total);
+            pageModel.setPageTotal(getPageTotal(pageModel));
+        }
+        pageModel.setTotalExact(totalExact);
         pageModel.setDataList(resultList);
         return pageModel;
     }
 
+    /**
+     * Run a count query
+     * @param countSqlModel
+     * @return
+     * @throws Exception
+     */
+    private Integer selectTotal(SqlBuilderModel countSqlModel) throws Exception {
+        Map<?, ?> result = selectOne(countSqlModel.getSql(), countSqlModel.getParams(), Map.class);
+        Object totalObj = result == null ? null : result.get("total");
+        if (totalObj == null || "".equals(totalObj)) {
+            totalObj = 0;
+        }
+        return Integer.parseInt(totalObj.toString());
+    }
+
+    /**
+     * Keyset paging query, the page starts after lastKey instead of at an offset and no count query is run,
+     * so every page costs the same as the first one.
+     * The sql is wrapped as select * from (sql) tbl where sortKey > lastKey order by sortKey limit pageSize.
+     * sortKey must be unique, otherwise rows sharing the last value of a page are skipped; for a sortKey that is not unique
+     * set a unique tieKey, the condition becomes sortKey > lastKey or (sortKey = lastKey and tieKey > lastTieKey)
+     * and the rows are ordered by both.
+     * sortKey and tieKey are written into the sql as they are and must not come from user input
+     * @param sql
+     * @param keysetParamModel
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> KeysetPageModel<T> selectKeyset(String sql, KeysetParamModel keysetParamModel, Class<T> cls) throws Exception {
+        String sortKey = keysetParamModel.getSortKey();
+        if (sortKey == null || !sortKey.matches("[A-Za-z0-9_$]+")) {
+            throw new Exception("sortKey must be a column name, got [" + sortKey + "]");
+        }
+        String tieKey = keysetParamModel.getTieKey();
+        if (tieKey != null && !tieKey.matches("[A-Za-z0-9_$]+")) {
+            throw new Exception("tieKey must be a column name, got [" + tieKey + "]");
+        }
+        if (tieKey != null && keysetParamModel.getLastKey() != null && keysetParamModel.getLastTieKey() == null) {
+            throw new Exception("lastTieKey is required after the first page when tieKey is set");
+        }
+        if (keysetParamModel.getPageSize() < 1) {
+            throw new Exception("pageSize must be greater than 0");
+        }
+
+        StringBuilder keysetSql = new StringBuilder();
+        keysetSql.append("select * from(");
+        keysetSql.append(sql);
+        keysetSql.append(") tbl");
+        String direction = keysetParamModel.isDesc() ? " < " : " > ";
+        if (keysetParamModel.getLastKey() != null) {
+            keysetParamModel.getParam().put("lastKey", keysetParamModel.getLastKey());
+            keysetSql.append(" where tbl.");
+            keysetSql.append(sortKey);
+            keysetSql.append(direction);
+            keysetSql.append("{lastKey}");
+            if (tieKey != null) {
+                // Spelled out instead of (sortKey, tieKey) > (?, ?), which not every database supports or uses an index for
+                keysetParamModel.getParam().put("lastTieKey", keysetParamModel.getLastTieKey());
+                keysetSql.append(" or (tbl.");
+                keysetSql.append(sortKey);
+                keysetSql.append(" = {lastKey} and tbl.");
+                keysetSql.append(tieKey);
+                keysetSql.append(direction);
+                keysetSql.append("{lastTieKey})");
+            }
+        }
+        String order = keysetParamModel.isDesc() ? " desc" : " asc";
+        keysetSql.append(" order by tbl.");
+        keysetSql.append(sortKey);
+        keysetSql.append(order);
+        if (tieKey != null) {
+            keysetSql.append(", tbl.");
+            keysetSql.append(tieKey);
+            keysetSql.append(order);
+        }
+        keysetSql.append(" limit {pageSize}");
+
+        // One row more than a page tells whether there is a next page
+        keysetParamModel.getParam().put("pageSize", keysetParamModel.getPageSize() + 1);
+
+        SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql(keysetSql.toString(), keysetParamModel.getParam());
+
+        KeysetPageModel<T> keysetPageModel = new KeysetPageModel<>();
+        keysetPageModel.setPageSize(keysetParamModel.getPageSize());
+
+        ConnectionManager connectionManager = getConnection(true);
+        try (ResultSet resultSet = DBHelper.select(sqlBuilderModel.getSql(), connectionManager.getConnection(), sqlBuilderModel.getParams())) {
+            RowMapper<T> rowMapper = RowMapperFactory.getRowMapper(cls, resultSet.getMetaData());
+            int keyIndex = resultSet.findColumn(sortKey);
+            int tieKeyIndex = tieKey == null ? -1 : resultSet.findColumn(tieKey);
+
+            List<T> resultList = new ArrayList<>();
+            while (resultSet.next()) {
+                if (resultList.size() == keysetParamModel.getPageSize()) {
+                    keysetPageModel.setHasNext(true);
+                    break;
+                }
+                resultList.add(rowMapper.mapRow(resultSet));
+                keysetPageModel.setLastKey(resultSet.getObject(keyIndex));
+                if (tieKeyIndex > 0) {
+                    keysetPageModel.setLastTieKey(resultSet.getObject(tieKeyIndex));
+                }
+            }
+            keysetPageModel.setDataList(resultList);
+            return keysetPageModel;
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            connectionManager.close();
+        }
+    }
+
     /**
      * Calculate the total number of pages
      * @param pageModel
      * @return
      */
-    private int getPageTotal(PageModel pageModel){
+    private int getPageTotal(PageModel<?> pageModel){
         int pageTotal = pageModel.getPageCount() / pageModel.getPageSize();
 
         if (pageModel.getPageCount() % pageModel.getPageSize() == 0) {
@@ -408,19 +1336,37 @@ public class JDBCTemplate {
      * @return
      */
     private ConnectionManager getConnection() throws Exception {
+        return getConnection(false);
+    }
+
+    /**
+     * Get the connection in the transaction, queries outside a transaction on a data source group use a replica
+     * @param read
+     * @return
+     */
+    private ConnectionManager getConnection(boolean read) throws Exception {
         ConnectionManager connectionManager = new ConnectionManager();
 
-        Object obj = ThreadUtil.getThreadLocal().get();
-        if (obj != null) {
-            Map<String, Connection> connections = (Map<String, Connection>) obj;
+        boolean monitor = MonitorManager.isEnabled();
+        long start = monitor ? System.nanoTime() : 0;
 
+        Connection connection = TransactionManager.getConnection(dataSource);
+        if (connection != null) {
             connectionManager.setTransaction(true);
-            connectionManager.setConnection(connections.get(dataSource));
+            connectionManager.setConnection(connection);
         } else {
             connectionManager.setTransaction(false);
-            connectionManager.setConnection(DataSourceManager.getConnection(dataSource));
+            DataSourceGroup dataSourceGroup = read && !readPrimary ? DataSourceManager.getDataSourceGroup(dataSource) : null;
+            if (dataSourceGroup != null) {
+                dataSourceGroup.getReadConnection(connectionManager);
+            } else {
+                DataSourceManager.getConnection(dataSource, connectionManager);
+            }
         }
 
+        if (monitor) {
+            MonitorManager.connectionAcquired(dataSource, System.nanoTime() - start, connectionManager.isTransaction());
+        }
         return connectionManager;
     }
 }
@@ -0,0 +1,320 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.helper.templete.model.PageModel;
+import com.magician.jdbc.helper.templete.model.PageParamModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Run the same query on several data sources in parallel and merge the results, for tables split over several databases.
+ * The queries run through AsyncJDBCTemplate, so they use the async executor and the concurrency limit of each data source,
+ * and never take part in a transaction of the calling thread
+ */
+public class ScatterJDBCTemplate {
+
+    private static Logger logger = LoggerFactory.getLogger(ScatterJDBCTemplate.class);
+
+    private List<String> dataSources;
+
+    /**
+     * Milliseconds to wait for the data sources, 0 waits as long as it takes
+     */
+    private long timeout;
+
+    /**
+     * Leave out the data sources that fail or time out instead of failing the whole query
+     */
+    private boolean allowPartial;
+
+    private ScatterJDBCTemplate(){}
+
+    /**
+     * Get ScatterJDBCTemplate object
+     * @param dataSources
+     * @return
+     */
+    public static ScatterJDBCTemplate get(String... dataSources){
+        return get(Arrays.asList(dataSources));
+    }
+
+    /**
+     * Get ScatterJDBCTemplate object
+     * @param dataSources
+     * @return
+     */
+    public static ScatterJDBCTemplate get(Collection<String> dataSources){
+        ScatterJDBCTemplate scatterJDBCTemplate = new ScatterJDBCTemplate();
+        scatterJDBCTemplate.dataSources = new ArrayList<>(dataSources);
+        return scatterJDBCTemplate;
+    }
+
+    /**
+     * Give up on data sources that have not answered within timeout milliseconds.
+     * The query keeps running on the database until it ends, set a query timeout on the database to stop it
+     * @param timeout
+     * @return
+     */
+    public ScatterJDBCTemplate timeout(long timeout){
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Return the results of the data sources that answered when others fail or time out, failures are logged
+     * @param allowPartial
+     * @return
+     */
+    public ScatterJDBCTemplate allowPartial(boolean allowPartial){
+        this.allowPartial = allowPartial;
+        return this;
+    }
+
+    /**
+     * Query all data sources, the rows are returned data source by data source in the order they were given
+     * @param sql
+     * @param param
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> List<T> selectList(String sql, Object param, Class<T> cls) throws Exception {
+        return selectList(sql, param, cls, null, -1);
+    }
+
+    /**
+     * Query all data sources and merge the rows in the order of the comparator.
+     * The sql must sort by the same order, each data source then only has to return limit rows (limit in the sql)
+     * and the sorted results are merged without sorting them again
+     * @param sql
+     * @param param
+     * @param cls
+     * @param comparator null to keep the rows in data source order
+     * @param limit maximum number of rows returned, -1 for all
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> List<T> selectList(String sql, Object param, Class<T> cls, Comparator<? super T> comparator, int limit) throws Exception {
+        List<List<T>> results = scatter(async -> async.selectList(sql, param, cls));
+        return merge(results, comparator, 0, limit);
+    }
+
+    /**
+     * Run a count query on all data sources and add up the counts
+     * @param countSql
+     * @param param
+     * @return
+     * @throws Exception
+     */
+    public long selectCount(String countSql, Object param) throws Exception {
+        List<Long> counts = scatter(async -> async.selectOne(countSql, param, Long.class));
+        long total = 0;
+        for (Long count : counts) {
+            if (count != null) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Paging query over all data sources with the default countSql
+     * @param sql
+     * @param pageParamModel
+     * @param cls
+     * @param comparator the order of the sql
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> PageModel<T> selectPage(String sql, PageParamModel pageParamModel, Class<T> cls, Comparator<? super T> comparator) throws Exception {
+        String countSql = "select count(0) total from(" + sql + ") tbl";
+        return selectPageCustomCountSql(sql, countSql, pageParamModel, cls, comparator);
+    }
+
+    /**
+     * Paging query over all data sources.
+     * Each data source returns its first currentPage * pageSize rows, they are merged by the comparator and the page is cut from the merged rows,
+     * so deep pages cost more on every data source. The total is the sum of the counts of the data sources
+     * @param sql
+     * @param countSql
+     * @param pageParamModel
+     * @param cls
+     * @param comparator the order of the sql
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> PageModel<T> selectPageCustomCountSql(String sql, String countSql, PageParamModel pageParamModel, Class<T> cls, Comparator<? super T> comparator) throws Exception {
+        int pageStart = (pageParamModel.getCurrentPage() - 1) * pageParamModel.getPageSize();
+
+        Map<String, Object> param = new HashMap<>(pageParamModel.getParam());
+        param.put("pageStart", 0);
+        param.put("pageSize", pageStart + pageParamModel.getPageSize());
+        String pageSql = sql + " limit {pageStart},{pageSize}";
+
+        List<PartialResult<Long>> counts = new ArrayList<>();
+        List<PartialResult<List<T>>> rows = new ArrayList<>();
+        for (String dataSource : dataSources) {
+            AsyncJDBCTemplate async = JDBCTemplate.get(dataSource).async();
+            counts.add(new PartialResult<>(dataSource, async.selectOne(countSql, param, Long.class)));
+            rows.add(new PartialResult<>(dataSource, async.selectList(pageSql, param, cls)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        List<Long> countList = gather(counts, deadline);
+        List<List<T>> rowList = gather(rows, deadline);
+
+        long total = 0;
+        boolean totalExact = true;
+        for (Long count : countList) {
+            if (count == null) {
+                totalExact = false;
+            } else {
+                total += count;
+            }
+        }
+
+        PageModel<T> pageModel = new PageModel<>();
+        pageModel.setCurrentPage(pageParamModel.getCurrentPage());
+        pageModel.setPageSize(pageParamModel.getPageSize());
+        pageModel.setPageCount((int) Math.min(total, Integer.MAX_VALUE));
+        int pageTotal = pageModel.getPageCount() / pageModel.getPageSize();
+        pageModel.setPageTotal(pageModel.getPageCount() % pageModel.getPageSize() == 0 ? pageTotal : pageTotal + 1);
+        pageModel.setTotalExact(totalExact);
+        pageModel.setDataList(merge(rowList, comparator, pageStart, pageParamModel.getPageSize()));
+        return pageModel;
+    }
+
+    /**
+     * Start the call on every data source and wait for the results
+     * @param call
+     * @param <R>
+     * @return the results in data source order, null for data sources left out
+     * @throws Exception
+     */
+    private <R> List<R> scatter(Function<AsyncJDBCTemplate, CompletableFuture<R>> call) throws Exception {
+        List<PartialResult<R>> partialResults = new ArrayList<>(dataSources.size());
+        for (String dataSource : dataSources) {
+            partialResults.add(new PartialResult<>(dataSource, call.apply(JDBCTemplate.get(dataSource).async())));
+        }
+        return gather(partialResults, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+
+    private <R> List<R> gather(List<PartialResult<R>> partialResults, long deadline) throws Exception {
+        List<R> results = new ArrayList<>(partialResults.size());
+        for (PartialResult<R> partialResult : partialResults) {
+            try {
+                if (timeout > 0) {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    results.add(partialResult.future.get(remaining, TimeUnit.NANOSECONDS));
+                } else {
+                    results.add(partialResult.future.get());
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                String message = e instanceof TimeoutException
+                        ? "Query on data source [" + partialResult.dataSource + "] timed out after " + timeout + "ms"
+                        : "Query on data source [" + partialResult.dataSource + "] failed";
+                if (allowPartial) {
+                    logger.warn(message, cause);
+                    results.add(null);
+                    continue;
+                }
+                for (PartialResult<R> other : partialResults) {
+                    other.future.cancel(false);
+                }
+                throw new Exception(message, cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Merge the results of the data sources
+     * @param results sorted by the comparator if there is one, null for data sources left out
+     * @param comparator null to concatenate
+     * @param skip rows to leave out at the start
+     * @param limit maximum number of rows, -1 for all
+     * @param <T>
+     * @return
+     */
+    private static <T> List<T> merge(List<List<T>> results, Comparator<? super T> comparator, int skip, int limit) {
+        List<T> merged = new ArrayList<>();
+        if (comparator == null) {
+            int index = 0;
+            for (List<T> result : results) {
+                if (result == null) {
+                    continue;
+                }
+                for (T row : result) {
+                    if (limit >= 0 && merged.size() >= limit) {
+                        return merged;
+                    }
+                    if (index++ >= skip) {
+                        merged.add(row);
+                    }
+                }
+            }
+            return merged;
+        }
+
+        // k-way merge, the queue holds the next row of each data source
+        PriorityQueue<MergeCursor<T>> queue = new PriorityQueue<>(Math.max(1, results.size()), (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<T> result : results) {
+            if (result != null && result.size() > 0) {
+                queue.add(new MergeCursor<>(result));
+            }
+        }
+        int index = 0;
+        while (!queue.isEmpty() && (limit < 0 || merged.size() < limit)) {
+            MergeCursor<T> cursor = queue.poll();
+            if (index++ >= skip) {
+                merged.add(cursor.current());
+            }
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class PartialResult<R> {
+
+        private final String dataSource;
+
+        private final CompletableFuture<R> future;
+
+        private PartialResult(String dataSource, CompletableFuture<R> future) {
+            this.dataSource = dataSource;
+            this.future = future;
+        }
+    }
+
+    private static final class MergeCursor<T> {
+
+        private final List<T> rows;
+
+        private int position;
+
+        private MergeCursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        private T current() {
+            return rows.get(position);
+        }
+
+        private boolean next() {
+            return ++position < rows.size();
+        }
+    }
+}
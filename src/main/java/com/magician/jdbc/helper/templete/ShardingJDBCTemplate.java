@@ -0,0 +1,191 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.mapper.BeanMeta;
+import com.magician.jdbc.helper.sharding.ShardTarget;
+import com.magician.jdbc.helper.sharding.ShardingManager;
+import com.magician.jdbc.helper.sharding.ShardingRule;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Single table operations on sharded tables.
+ * The table name is the logical table of a rule in ShardingManager, each statement runs on the data source and physical table of the shards
+ * its sharding column value maps to. Statements without a value (an equality or in condition on the sharding column) run on all shards.
+ * An update or a delete on several shards runs in one transaction on their data sources when the current thread has none,
+ * so a failing shard leaves all of them unchanged. The data sources are committed one after the other, not atomically,
+ * a commit that fails after others succeeded is reported with the shards that were written
+ */
+public class ShardingJDBCTemplate {
+
+    private ShardingJDBCTemplate(){}
+
+    /**
+     * Get ShardingJDBCTemplate object
+     * @return
+     */
+    public static ShardingJDBCTemplate get(){
+        return new ShardingJDBCTemplate();
+    }
+
+    /**
+     * No sql, sharded table query.
+     * Several shards are queried in parallel, unless the current thread has a transaction on one of them,
+     * the rows are returned shard by shard
+     * @param tableName
+     * @param conditionBuilder
+     * @param cls
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> List<T> select(String tableName, ConditionBuilder conditionBuilder, Class<T> cls) throws Exception {
+        Set<ShardTarget> shardTargets = getRule(tableName).route(conditionBuilder.build());
+
+        List<T> resultList = new ArrayList<>();
+        if (shardTargets.size() == 1 || isTransaction(shardTargets)) {
+            for (ShardTarget shardTarget : shardTargets) {
+                resultList.addAll(JDBCTemplate.get(shardTarget.getDataSource()).select(shardTarget.getTableName(tableName), conditionBuilder, cls));
+            }
+            return resultList;
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(shardTargets.size());
+        for (ShardTarget shardTarget : shardTargets) {
+            futures.add(JDBCTemplate.get(shardTarget.getDataSource()).async().select(shardTarget.getTableName(tableName), conditionBuilder, cls));
+        }
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                resultList.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return resultList;
+    }
+
+    /**
+     * No sql, sharded table insert, the row goes to the shard of its sharding column value
+     * @param tableName
+     * @param data
+     * @return
+     * @throws Exception if the row has no sharding column value
+     */
+    public int insert(String tableName, Object data) throws Exception {
+        ShardTarget shardTarget = getRule(tableName).route(BeanMeta.toMap(data));
+        return JDBCTemplate.get(shardTarget.getDataSource()).insert(shardTarget.getTableName(tableName), data);
+    }
+
+    /**
+     * No sql, sharded table update
+     * @param tableName
+     * @param data
+     * @param conditionBuilder
+     * @return the number of rows updated on all shards
+     * @throws Exception
+     */
+    public int update(String tableName, Object data, ConditionBuilder conditionBuilder) throws Exception {
+        return write(tableName, conditionBuilder, (jdbcTemplate, physicalTable) -> jdbcTemplate.update(physicalTable, data, conditionBuilder));
+    }
+
+    /**
+     * No sql, sharded table delete
+     * @param tableName
+     * @param conditionBuilder
+     * @return the number of rows deleted on all shards
+     * @throws Exception
+     */
+    public int delete(String tableName, ConditionBuilder conditionBuilder) throws Exception {
+        return write(tableName, conditionBuilder, (jdbcTemplate, physicalTable) -> jdbcTemplate.delete(physicalTable, conditionBuilder));
+    }
+
+    /**
+     * Run the statement on each shard the conditions route to, in a local transaction on their data sources
+     * when there are several and the current thread has no transaction
+     * @param tableName
+     * @param conditionBuilder
+     * @param shardWrite
+     * @return the number of rows changed on all shards
+     * @throws Exception naming the shard that failed and, when they are not rolled back, the shards already written
+     */
+    private int write(String tableName, ConditionBuilder conditionBuilder, ShardWrite shardWrite) throws Exception {
+        Set<ShardTarget> shardTargets = getRule(tableName).route(conditionBuilder.build());
+        boolean localTransaction = shardTargets.size() > 1 && !TransactionManager.isTransaction();
+        if (localTransaction) {
+            Set<String> dataSources = new LinkedHashSet<>();
+            for (ShardTarget shardTarget : shardTargets) {
+                dataSources.add(shardTarget.getDataSource());
+            }
+            TransactionManager.beginTraction(dataSources.toArray(new String[0]));
+        }
+
+        int count = 0;
+        List<ShardTarget> written = new ArrayList<>();
+        for (ShardTarget shardTarget : shardTargets) {
+            try {
+                count += shardWrite.write(JDBCTemplate.get(shardTarget.getDataSource()), shardTarget.getTableName(tableName));
+            } catch (Exception e) {
+                if (shardTargets.size() == 1) {
+                    throw e;
+                }
+                if (localTransaction) {
+                    try {
+                        TransactionManager.rollback();
+                    } catch (Exception rollbackException) {
+                        e.addSuppressed(rollbackException);
+                    }
+                    throw new Exception("Writing shard [" + shardTarget + "] of table [" + tableName + "] failed, all shards were rolled back", e);
+                }
+                throw new Exception("Writing shard [" + shardTarget + "] of table [" + tableName + "] failed, shards "
+                        + written + " were already written", e);
+            }
+            written.add(shardTarget);
+        }
+
+        if (localTransaction) {
+            try {
+                TransactionManager.commit();
+            } catch (Exception e) {
+                throw new Exception("Committing the shards " + written + " of table [" + tableName + "] failed, some of them may be committed", e);
+            }
+        }
+        return count;
+    }
+
+    private ShardingRule getRule(String tableName) throws Exception {
+        ShardingRule shardingRule = ShardingManager.getRule(tableName);
+        if (shardingRule == null) {
+            throw new Exception("No sharding rule for table [" + tableName + "] found");
+        }
+        return shardingRule;
+    }
+
+    /**
+     * Whether the current thread has a transaction on one of the shards, its queries must use the transaction connection
+     * @param shardTargets
+     * @return
+     */
+    private boolean isTransaction(Set<ShardTarget> shardTargets) {
+        for (ShardTarget shardTarget : shardTargets) {
+            if (TransactionManager.isTransaction(shardTarget.getDataSource())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface ShardWrite {
+
+        int write(JDBCTemplate jdbcTemplate, String physicalTable) throws Exception;
+    }
+}
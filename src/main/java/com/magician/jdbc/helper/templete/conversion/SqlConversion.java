@@ -1,20 +1,25 @@
 package com.magician.jdbc.helper.templete.conversion;
 
-import com.magician.jdbc.core.util.JSONUtil;
+import com.magician.jdbc.core.util.LRUCache;
+import com.magician.jdbc.helper.mapper.BeanMeta;
 import com.magician.jdbc.helper.templete.model.Condition;
 import com.magician.jdbc.helper.templete.model.SqlBuilderModel;
+import com.magician.jdbc.helper.templete.model.SqlTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * sql converter
  */
 public class SqlConversion {
 
+    /**
+     * Parsed sql, keyed by the original sql
+     */
+    private static LRUCache<String, SqlTemplate> sqlTemplateCache = new LRUCache<>(1024);
+
     /**
      * Splicing conditions behind sql
      * @param sql
@@ -31,7 +36,7 @@ public class SqlConversion {
             sql.append(" ");
             sql.append(condition.getKey());
 
-            if (isNotWhere(condition.getVal())) {
+            if (condition.isNotWhere()) {
                 continue;
             }
             for(Object arg : condition.getVal()){
@@ -44,18 +49,6 @@ public class SqlConversion {
         return sqlBuilderModel;
     }
 
-    /**
-     * is it where
-     * @param val
-     * @return
-     */
-    private static boolean isNotWhere(Object[] val){
-        if(val.length == 1 && val[0].equals(Condition.NOT_WHERE)) {
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Build sql statements, handle placeholders
      *
@@ -74,34 +67,95 @@ public class SqlConversion {
             return sqlBuilderModel;
         }
 
-        Map<String, Object> jsonObject = JSONUtil.toMap(args);
+        SqlTemplate sqlTemplate = getSqlTemplate(sql);
 
-        List<Object> params = new ArrayList<>();
+        Map<String, Object> jsonObject = BeanMeta.toMap(args);
 
-        sql = formatMatcher(sql,params,jsonObject);
+        String[] paramNames = sqlTemplate.getParamNames();
+        Object[] params = new Object[paramNames.length];
+        for (int i = 0; i < paramNames.length; i++) {
+            params[i] = jsonObject.get(paramNames[i]);
+        }
 
-        sqlBuilderModel.setSql(sql);
-        sqlBuilderModel.setParams(params.toArray());
+        sqlBuilderModel.setSql(sqlTemplate.getSql());
+        sqlBuilderModel.setParams(params);
 
         return sqlBuilderModel;
     }
 
     /**
-     * Replace placeholders with question marks
+     * Get the parsed sql, each distinct sql is only parsed once while it stays in the cache
      * @param sql
-     * @param params
-     * @param jsonObject
      * @return
      */
-    private static String formatMatcher(String sql,List<Object> params, Map<String, Object> jsonObject){
-        Pattern pattern = Pattern.compile("(\\{((?!}).)*\\})");
-        Matcher matcher = pattern.matcher(sql);
-        while (matcher.find()) {
-            String matcherName = matcher.group();
-            sql = sql.replace(matcherName,"?");
-            String filedName = matcherName.replace("{","").replace("}","");
-            params.add(jsonObject.get(filedName));
+    public static SqlTemplate getSqlTemplate(String sql) {
+        SqlTemplate sqlTemplate = sqlTemplateCache.get(sql);
+        if (sqlTemplate == null) {
+            sqlTemplate = parseSqlTemplate(sql);
+            sqlTemplateCache.put(sql, sqlTemplate);
+        }
+        return sqlTemplate;
+    }
+
+    /**
+     * Get the cache of parsed sql, for reading its statistics
+     * @return
+     */
+    public static LRUCache<String, SqlTemplate> getSqlTemplateCache() {
+        return sqlTemplateCache;
+    }
+
+    /**
+     * Set the maximum number of parsed sql statements to keep
+     * @param size
+     */
+    public static void setSqlTemplateCacheSize(int size) {
+        sqlTemplateCache.setMaxSize(size);
+    }
+
+    /**
+     * Replace placeholders with question marks, in a single pass over the sql
+     * @param sql
+     * @return
+     */
+    private static SqlTemplate parseSqlTemplate(String sql) {
+        StringBuilder result = new StringBuilder(sql.length());
+        List<String> paramNames = new ArrayList<>();
+
+        int index = 0;
+        while (index < sql.length()) {
+            char c = sql.charAt(index);
+            if (c == '{') {
+                int end = findPlaceholderEnd(sql, index + 1);
+                if (end > 0) {
+                    result.append('?');
+                    paramNames.add(sql.substring(index + 1, end).replace("{", ""));
+                    index = end + 1;
+                    continue;
+                }
+            }
+            result.append(c);
+            index++;
+        }
+        return new SqlTemplate(result.toString(), paramNames.toArray(new String[0]));
+    }
+
+    /**
+     * Find the closing brace of a placeholder, placeholders do not span lines
+     * @param sql
+     * @param from
+     * @return index of the closing brace, -1 if there is none
+     */
+    private static int findPlaceholderEnd(String sql, int from) {
+        for (int i = from; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '}') {
+                return i;
+            }
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return -1;
+            }
         }
-        return sql;
+        return -1;
     }
 }
@@ -0,0 +1,152 @@
+package com.magician.jdbc.helper.templete.conversion;
+
+import java.util.*;
+
+/**
+ * Find the tables an sql statement reads or writes.
+ * It recognises the table names after from, join, into, update and table, including comma separated from lists,
+ * which is enough for cache invalidation, not a full sql parser
+ */
+public class SqlTableParser {
+
+    private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "from", "join", "into", "update", "table"
+    ));
+
+    /**
+     * Words that end a table reference, so that they are not taken for a table or an alias
+     */
+    private static final Set<String> RESERVED = new HashSet<>(Arrays.asList(
+            "select", "from", "where", "join", "left", "right", "inner", "outer", "cross", "full", "natural",
+            "on", "using", "set", "values", "value", "group", "order", "limit", "offset", "having", "union",
+            "as", "with", "for", "lateral", "only", "straight_join", "window", "returning", "default", "partition"
+    ));
+
+    /**
+     * Get the names of the tables in the sql, lower case and without schema or quotes
+     * @param sql
+     * @return
+     */
+    public static Set<String> parse(String sql) {
+        List<String> tokens = tokenize(sql);
+        Set<String> tables = new LinkedHashSet<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String keyword = tokens.get(i).toLowerCase(Locale.ROOT);
+            if (!TABLE_KEYWORDS.contains(keyword)) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size()) {
+                String token = tokens.get(j);
+                if (!isWord(token) || RESERVED.contains(token.toLowerCase(Locale.ROOT))) {
+                    // A subquery or the end of the reference
+                    break;
+                }
+                tables.add(normalize(token));
+                j++;
+
+                // Skip the alias
+                if (j < tokens.size() && tokens.get(j).equalsIgnoreCase("as")) {
+                    j += 2;
+                } else if (j < tokens.size() && isWord(tokens.get(j)) && !RESERVED.contains(tokens.get(j).toLowerCase(Locale.ROOT))) {
+                    j++;
+                }
+
+                if (keyword.equals("from") && j < tokens.size() && tokens.get(j).equals(",")) {
+                    j++;
+                    continue;
+                }
+                break;
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Split the sql into words and single punctuation characters, string literals and comments are left out
+     * @param sql
+     * @return
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (isWordChar(c)) {
+                int start = i;
+                while (i < length && isWordChar(sql.charAt(i))) {
+                    char current = sql.charAt(i);
+                    if (current == '`' || current == '"') {
+                        i = skipQuoted(sql, i, current);
+                    } else if (current == '[') {
+                        int end = sql.indexOf(']', i);
+                        i = end < 0 ? length : end + 1;
+                    } else {
+                        i++;
+                    }
+                }
+                tokens.add(sql.substring(start, i));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || c == '`' || c == '"' || c == '[';
+    }
+
+    private static boolean isWord(String token) {
+        return token.length() > 0 && isWordChar(token.charAt(0)) && !Character.isDigit(token.charAt(0));
+    }
+
+    /**
+     * Lower case the table name and remove the schema and the quotes
+     * @param name
+     * @return
+     */
+    public static String normalize(String name) {
+        String table = name;
+        int dot = table.lastIndexOf('.');
+        if (dot >= 0) {
+            table = table.substring(dot + 1);
+        }
+        StringBuilder stringBuilder = new StringBuilder(table.length());
+        for (int i = 0; i < table.length(); i++) {
+            char c = table.charAt(i);
+            if (c != '`' && c != '"' && c != '[' && c != ']') {
+                stringBuilder.append(c);
+            }
+        }
+        return stringBuilder.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -9,6 +9,11 @@ public class Condition {
 
     private Object[] val;
 
+    /**
+     * Whether the condition is only sql text without parameters, worked out once when the values are set
+     */
+    private boolean notWhere;
+
     public static final String NOT_WHERE = "6ca6d99a-2ca3-4734-921d-f3718bb7e179";
 
     public String getKey() {
@@ -25,6 +30,11 @@ public class Condition {
 
     public void setVal(Object[] val) {
         this.val = val;
+        this.notWhere = val != null && val.length == 1 && NOT_WHERE.equals(val[0]);
+    }
+
+    public boolean isNotWhere() {
+        return notWhere;
     }
 
     /**
@@ -0,0 +1,78 @@
+package com.magician.jdbc.helper.templete.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Keyset paging data return format
+ * @param <T>
+ */
+public class KeysetPageModel<T> implements Serializable {
+
+    private static final long serialVersionUID = 3170532771596432875L;
+
+    /**
+     * page size
+     */
+    private Integer pageSize;
+
+    /**
+     * Value of the sort key in the last row of this page, pass it as lastKey to get the next page
+     */
+    private Object lastKey;
+
+    /**
+     * Value of the tie key in the last row of this page, pass it as lastTieKey to get the next page
+     */
+    private Object lastTieKey;
+
+    /**
+     * Whether there are rows after this page
+     */
+    private boolean hasNext;
+
+    /**
+     * current page data
+     */
+    private List<T> dataList;
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public void setLastKey(Object lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public Object getLastTieKey() {
+        return lastTieKey;
+    }
+
+    public void setLastTieKey(Object lastTieKey) {
+        this.lastTieKey = lastTieKey;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public List<T> getDataList() {
+        return dataList;
+    }
+
+    public void setDataList(List<T> dataList) {
+        this.dataList = dataList;
+    }
+}
@@ -0,0 +1,147 @@
+package com.magician.jdbc.helper.templete.model;
+
+import com.magician.jdbc.helper.mapper.BeanMeta;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keyset paging query parameter format
+ */
+public class KeysetParamModel {
+
+    /**
+     * query parameters
+     */
+    private Map<String,Object> param;
+
+    /**
+     * Column the pages are sorted by, it must be a column of the query result.
+     * Its values must be unique unless a tieKey is set, rows sharing the last value of a page would be skipped
+     */
+    private String sortKey;
+
+    /**
+     * Unique column that orders the rows with the same sortKey, such as the primary key, null if sortKey is unique
+     */
+    private String tieKey;
+
+    /**
+     * Value of sortKey in the last row of the previous page, null for the first page
+     */
+    private Object lastKey;
+
+    /**
+     * Value of tieKey in the last row of the previous page
+     */
+    private Object lastTieKey;
+
+    /**
+     * page size
+     */
+    private int pageSize;
+
+    /**
+     * Sort in descending order
+     */
+    private boolean desc;
+
+    /**
+     * Create a keyset pagination parameter object
+     * @param sortKey
+     * @param lastKey
+     * @param pageSize
+     * @return
+     */
+    public static KeysetParamModel getKeysetParamModel(String sortKey, Object lastKey, Integer pageSize){
+        KeysetParamModel keysetParamModel = new KeysetParamModel();
+        keysetParamModel.setSortKey(sortKey);
+        keysetParamModel.setLastKey(lastKey);
+        keysetParamModel.setPageSize(pageSize);
+        return keysetParamModel;
+    }
+
+    /**
+     * Create a keyset pagination parameter object for a sortKey that is not unique
+     * @param sortKey
+     * @param tieKey
+     * @param lastKey
+     * @param lastTieKey
+     * @param pageSize
+     * @return
+     */
+    public static KeysetParamModel getKeysetParamModel(String sortKey, String tieKey, Object lastKey, Object lastTieKey, Integer pageSize){
+        KeysetParamModel keysetParamModel = getKeysetParamModel(sortKey, lastKey, pageSize);
+        keysetParamModel.setTieKey(tieKey);
+        keysetParamModel.setLastTieKey(lastTieKey);
+        return keysetParamModel;
+    }
+
+    public Map<String,Object> getParam() {
+        if(param == null){
+            param = new HashMap<>();
+        }
+        return param;
+    }
+
+    public KeysetParamModel setParam(Object param) {
+        if(param == null){
+            return this;
+        }
+        this.param = BeanMeta.toMap(param);
+        return this;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public KeysetParamModel setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+        return this;
+    }
+
+    public String getTieKey() {
+        return tieKey;
+    }
+
+    public KeysetParamModel setTieKey(String tieKey) {
+        this.tieKey = tieKey;
+        return this;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public KeysetParamModel setLastKey(Object lastKey) {
+        this.lastKey = lastKey;
+        return this;
+    }
+
+    public Object getLastTieKey() {
+        return lastTieKey;
+    }
+
+    public KeysetParamModel setLastTieKey(Object lastTieKey) {
+        this.lastTieKey = lastTieKey;
+        return this;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public KeysetParamModel setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public boolean isDesc() {
+        return desc;
+    }
+
+    public KeysetParamModel setDesc(boolean desc) {
+        this.desc = desc;
+        return this;
+    }
+}
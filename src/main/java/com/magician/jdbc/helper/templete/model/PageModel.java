@@ -31,6 +31,11 @@ public class PageModel<T> implements Serializable {
      */
     private Integer pageTotal;
 
+    /**
+     * true if pageCount was counted for this page, false if it was taken from the cache or not counted
+     */
+    private boolean totalExact;
+
     /**
      * current page data
      */
@@ -68,6 +73,14 @@ public class PageModel<T> implements Serializable {
         this.pageTotal = pageTotal;
     }
 
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public void setTotalExact(boolean totalExact) {
+        this.totalExact = totalExact;
+    }
+
     public List<T> getDataList() {
         return dataList;
     }
@@ -1,6 +1,7 @@
 package com.magician.jdbc.helper.templete.model;
 
-import com.magician.jdbc.core.util.JSONUtil;
+import com.magician.jdbc.core.constant.enums.CountStrategy;
+import com.magician.jdbc.helper.mapper.BeanMeta;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +25,16 @@ public class PageParamModel {
      */
     private int pageSize;
 
+    /**
+     * how to get the total, EXACT by default
+     */
+    private CountStrategy countStrategy = CountStrategy.EXACT;
+
+    /**
+     * milliseconds a cached total stays valid, used by CountStrategy.CACHED
+     */
+    private long countCacheTtl = 60000;
+
     /**
      * Create a pagination parameter object
      * @param page
@@ -48,7 +59,7 @@ public class PageParamModel {
         if(param == null){
             return this;
         }
-        this.param = JSONUtil.toMap(param);
+        this.param = BeanMeta.toMap(param);
         return this;
     }
 
@@ -69,4 +80,22 @@ public class PageParamModel {
         this.pageSize = pageSize;
         return this;
     }
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public PageParamModel setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy;
+        return this;
+    }
+
+    public long getCountCacheTtl() {
+        return countCacheTtl;
+    }
+
+    public PageParamModel setCountCacheTtl(long countCacheTtl) {
+        this.countCacheTtl = countCacheTtl;
+        return this;
+    }
 }
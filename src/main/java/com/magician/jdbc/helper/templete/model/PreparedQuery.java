@@ -0,0 +1,164 @@
+package com.magician.jdbc.helper.templete.model;
+
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+
+import java.util.List;
+
+/**
+ * A single table select, update or delete whose sql is built once from a table name and the shape of a ConditionBuilder.
+ * Each condition keeps its place in the sql and the number of its values, the values themselves are given on every execution,
+ * so build it once, keep it and only pass new values
+ */
+public class PreparedQuery {
+
+    private String sql;
+
+    private String tableName;
+
+    /**
+     * Number of ? in the sql
+     */
+    private int paramCount;
+
+    /**
+     * Number of parameters that come before the conditions, the set columns of an update
+     */
+    private int columnCount;
+
+    private PreparedQuery() {}
+
+    /**
+     * Build a select, for example
+     * PreparedQuery.select("user", ConditionBuilder.createCondition().add("id = ?", 0).add("and status = ?", 0))
+     * @param tableName
+     * @param conditionBuilder the values only count the parameters, use any placeholder value
+     * @return
+     */
+    public static PreparedQuery select(String tableName, ConditionBuilder conditionBuilder) {
+        return select(tableName, null, conditionBuilder);
+    }
+
+    /**
+     * Build a select of the given columns
+     * @param tableName
+     * @param columns null selects every column
+     * @param conditionBuilder the values only count the parameters, use any placeholder value
+     * @return
+     */
+    public static PreparedQuery select(String tableName, String[] columns, ConditionBuilder conditionBuilder) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("select ");
+        sql.append(columns == null || columns.length == 0 ? "*" : String.join(",", columns));
+        sql.append(" from ");
+        sql.append(tableName);
+        List<Condition> conditions = conditionBuilder.build();
+        if (conditions != null && conditions.size() > 0) {
+            sql.append(" where");
+        }
+        return build(sql, tableName, 0, conditions);
+    }
+
+    /**
+     * Build an update that sets the columns, the values of the columns come first when it is executed
+     * @param tableName
+     * @param columns
+     * @param conditionBuilder the values only count the parameters, use any placeholder value
+     * @return
+     * @throws Exception
+     */
+    public static PreparedQuery update(String tableName, String[] columns, ConditionBuilder conditionBuilder) throws Exception {
+        List<Condition> conditions = conditionBuilder.build();
+        if (conditions == null || conditions.size() < 1) {
+            throw new Exception("For the sake of safety, please write sql for unconditional modification operations.");
+        }
+        if (columns == null || columns.length < 1) {
+            throw new Exception("There are no columns to update");
+        }
+        StringBuilder sql = new StringBuilder();
+        sql.append("update ");
+        sql.append(tableName);
+        sql.append(" set ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(",");
+            }
+            sql.append(columns[i]);
+            sql.append(" = ?");
+        }
+        sql.append(" where");
+        return build(sql, tableName, columns.length, conditions);
+    }
+
+    /**
+     * Build a delete
+     * @param tableName
+     * @param conditionBuilder the values only count the parameters, use any placeholder value
+     * @return
+     * @throws Exception
+     */
+    public static PreparedQuery delete(String tableName, ConditionBuilder conditionBuilder) throws Exception {
+        List<Condition> conditions = conditionBuilder.build();
+        if (conditions == null || conditions.size() < 1) {
+            throw new Exception("For the sake of safety, please write sql for unconditional delete operations.");
+        }
+        StringBuilder sql = new StringBuilder();
+        sql.append("delete from ");
+        sql.append(tableName);
+        sql.append(" where");
+        return build(sql, tableName, 0, conditions);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getParamCount() {
+        return paramCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Check the values of one execution against the parameters of the sql
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    public Object[] bind(Object... params) throws Exception {
+        if (params == null) {
+            params = new Object[0];
+        }
+        if (params.length != paramCount) {
+            throw new Exception("The sql [" + sql + "] takes " + paramCount + " parameters, but " + params.length + " were given");
+        }
+        return params;
+    }
+
+    private static PreparedQuery build(StringBuilder sql, String tableName, int columnCount, List<Condition> conditions) {
+        int paramCount = columnCount;
+        if (conditions != null) {
+            for (Condition condition : conditions) {
+                if (condition.getVal() == null) {
+                    continue;
+                }
+                sql.append(" ");
+                sql.append(condition.getKey());
+                if (!condition.isNotWhere()) {
+                    paramCount += condition.getVal().length;
+                }
+            }
+        }
+        PreparedQuery preparedQuery = new PreparedQuery();
+        preparedQuery.sql = sql.toString();
+        preparedQuery.tableName = tableName;
+        preparedQuery.columnCount = columnCount;
+        preparedQuery.paramCount = paramCount;
+        return preparedQuery;
+    }
+}
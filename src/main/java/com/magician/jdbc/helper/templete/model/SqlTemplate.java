@@ -0,0 +1,30 @@
+package com.magician.jdbc.helper.templete.model;
+
+/**
+ * Parsed sql with {name} placeholders, the placeholders are replaced by question marks
+ */
+public class SqlTemplate {
+
+    /**
+     * sql with question marks
+     */
+    private String sql;
+
+    /**
+     * placeholder names, in the order of the question marks
+     */
+    private String[] paramNames;
+
+    public SqlTemplate(String sql, String[] paramNames) {
+        this.sql = sql;
+        this.paramNames = paramNames;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String[] getParamNames() {
+        return paramNames;
+    }
+}
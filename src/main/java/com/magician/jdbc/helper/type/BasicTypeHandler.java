@@ -0,0 +1,44 @@
+package com.magician.jdbc.helper.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A type handler assembled from a setter and a getter
+ * @param <T>
+ */
+public class BasicTypeHandler<T> implements TypeHandler<T> {
+
+    private Setter<T> setter;
+
+    private Getter<T> getter;
+
+    public BasicTypeHandler(Setter<T> setter, Getter<T> getter) {
+        this.setter = setter;
+        this.getter = getter;
+    }
+
+    @Override
+    public void setParameter(PreparedStatement preparedStatement, int index, T value) throws SQLException {
+        setter.set(preparedStatement, index, value);
+    }
+
+    @Override
+    public T getResult(ResultSet resultSet, int index) throws SQLException {
+        T value = getter.get(resultSet, index);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    @FunctionalInterface
+    public interface Setter<T> {
+
+        void set(PreparedStatement preparedStatement, int index, T value) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Getter<T> {
+
+        T get(ResultSet resultSet, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.magician.jdbc.helper.type;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * The handler of each parameter position of one sql.
+ * A position remembers the handler of the last value bound to it, so that the handler is only looked up again when the java type of the value changes.
+ * Null has no java type, it is bound with the sql type the driver reports for the position,
+ * so it is bound the same way whatever values other threads bound before
+ */
+public class BindPlan {
+
+    /**
+     * The driver does not report the sql type of the position, null is bound with setObject
+     */
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final Slot<?>[] slots;
+
+    /**
+     * The java.sql.Types code of each position, read from the ParameterMetaData the first time a null is bound
+     */
+    private volatile int[] nullTypes;
+
+    public BindPlan(int size) {
+        this.slots = new Slot<?>[size];
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Bind all parameters
+     * @param preparedStatement
+     * @param params
+     * @throws SQLException
+     */
+    public void bind(PreparedStatement preparedStatement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object value = params[i];
+            if (value == null) {
+                bindNull(preparedStatement, i);
+                continue;
+            }
+            Slot<?> slot = slots[i];
+            if (slot == null || slot.type != value.getClass()) {
+                slot = new Slot<>(value.getClass());
+                slots[i] = slot;
+            }
+            slot.bind(preparedStatement, i + 1, value);
+        }
+    }
+
+    private void bindNull(PreparedStatement preparedStatement, int i) throws SQLException {
+        int[] types = nullTypes;
+        if (types == null) {
+            types = readNullTypes(preparedStatement);
+            nullTypes = types;
+        }
+        if (types[i] == UNKNOWN) {
+            preparedStatement.setObject(i + 1, null);
+        } else {
+            preparedStatement.setNull(i + 1, types[i]);
+        }
+    }
+
+    /**
+     * Read the sql type of each position, the sql is the same on every execution so they are read once
+     * @param preparedStatement
+     * @return UNKNOWN for the positions the driver does not report
+     */
+    private int[] readNullTypes(PreparedStatement preparedStatement) {
+        int[] types = new int[slots.length];
+        Arrays.fill(types, UNKNOWN);
+        try {
+            ParameterMetaData parameterMetaData = preparedStatement.getParameterMetaData();
+            if (parameterMetaData == null || parameterMetaData.getParameterCount() != slots.length) {
+                return types;
+            }
+            for (int i = 0; i < types.length; i++) {
+                int type = parameterMetaData.getParameterType(i + 1);
+                if (type != Types.NULL && type != Types.OTHER && type != Types.JAVA_OBJECT) {
+                    types[i] = type;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Not supported by the driver, let it decide as before
+        }
+        return types;
+    }
+
+    /**
+     * Java type and handler are replaced together, so that a position is never read half updated
+     */
+    private static final class Slot<T> {
+
+        private final Class<T> type;
+
+        private final TypeHandler<T> typeHandler;
+
+        private Slot(Class<T> type) {
+            this.type = type;
+            this.typeHandler = TypeHandlerManager.getHandler(type);
+        }
+
+        private void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+            typeHandler.setParameter(preparedStatement, index, type.cast(value));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.magician.jdbc.helper.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Store an enum as its name, the default for enums without a registered handler
+ * @param <E>
+ */
+public class EnumTypeHandler<E extends Enum<E>> implements TypeHandler<E> {
+
+    private Class<E> type;
+
+    public EnumTypeHandler(Class<E> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void setParameter(PreparedStatement preparedStatement, int index, E value) throws SQLException {
+        preparedStatement.setString(index, value.name());
+    }
+
+    @Override
+    public E getResult(ResultSet resultSet, int index) throws SQLException {
+        String value = resultSet.getString(index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("No enum constant " + type.getName() + "." + value);
+        }
+    }
+}
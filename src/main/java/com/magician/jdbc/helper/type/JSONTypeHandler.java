@@ -0,0 +1,34 @@
+package com.magician.jdbc.helper.type;
+
+import com.magician.jdbc.core.util.JSONUtil;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Store an object as JSON text in a character column, register it for the classes kept in JSON columns
+ * @param <T>
+ */
+public class JSONTypeHandler<T> implements TypeHandler<T> {
+
+    private Class<T> type;
+
+    public JSONTypeHandler(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void setParameter(PreparedStatement preparedStatement, int index, T value) throws SQLException {
+        preparedStatement.setString(index, JSONUtil.toJSONString(value));
+    }
+
+    @Override
+    public T getResult(ResultSet resultSet, int index) throws SQLException {
+        String value = resultSet.getString(index);
+        if (value == null) {
+            return null;
+        }
+        return JSONUtil.toJavaObject(value, type);
+    }
+}
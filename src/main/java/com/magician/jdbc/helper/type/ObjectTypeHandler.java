@@ -0,0 +1,23 @@
+package com.magician.jdbc.helper.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Leave the conversion to the driver, used for types that have no handler
+ */
+public class ObjectTypeHandler implements TypeHandler<Object> {
+
+    public static final ObjectTypeHandler INSTANCE = new ObjectTypeHandler();
+
+    @Override
+    public void setParameter(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+        preparedStatement.setObject(index, value);
+    }
+
+    @Override
+    public Object getResult(ResultSet resultSet, int index) throws SQLException {
+        return resultSet.getObject(index);
+    }
+}
@@ -0,0 +1,30 @@
+package com.magician.jdbc.helper.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Bind a java type as a sql parameter and read it back from a column, with the JDBC methods specific to the type
+ * @param <T>
+ */
+public interface TypeHandler<T> {
+
+    /**
+     * Bind a value that is not null
+     * @param preparedStatement
+     * @param index starting from 1
+     * @param value
+     * @throws SQLException
+     */
+    void setParameter(PreparedStatement preparedStatement, int index, T value) throws SQLException;
+
+    /**
+     * Read the column, returns null for SQL NULL
+     * @param resultSet
+     * @param index starting from 1
+     * @return
+     * @throws SQLException
+     */
+    T getResult(ResultSet resultSet, int index) throws SQLException;
+}
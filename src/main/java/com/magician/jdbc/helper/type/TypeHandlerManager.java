@@ -0,0 +1,210 @@
+package com.magician.jdbc.helper.type;
+
+import com.magician.jdbc.core.util.LRUCache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type handlers by java type, and the bind plan of each sql
+ */
+public class TypeHandlerManager {
+
+    /**
+     * Handlers that were registered, built in or by the user
+     */
+    private static Map<Class<?>, TypeHandler<?>> handlerMap = new ConcurrentHashMap<>();
+
+    /**
+     * Handlers that were registered by the user
+     */
+    private static Map<Class<?>, TypeHandler<?>> userHandlerMap = new ConcurrentHashMap<>();
+
+    /**
+     * Handler found for each java type, including the ones inherited from a superclass or an interface
+     */
+    private static Map<Class<?>, TypeHandler<?>> resolvedMap = new ConcurrentHashMap<>();
+
+    /**
+     * User handler found for each java type, empty if neither the type nor its supertypes have one
+     */
+    private static Map<Class<?>, Optional<TypeHandler<?>>> resolvedUserMap = new ConcurrentHashMap<>();
+
+    private static LRUCache<String, BindPlan> bindPlanCache = new LRUCache<>(1024);
+
+    static {
+        builtIn(String.class, PreparedStatement::setString, (rs, i) -> rs.getString(i));
+        builtIn(Long.class, PreparedStatement::setLong, (rs, i) -> rs.getLong(i));
+        builtIn(Integer.class, PreparedStatement::setInt, (rs, i) -> rs.getInt(i));
+        builtIn(Short.class, PreparedStatement::setShort, (rs, i) -> rs.getShort(i));
+        builtIn(Byte.class, PreparedStatement::setByte, (rs, i) -> rs.getByte(i));
+        builtIn(Double.class, PreparedStatement::setDouble, (rs, i) -> rs.getDouble(i));
+        builtIn(Float.class, PreparedStatement::setFloat, (rs, i) -> rs.getFloat(i));
+        builtIn(Boolean.class, PreparedStatement::setBoolean, (rs, i) -> rs.getBoolean(i));
+        builtIn(Character.class, (ps, i, v) -> ps.setString(i, v.toString()), (rs, i) -> {
+            String value = rs.getString(i);
+            return value == null || value.isEmpty() ? null : value.charAt(0);
+        });
+        builtIn(BigDecimal.class, PreparedStatement::setBigDecimal, (rs, i) -> rs.getBigDecimal(i));
+        builtIn(BigInteger.class, (ps, i, v) -> ps.setBigDecimal(i, new BigDecimal(v)), (rs, i) -> {
+            BigDecimal value = rs.getBigDecimal(i);
+            return value == null ? null : value.toBigInteger();
+        });
+        builtIn(byte[].class, PreparedStatement::setBytes, (rs, i) -> rs.getBytes(i));
+        builtIn(Timestamp.class, PreparedStatement::setTimestamp, (rs, i) -> rs.getTimestamp(i));
+        builtIn(java.sql.Date.class, PreparedStatement::setDate, (rs, i) -> rs.getDate(i));
+        builtIn(Time.class, PreparedStatement::setTime, (rs, i) -> rs.getTime(i));
+        builtIn(Date.class, (ps, i, v) -> ps.setTimestamp(i, new Timestamp(v.getTime())), (rs, i) -> {
+            Timestamp value = rs.getTimestamp(i);
+            return value == null ? null : new Date(value.getTime());
+        });
+        builtIn(LocalDateTime.class, PreparedStatement::setObject, (rs, i) -> rs.getObject(i, LocalDateTime.class));
+        builtIn(LocalDate.class, PreparedStatement::setObject, (rs, i) -> rs.getObject(i, LocalDate.class));
+        builtIn(LocalTime.class, PreparedStatement::setObject, (rs, i) -> rs.getObject(i, LocalTime.class));
+    }
+
+    /**
+     * Register a handler for a java type, it replaces the built-in one and is also used for subclasses
+     * @param cls
+     * @param typeHandler
+     * @param <T>
+     */
+    public static synchronized <T> void register(Class<T> cls, TypeHandler<T> typeHandler) {
+        handlerMap.put(cls, typeHandler);
+        userHandlerMap.put(cls, typeHandler);
+        resolvedMap.clear();
+        resolvedUserMap.clear();
+        bindPlanCache.clear();
+    }
+
+    /**
+     * Get the handler the user registered for this type, or for its nearest superclass or interface as getHandler does
+     * @param cls
+     * @param <T>
+     * @return null if there is none
+     */
+    public static <T> TypeHandler<T> getUserHandler(Class<T> cls) {
+        Optional<TypeHandler<?>> typeHandler = resolvedUserMap.get(cls);
+        if (typeHandler == null) {
+            typeHandler = resolvedUserMap.computeIfAbsent(cls, key -> Optional.ofNullable(find(userHandlerMap, key)));
+        }
+        // Handlers are kept under the type they handle, or a subclass of it
+        @SuppressWarnings("unchecked")
+        TypeHandler<T> typed = (TypeHandler<T>) typeHandler.orElse(null);
+        return typed;
+    }
+
+    /**
+     * Get the handler of a java type, the handler of the nearest superclass or interface is used if the type has none,
+     * enums are stored by name and other types are left to the driver
+     * @param cls
+     * @param <T>
+     * @return
+     */
+    public static <T> TypeHandler<T> getHandler(Class<T> cls) {
+        TypeHandler<?> typeHandler = resolvedMap.get(cls);
+        if (typeHandler == null) {
+            typeHandler = resolvedMap.computeIfAbsent(cls, TypeHandlerManager::resolve);
+        }
+        // Handlers are kept under the type they handle, or a subclass of it
+        @SuppressWarnings("unchecked")
+        TypeHandler<T> typed = (TypeHandler<T>) typeHandler;
+        return typed;
+    }
+
+    /**
+     * Get the bind plan of the sql, created on first use and shared by every execution of the sql
+     * @param sql
+     * @param paramCount
+     * @return
+     */
+    public static BindPlan getBindPlan(String sql, int paramCount) {
+        BindPlan bindPlan = bindPlanCache.get(sql);
+        if (bindPlan == null || bindPlan.size() != paramCount) {
+            bindPlan = new BindPlan(paramCount);
+            bindPlanCache.put(sql, bindPlan);
+        }
+        return bindPlan;
+    }
+
+    /**
+     * Bind the parameters of the sql
+     * @param preparedStatement
+     * @param sql
+     * @param params
+     * @throws SQLException
+     */
+    public static void bind(PreparedStatement preparedStatement, String sql, Object[] params) throws SQLException {
+        if (params == null || params.length == 0) {
+            return;
+        }
+        getBindPlan(sql, params.length).bind(preparedStatement, params);
+    }
+
+    /**
+     * Set the maximum number of bind plans to keep, the default is 1024
+     * @param size
+     */
+    public static void setBindPlanCacheSize(int size) {
+        bindPlanCache.setMaxSize(size);
+    }
+
+    private static <T> void builtIn(Class<T> cls, BasicTypeHandler.Setter<T> setter, BasicTypeHandler.Getter<T> getter) {
+        handlerMap.put(cls, new BasicTypeHandler<>(setter, getter));
+    }
+
+    /**
+     * Find the handler of the type or of its nearest superclass or interface
+     * @param map
+     * @param cls
+     * @return null if there is none
+     */
+    private static TypeHandler<?> find(Map<Class<?>, TypeHandler<?>> map, Class<?> cls) {
+        for (Class<?> current = cls; current != null; current = current.getSuperclass()) {
+            TypeHandler<?> typeHandler = map.get(current);
+            if (typeHandler != null) {
+                return typeHandler;
+            }
+            if (current == Enum.class) {
+                break;
+            }
+            for (Class<?> face : current.getInterfaces()) {
+                typeHandler = map.get(face);
+                if (typeHandler != null) {
+                    return typeHandler;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static TypeHandler<?> resolve(Class<?> cls) {
+        TypeHandler<?> typeHandler = find(handlerMap, cls);
+        if (typeHandler != null) {
+            return typeHandler;
+        }
+        if (Enum.class.isAssignableFrom(cls)) {
+            // Constants with a body are subclasses of the enum
+            Class<?> enumClass = cls.isEnum() ? cls : cls.getSuperclass();
+            return enumHandler(enumClass);
+        }
+        return ObjectTypeHandler.INSTANCE;
+    }
+
+    private static <E extends Enum<E>> EnumTypeHandler<E> enumHandler(Class<?> enumClass) {
+        @SuppressWarnings("unchecked")
+        Class<E> type = (Class<E>) enumClass;
+        return new EnumTypeHandler<>(type);
+    }
+}
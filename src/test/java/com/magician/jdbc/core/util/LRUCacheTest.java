@@ -0,0 +1,127 @@
+package com.magician.jdbc.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LRUCacheTest {
+
+    @Test
+    public void leastRecentlyReadEntryIsEvicted() {
+        List<String> evicted = new ArrayList<>();
+        LRUCache<String, String> cache = new LRUCache<>(3, evicted::add);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+
+        cache.put("d", "D");
+
+        assertEquals(List.of("B"), evicted);
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals("D", cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void fullCacheEvictsTheOldestEighth() {
+        List<Integer> evicted = new ArrayList<>();
+        LRUCache<Integer, Integer> cache = new LRUCache<>(16, evicted::add);
+        for (int i = 0; i < 16; i++) {
+            cache.put(i, i);
+        }
+        cache.get(0);
+        cache.get(1);
+
+        cache.put(16, 16);
+
+        assertEquals(List.of(2, 3), evicted);
+        assertEquals(15, cache.size());
+    }
+
+    @Test
+    public void replacedAndClearedValuesAreReported() {
+        List<String> evicted = new ArrayList<>();
+        LRUCache<String, String> cache = new LRUCache<>(4, evicted::add);
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        assertEquals(List.of("A"), evicted);
+
+        cache.put("b", "B");
+        List<String> cleared = cache.clear();
+        assertEquals(2, cleared.size());
+        assertTrue(cleared.containsAll(List.of("A2", "B")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shrinkingEvictsDownToTheNewSize() {
+        List<Integer> evicted = new ArrayList<>();
+        LRUCache<Integer, Integer> cache = new LRUCache<>(8, evicted::add);
+        for (int i = 0; i < 8; i++) {
+            cache.put(i, i);
+        }
+
+        cache.setMaxSize(2);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), evicted);
+        assertEquals(2, cache.size());
+
+        cache.setMaxSize(0);
+        cache.put(9, 9);
+        assertEquals(0, cache.size());
+        assertEquals(9, evicted.get(evicted.size() - 1));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        LRUCache<String, String> cache = new LRUCache<>(4);
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void concurrentReadersAndWritersStayBounded() throws Exception {
+        LRUCache<Integer, Integer> cache = new LRUCache<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 256;
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, value);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+    }
+}
@@ -0,0 +1,215 @@
+package com.magician.jdbc.helper.cache;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    private static final String DATA_SOURCE = "resultCacheTest";
+
+    public static class Item {
+
+        private long id;
+
+        private String name;
+
+        private Date created;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Date getCreated() {
+            return created;
+        }
+
+        public void setCreated(Date created) {
+            this.created = created;
+        }
+    }
+
+    public record ItemRecord(long id, String name) {
+    }
+
+    public static class NoDefault {
+
+        private final long id;
+
+        public NoDefault(long id) {
+            this.id = id;
+        }
+    }
+
+    @BeforeAll
+    public static void addDataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:resultCacheTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource).resultCache(DATA_SOURCE, 60000);
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        ResultCache.setTtl(DATA_SOURCE, 0);
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    @BeforeEach
+    public void createTables() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("drop table if exists item");
+        jdbcTemplate.exec("drop table if exists other");
+        jdbcTemplate.exec("create table item (id bigint primary key, name varchar(20), created timestamp)");
+        jdbcTemplate.exec("create table other (id bigint primary key)");
+        jdbcTemplate.exec("insert into item (id, name, created) values (1, 'a', current_timestamp), (2, 'b', current_timestamp)");
+        ResultCache.clear();
+    }
+
+    private static List<Item> items() throws Exception {
+        return JDBCTemplate.get(DATA_SOURCE).selectList("select * from item order by id", Item.class);
+    }
+
+    private static String firstName() throws Exception {
+        return items().get(0).getName();
+    }
+
+    private static Map<String, Object> id(long id) {
+        Map<String, Object> param = new HashMap<>();
+        param.put("id", id);
+        return param;
+    }
+
+    @Test
+    public void changingReturnedBeansDoesNotChangeTheCache() throws Exception {
+        List<Item> first = items();
+        long hits = ResultCache.getHitCount();
+
+        first.get(0).setName("changed");
+        first.get(0).getCreated().setTime(0);
+        first.clear();
+        List<Item> second = items();
+        second.get(1).setName("changed too");
+        List<Item> third = items();
+
+        assertEquals(hits + 2, ResultCache.getHitCount());
+        assertEquals(2, third.size());
+        assertEquals("a", third.get(0).getName());
+        assertEquals("b", third.get(1).getName());
+        assertNotEquals(0, third.get(0).getCreated().getTime());
+        assertNotSame(second.get(0), third.get(0));
+    }
+
+    @Test
+    public void recordsAreShared() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        List<ItemRecord> first = jdbcTemplate.selectList("select id, name from item order by id", ItemRecord.class);
+        List<ItemRecord> second = jdbcTemplate.selectList("select id, name from item order by id", ItemRecord.class);
+
+        assertNotSame(first, second);
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    public void classesThatCanNotBeCopiedAreNotCached() {
+        assertNull(RowCopier.get(NoDefault.class));
+        assertNotNull(RowCopier.get(Item.class));
+        assertNull(RowCopier.copy(List.of(new NoDefault(1))));
+    }
+
+    @Test
+    public void writeDropsTheResultsOfItsTableOnly() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        assertEquals("a", firstName());
+
+        long misses = ResultCache.getMissCount();
+        jdbcTemplate.exec("insert into other (id) values (1)");
+        assertEquals("a", firstName());
+        assertEquals(misses, ResultCache.getMissCount());
+
+        jdbcTemplate.exec("update item set name = 'x' where id = {id}", id(1));
+        assertEquals("x", firstName());
+        assertEquals(misses + 1, ResultCache.getMissCount());
+    }
+
+    @Test
+    public void resultExpiresAfterItsTtl() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE).cache(50);
+        String sql = "select * from item where id = {id}";
+        jdbcTemplate.selectList(sql, id(1), Item.class);
+        long misses = ResultCache.getMissCount();
+
+        jdbcTemplate.selectList(sql, id(1), Item.class);
+        assertEquals(misses, ResultCache.getMissCount());
+
+        Thread.sleep(100);
+        jdbcTemplate.selectList(sql, id(1), Item.class);
+        assertEquals(misses + 1, ResultCache.getMissCount());
+    }
+
+    @Test
+    public void commitDropsResultsCachedDuringTheTransaction() throws Exception {
+        assertEquals("a", firstName());
+
+        TransactionManager.beginTraction(DATA_SOURCE);
+        try {
+            JDBCTemplate.get(DATA_SOURCE).exec("update item set name = 'x' where id = {id}", id(1));
+            // Another thread caches the committed row while the transaction is open
+            assertEquals("a", CompletableFuture.supplyAsync(ResultCacheTest::firstNameUnchecked).get());
+            assertEquals("a", CompletableFuture.supplyAsync(ResultCacheTest::firstNameUnchecked).get());
+            TransactionManager.commit();
+        } catch (Exception e) {
+            TransactionManager.rollback();
+            throw e;
+        }
+
+        assertEquals("x", firstName());
+    }
+
+    @Test
+    public void rollbackDropsResultsCachedDuringTheTransaction() throws Exception {
+        assertEquals("a", firstName());
+
+        TransactionManager.beginTraction(DATA_SOURCE);
+        JDBCTemplate.get(DATA_SOURCE).exec("update item set name = 'x' where id = {id}", id(1));
+        assertEquals("a", CompletableFuture.supplyAsync(ResultCacheTest::firstNameUnchecked).get());
+        TransactionManager.rollback();
+
+        long misses = ResultCache.getMissCount();
+        assertEquals("a", firstName());
+        assertEquals(misses + 1, ResultCache.getMissCount());
+    }
+
+    private static String firstNameUnchecked() {
+        try {
+            return firstName();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
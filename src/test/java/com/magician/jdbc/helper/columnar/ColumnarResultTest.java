@@ -0,0 +1,118 @@
+package com.magician.jdbc.helper.columnar;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarResultTest {
+
+    /**
+     * More than two words of the null bitmap
+     */
+    private static final int ROWS = 200;
+
+    private static ColumnarResult query(String sql) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:columnarTest");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return ColumnarResult.read(resultSet);
+        }
+    }
+
+    private static boolean nullRow(int row) {
+        // Rows 63, 64, 127 and 128 sit on both sides of word boundaries
+        return row % 7 == 0 || row == 63 || row == 64 || row == 127 || row == 128;
+    }
+
+    @Test
+    public void nullBitmapMarksExactlyTheNullRows() throws Exception {
+        String nullCondition = "mod(x - 1, 7) = 0 or x - 1 in (63, 64, 127, 128)";
+        ColumnarResult result = query("select x - 1 as id,"
+                + " case when " + nullCondition + " then null else cast(x as int) end as i,"
+                + " case when " + nullCondition + " then null else x * 1000000000 end as l,"
+                + " case when " + nullCondition + " then null else cast(x as double) / 2 end as d,"
+                + " case when " + nullCondition + " then null else 'v' || mod(x, 3) end as s"
+                + " from system_range(1, " + ROWS + ")");
+
+        assertEquals(ROWS, result.getRowCount());
+        LongColumn id = result.getLongColumn("id");
+        IntColumn i = result.getIntColumn("I");
+        LongColumn l = result.getLongColumn("l");
+        DoubleColumn d = result.getDoubleColumn("d");
+        StringColumn s = result.getStringColumn("s");
+
+        assertFalse(id.hasNull());
+        for (Column column : new Column[]{i, l, d, s}) {
+            assertTrue(column.hasNull(), column.getName());
+            assertEquals(ROWS, column.getRowCount());
+        }
+        for (int row = 0; row < ROWS; row++) {
+            long x = row + 1;
+            assertFalse(id.isNull(row));
+            assertEquals(row, id.getLong(row));
+            if (nullRow(row)) {
+                assertTrue(i.isNull(row), "row " + row);
+                assertTrue(l.isNull(row), "row " + row);
+                assertTrue(d.isNull(row), "row " + row);
+                assertTrue(s.isNull(row), "row " + row);
+                assertNull(i.getObject(row));
+                assertNull(s.getString(row));
+                assertEquals(-1, s.getCode(row));
+                assertEquals(0, i.getInt(row));
+            } else {
+                assertFalse(i.isNull(row), "row " + row);
+                assertFalse(l.isNull(row), "row " + row);
+                assertFalse(d.isNull(row), "row " + row);
+                assertFalse(s.isNull(row), "row " + row);
+                assertEquals((int) x, i.getInt(row));
+                assertEquals(x * 1000000000L, l.getLong(row));
+                assertEquals(x / 2.0, d.getDouble(row));
+                assertEquals("v" + (x % 3), s.getString(row));
+            }
+        }
+        assertEquals(ROWS, i.getValues().length);
+        assertEquals(3, s.getDictionary().size());
+    }
+
+    @Test
+    public void columnWithoutNullHasNoBitmap() throws Exception {
+        ColumnarResult result = query("select cast(x as int) as i from system_range(1, 10)");
+
+        IntColumn i = result.getIntColumn("i");
+        assertFalse(i.hasNull());
+        assertFalse(i.isNull(0));
+        assertFalse(i.isNull(9));
+        assertFalse(i.isNull(1000));
+    }
+
+    @Test
+    public void emptyResultHasEmptyColumns() throws Exception {
+        ColumnarResult result = query("select cast(x as int) as i, 'a' as s from system_range(1, 0)");
+
+        assertEquals(0, result.getRowCount());
+        assertEquals(2, result.getColumnCount());
+        assertEquals(0, result.getIntColumn("i").getValues().length);
+        assertFalse(result.getIntColumn("i").isNull(0));
+    }
+
+    @Test
+    public void columnTypesFollowTheSqlTypes() throws Exception {
+        ColumnarResult result = query("select cast(1.5 as decimal(10, 2)) as dec, cast(7 as decimal(10, 0)) as whole, cast(1 as smallint) as small");
+
+        assertInstanceOf(ObjectColumn.class, result.getColumn("dec"));
+        assertEquals(new BigDecimal("1.50"), result.getColumn("dec").getObject(0));
+        assertInstanceOf(LongColumn.class, result.getColumn("whole"));
+        assertInstanceOf(IntColumn.class, result.getColumn("small"));
+        assertThrows(Exception.class, () -> result.getIntColumn("dec"));
+        assertThrows(Exception.class, () -> result.getIntColumn("missing"));
+        assertNull(result.getColumn("missing"));
+    }
+}
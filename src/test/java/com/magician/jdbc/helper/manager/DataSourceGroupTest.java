@@ -0,0 +1,169 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.core.constant.enums.LoadBalanceStrategy;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourceGroupTest {
+
+    private static final AtomicInteger groupNumber = new AtomicInteger();
+
+    private String name;
+
+    /**
+     * An H2 database whose table origin holds its own name, so that a query tells which database answered it
+     */
+    private static DataSource database(String name) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table origin (name varchar(20))");
+            statement.execute("insert into origin (name) values ('" + name + "')");
+        }
+        return dataSource;
+    }
+
+    /**
+     * A replica that refuses connections while down is set
+     */
+    private static DataSource failing(DataSource dataSource, AtomicBoolean down, AtomicInteger attempts) {
+        return (DataSource) Proxy.newProxyInstance(DataSourceGroupTest.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        attempts.incrementAndGet();
+                        if (down.get()) {
+                            throw new SQLException("Replica is down");
+                        }
+                    }
+                    try {
+                        return method.invoke(dataSource, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private JDBCTemplate group(LoadBalanceStrategy loadBalanceStrategy, DataSource... replicas) throws Exception {
+        name = "group" + groupNumber.incrementAndGet();
+        MagicianJDBC.createJDBC().addDataSourceGroup(name, loadBalanceStrategy, database(name + "primary"), replicas);
+        return JDBCTemplate.get(name);
+    }
+
+    private static String origin(JDBCTemplate jdbcTemplate) throws Exception {
+        return jdbcTemplate.selectOne("select name from origin", String.class);
+    }
+
+    @AfterEach
+    public void removeGroup() {
+        DataSourceManager.removeDataSource(name);
+    }
+
+    @Test
+    public void readsTakeTheReplicasInTurnAndWritesThePrimary() throws Exception {
+        String prefix = "roundRobin" + groupNumber.get();
+        JDBCTemplate jdbcTemplate = group(LoadBalanceStrategy.ROUND_ROBIN, database(prefix + "a"), database(prefix + "b"));
+
+        List<String> origins = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            origins.add(origin(jdbcTemplate));
+        }
+        assertEquals(origins.get(0), origins.get(2));
+        assertEquals(origins.get(1), origins.get(3));
+        assertEquals(Set.of(prefix + "a", prefix + "b"), new TreeSet<>(origins));
+
+        jdbcTemplate.exec("update origin set name = 'written'");
+        assertEquals("written", origin(jdbcTemplate.primary()));
+        assertEquals(Set.of(prefix + "a", prefix + "b"), Set.of(origin(jdbcTemplate), origin(jdbcTemplate)));
+    }
+
+    @Test
+    public void transactionsReadFromThePrimary() throws Exception {
+        String replica = "transactionReplica" + groupNumber.get();
+        JDBCTemplate jdbcTemplate = group(LoadBalanceStrategy.ROUND_ROBIN, database(replica));
+
+        TransactionManager.beginTraction(name);
+        try {
+            assertEquals(name + "primary", origin(jdbcTemplate));
+        } finally {
+            TransactionManager.rollback();
+        }
+        assertEquals(replica, origin(jdbcTemplate));
+    }
+
+    @Test
+    public void failingReplicaIsSkippedThenEjectedAndTriedAgainLater() throws Exception {
+        String prefix = "ejection" + groupNumber.get();
+        AtomicBoolean down = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+        JDBCTemplate jdbcTemplate = group(LoadBalanceStrategy.ROUND_ROBIN,
+                failing(database(prefix + "a"), down, attempts), database(prefix + "b"));
+        MagicianJDBC.createJDBC().replicaEjection(name, 2, 200);
+        DataSourceNode failingNode = DataSourceManager.getDataSourceGroup(name).getReplicas().get(0);
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(prefix + "b", origin(jdbcTemplate));
+        }
+        assertFalse(failingNode.isAvailable());
+        assertEquals(2, attempts.get());
+
+        down.set(false);
+        Thread.sleep(300);
+        assertTrue(failingNode.isAvailable());
+        Set<String> origins = new TreeSet<>();
+        for (int i = 0; i < 4; i++) {
+            origins.add(origin(jdbcTemplate));
+        }
+        assertEquals(Set.of(prefix + "a", prefix + "b"), origins);
+    }
+
+    @Test
+    public void primaryAnswersWhenNoReplicaCan() throws Exception {
+        AtomicBoolean down = new AtomicBoolean(true);
+        JDBCTemplate jdbcTemplate = group(LoadBalanceStrategy.ROUND_ROBIN,
+                failing(database("downReplica" + groupNumber.get()), down, new AtomicInteger()));
+
+        assertEquals(name + "primary", origin(jdbcTemplate));
+    }
+
+    @Test
+    public void leastInFlightAvoidsTheBusyReplica() throws Exception {
+        String prefix = "leastInFlight" + groupNumber.get();
+        group(LoadBalanceStrategy.LEAST_IN_FLIGHT, database(prefix + "a"), database(prefix + "b"));
+        DataSourceGroup dataSourceGroup = DataSourceManager.getDataSourceGroup(name);
+
+        ConnectionManager busy = new ConnectionManager();
+        dataSourceGroup.getReadConnection(busy);
+        DataSourceNode busyNode = busy.getNode();
+        try {
+            for (int i = 0; i < 4; i++) {
+                ConnectionManager read = new ConnectionManager();
+                dataSourceGroup.getReadConnection(read);
+                assertNotSame(busyNode, read.getNode());
+                assertEquals(1, read.getNode().getInFlight());
+                read.close();
+            }
+        } finally {
+            busy.close();
+        }
+        assertEquals(0, busyNode.getInFlight());
+    }
+}
@@ -0,0 +1,222 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.core.constant.enums.LoadBalanceStrategy;
+import com.magician.jdbc.helper.pool.PoolConfig;
+import com.magician.jdbc.helper.pool.PooledDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourceManagerTest {
+
+    private static final AtomicInteger databaseNumber = new AtomicInteger();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final List<PooledDataSource> pools = new ArrayList<>();
+
+    private String name() {
+        String name = "manager" + databaseNumber.incrementAndGet();
+        names.add(name);
+        return name;
+    }
+
+    private JdbcDataSource h2() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:manager" + databaseNumber.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private PooledDataSource pool() {
+        PooledDataSource pool = new PooledDataSource(h2(), new PoolConfig().setMaxPoolSize(2).setMinIdle(0));
+        pools.add(pool);
+        return pool;
+    }
+
+    private ConnectionManager connect(String name) throws Exception {
+        ConnectionManager connectionManager = new ConnectionManager();
+        DataSourceManager.getConnection(name, connectionManager);
+        return connectionManager;
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        for (String name : names) {
+            DataSourceManager.removeDataSource(name);
+        }
+        for (PooledDataSource pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void replacedPoolIsClosedAfterItsLastConnection() throws Exception {
+        String name = name();
+        PooledDataSource oldPool = pool();
+        PooledDataSource newPool = pool();
+        DataSourceManager.addDataSource(name, oldPool);
+
+        ConnectionManager inUse = connect(name);
+        DataSourceManager.addDataSource(name, newPool);
+
+        assertFalse(oldPool.isClosed());
+        assertFalse(inUse.getConnection().isClosed());
+        ConnectionManager next = connect(name);
+        assertSame(newPool, next.getNode().getDataSource());
+        next.close();
+
+        inUse.close();
+        assertTrue(oldPool.isClosed());
+        assertFalse(newPool.isClosed());
+    }
+
+    @Test
+    public void swappingWhileQueriesRunDrainsEveryOldPool() throws Exception {
+        String name = name();
+        DataSourceManager.addDataSource(name, pool());
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        ConnectionManager connectionManager = connect(name);
+                        try (Statement statement = connectionManager.getConnection().createStatement()) {
+                            statement.execute("select 1");
+                        } finally {
+                            connectionManager.close();
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 0; i < 20; i++) {
+            DataSourceManager.addDataSource(name, pool());
+            Thread.sleep(10);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(List.of(), errors);
+        PooledDataSource current = pools.get(pools.size() - 1);
+        for (PooledDataSource pool : pools) {
+            assertEquals(pool != current, pool.isClosed());
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    public void addingTheSamePoolAgainKeepsIt() throws Exception {
+        String name = name();
+        PooledDataSource pool = pool();
+        DataSourceManager.addDataSource(name, pool);
+        DataSourceNode node = DataSourceManager.getDataSourceNode(name);
+
+        ConnectionManager inUse = connect(name);
+        DataSourceManager.addDataSource(name, pool);
+        inUse.close();
+
+        assertSame(node, DataSourceManager.getDataSourceNode(name));
+        assertFalse(pool.isClosed());
+        ConnectionManager next = connect(name);
+        assertFalse(next.getConnection().isClosed());
+        next.close();
+    }
+
+    @Test
+    public void removedPoolIsClosedOnlyWhenNoOtherNameUsesIt() throws Exception {
+        String first = name();
+        String second = name();
+        PooledDataSource pool = pool();
+        DataSourceManager.addDataSource(first, pool);
+        DataSourceManager.addDataSource(second, pool);
+
+        assertTrue(DataSourceManager.removeDataSource(first));
+        assertFalse(pool.isClosed());
+        assertThrows(Exception.class, () -> connect(first));
+        ConnectionManager next = connect(second);
+        assertFalse(next.getConnection().isClosed());
+        next.close();
+
+        assertTrue(DataSourceManager.removeDataSource(second));
+        assertTrue(pool.isClosed());
+        assertFalse(DataSourceManager.removeDataSource(second));
+    }
+
+    @Test
+    public void regroupingKeepsTheSharedReplicas() throws Exception {
+        String name = name();
+        PooledDataSource primary = pool();
+        PooledDataSource keptReplica = pool();
+        PooledDataSource droppedReplica = pool();
+        DataSourceManager.addDataSourceGroup(new DataSourceGroup(name, LoadBalanceStrategy.ROUND_ROBIN, primary, keptReplica, droppedReplica));
+        DataSourceGroup oldGroup = DataSourceManager.getDataSourceGroup(name);
+
+        DataSourceManager.addDataSourceGroup(new DataSourceGroup(name, LoadBalanceStrategy.ROUND_ROBIN, primary, keptReplica));
+
+        assertFalse(primary.isClosed());
+        assertFalse(keptReplica.isClosed());
+        assertTrue(droppedReplica.isClosed());
+        for (DataSourceNode replica : oldGroup.getReplicas()) {
+            assertTrue(replica.isRetired());
+        }
+
+        ConnectionManager read = new ConnectionManager();
+        DataSourceManager.getDataSourceGroup(name).getReadConnection(read);
+        assertSame(keptReplica, read.getNode().getDataSource());
+        read.close();
+    }
+
+    @Test
+    public void userDataSourcesAreNotClosed() throws Exception {
+        String name = name();
+        AtomicInteger closed = new AtomicInteger();
+        DataSource owned = closable(h2(), closed);
+        DataSourceManager.addDataSource(name, owned);
+
+        connect(name).close();
+        DataSourceManager.addDataSource(name, h2());
+        DataSourceManager.removeDataSource(name);
+
+        assertEquals(0, closed.get());
+    }
+
+    /**
+     * A data source owned by the application, such as a pool it configured itself
+     */
+    private static DataSource closable(DataSource dataSource, AtomicInteger closed) {
+        return (DataSource) Proxy.newProxyInstance(DataSourceManagerTest.class.getClassLoader(),
+                new Class<?>[]{DataSource.class, AutoCloseable.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        closed.incrementAndGet();
+                        return null;
+                    }
+                    try {
+                        return method.invoke(dataSource, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
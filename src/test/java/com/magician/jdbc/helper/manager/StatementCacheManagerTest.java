@@ -0,0 +1,170 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheManagerTest {
+
+    private static final AtomicInteger databaseNumber = new AtomicInteger();
+
+    private static final String SQL = "select count(*) from item where id > {id}";
+
+    private String name;
+
+    /**
+     * A pool of one physical connection that is not the built-in pool, its connections unwrap to the physical connection as HikariCP's do
+     */
+    private static class ThirdPartyPool {
+
+        private final JdbcDataSource driver = new JdbcDataSource();
+
+        private Connection physical;
+
+        private ThirdPartyPool(String url) {
+            driver.setURL(url);
+        }
+
+        private DataSource dataSource() {
+            return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getConnection")) {
+                            return borrow();
+                        }
+                        return invoke(driver, method, args);
+                    });
+        }
+
+        private Connection borrow() throws Exception {
+            if (physical == null || physical.isClosed()) {
+                physical = driver.getConnection();
+            }
+            Connection connection = physical;
+            boolean[] closed = new boolean[1];
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                closed[0] = true;
+                                return null;
+                            case "isClosed":
+                                return closed[0];
+                            case "unwrap":
+                                return connection;
+                            default:
+                                return invoke(connection, method, args);
+                        }
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private JDBCTemplate setUp(DataSource dataSource) throws Exception {
+        name = "statementCache" + databaseNumber.incrementAndGet();
+        MagicianJDBC.createJDBC().addDataSource(name, dataSource).statementCacheSize(name, 8);
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(name);
+        jdbcTemplate.exec("create table item (id bigint primary key)");
+        jdbcTemplate.exec("insert into item (id) values (1), (2), (3)");
+        return jdbcTemplate;
+    }
+
+    private String url() {
+        return "jdbc:h2:mem:statementCache" + databaseNumber.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static long count(JDBCTemplate jdbcTemplate, long id) throws Exception {
+        Map<String, Object> param = new HashMap<>();
+        param.put("id", id);
+        return jdbcTemplate.selectOne(SQL, param, Long.class);
+    }
+
+    @AfterEach
+    public void removeDataSource() {
+        StatementCacheManager.setCacheSize(name, 0);
+        DataSourceManager.removeDataSource(name);
+    }
+
+    @Test
+    public void statementsOfAnotherPoolStayPreparedAcrossBorrows() throws Exception {
+        JDBCTemplate jdbcTemplate = setUp(new ThirdPartyPool(url()).dataSource());
+        StatementCacheStats stats = StatementCacheManager.getStats(name);
+        long misses = stats.getMissCount();
+
+        assertEquals(2, count(jdbcTemplate, 1));
+        assertEquals(1, count(jdbcTemplate, 2));
+        assertEquals(3, count(jdbcTemplate, 0));
+
+        assertEquals(misses + 1, stats.getMissCount());
+        assertEquals(2, stats.getHitCount());
+    }
+
+    @Test
+    public void replacedPhysicalConnectionGetsANewCache() throws Exception {
+        ThirdPartyPool pool = new ThirdPartyPool(url());
+        JDBCTemplate jdbcTemplate = setUp(pool.dataSource());
+        StatementCacheStats stats = StatementCacheManager.getStats(name);
+
+        assertEquals(2, count(jdbcTemplate, 1));
+        long misses = stats.getMissCount();
+        // The pool evicts the physical connection, the driver closes its statements with it
+        pool.physical.close();
+
+        assertEquals(2, count(jdbcTemplate, 1));
+        assertEquals(misses + 1, stats.getMissCount());
+        assertEquals(2, count(jdbcTemplate, 1));
+        assertEquals(1, stats.getHitCount());
+    }
+
+    @Test
+    public void turningCachingOffClosesTheStatements() throws Exception {
+        ThirdPartyPool pool = new ThirdPartyPool(url());
+        JDBCTemplate jdbcTemplate = setUp(pool.dataSource());
+        assertEquals(2, count(jdbcTemplate, 1));
+        StatementCache statementCache = StatementCacheManager.getCache(pool.borrow());
+        PreparedStatement cached = statementCache.prepareStatement("select count(*) from item where id > ?");
+
+        StatementCacheManager.setCacheSize(name, 0);
+        assertEquals(2, count(jdbcTemplate, 1));
+
+        assertTrue(cached.isClosed());
+        assertNull(StatementCacheManager.getCache(pool.borrow()));
+
+        long hits = StatementCacheManager.getStats(name).getHitCount();
+        assertEquals(2, count(jdbcTemplate, 1));
+        assertEquals(hits, StatementCacheManager.getStats(name).getHitCount());
+    }
+
+    @Test
+    public void connectionsThatAreNotWrappersAreNotCached() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url());
+        JDBCTemplate jdbcTemplate = setUp(dataSource);
+        StatementCacheStats stats = StatementCacheManager.getStats(name);
+
+        assertEquals(2, count(jdbcTemplate, 1));
+        assertEquals(2, count(jdbcTemplate, 1));
+
+        assertEquals(0, stats.getHitCount());
+        assertEquals(0, stats.getMissCount());
+    }
+}
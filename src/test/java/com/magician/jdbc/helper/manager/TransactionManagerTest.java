@@ -0,0 +1,152 @@
+package com.magician.jdbc.helper.manager;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.core.constant.enums.TractionLevel;
+import com.magician.jdbc.helper.pool.PoolConfig;
+import com.magician.jdbc.helper.pool.PooledDataSource;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionManagerTest {
+
+    private static final String FIRST = "transactionTest1";
+
+    private static final String SECOND = "transactionTest2";
+
+    private static PooledDataSource firstPool;
+
+    private static PooledDataSource secondPool;
+
+    @BeforeAll
+    public static void addDataSources() {
+        firstPool = pool(FIRST);
+        secondPool = pool(SECOND);
+        MagicianJDBC.createJDBC().addDataSource(FIRST, firstPool).addDataSource(SECOND, secondPool);
+    }
+
+    private static PooledDataSource pool(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return new PooledDataSource(dataSource, new PoolConfig().setMaxPoolSize(2).setMinIdle(0));
+    }
+
+    @AfterAll
+    public static void removeDataSources() {
+        DataSourceManager.removeDataSource(FIRST);
+        DataSourceManager.removeDataSource(SECOND);
+    }
+
+    @BeforeEach
+    public void createTables() throws Exception {
+        for (String name : new String[]{FIRST, SECOND}) {
+            JDBCTemplate jdbcTemplate = JDBCTemplate.get(name);
+            jdbcTemplate.exec("drop table if exists account");
+            jdbcTemplate.exec("create table account (id int primary key)");
+        }
+    }
+
+    @AfterEach
+    public void endTransaction() throws Exception {
+        TransactionManager.rollback();
+    }
+
+    private static void insert(String name, int id) throws Exception {
+        JDBCTemplate.get(name).exec("insert into account (id) values (" + id + ")");
+    }
+
+    private static long count(String name) throws Exception {
+        return JDBCTemplate.get(name).selectOne("select count(*) from account", Long.class);
+    }
+
+    @Test
+    public void connectionsAreTakenOnFirstUseOnly() throws Exception {
+        TransactionManager.beginTraction();
+        assertEquals(0, firstPool.getActiveConnections());
+        assertEquals(0, secondPool.getActiveConnections());
+
+        insert(FIRST, 1);
+        insert(FIRST, 2);
+        assertEquals(1, firstPool.getActiveConnections());
+        assertEquals(0, secondPool.getActiveConnections());
+
+        TransactionManager.commit();
+        assertEquals(0, firstPool.getActiveConnections());
+        assertEquals(2, count(FIRST));
+        assertFalse(TransactionManager.isTransaction());
+    }
+
+    @Test
+    public void rollbackUndoesEveryUsedDataSource() throws Exception {
+        TransactionManager.beginTraction();
+        insert(FIRST, 1);
+        insert(SECOND, 1);
+        assertSame(TransactionManager.getConnection(FIRST), TransactionManager.getConnection(FIRST));
+
+        TransactionManager.rollback();
+
+        assertEquals(0, count(FIRST));
+        assertEquals(0, count(SECOND));
+        assertEquals(0, firstPool.getActiveConnections());
+        assertEquals(0, secondPool.getActiveConnections());
+    }
+
+    @Test
+    public void dataSourcesOutsideTheTransactionCommitAutomatically() throws Exception {
+        TransactionManager.beginTraction(FIRST);
+        assertTrue(TransactionManager.isTransaction(FIRST));
+        assertFalse(TransactionManager.isTransaction(SECOND));
+        assertNull(TransactionManager.getConnection(SECOND));
+
+        insert(FIRST, 1);
+        insert(SECOND, 1);
+        assertEquals(0, secondPool.getActiveConnections());
+        TransactionManager.rollback();
+
+        assertEquals(0, count(FIRST));
+        assertEquals(1, count(SECOND));
+    }
+
+    @Test
+    public void connectionIsSetUpForTheTransaction() throws Exception {
+        TransactionManager.beginTraction(TractionLevel.SERIALIZABLE, FIRST);
+        Connection connection = TransactionManager.getConnection(FIRST);
+
+        assertFalse(connection.getAutoCommit());
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation());
+        TransactionManager.commit();
+
+        try (Connection next = firstPool.getConnection()) {
+            assertTrue(next.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void unknownDataSourceIsRejected() {
+        assertThrows(Exception.class, () -> TransactionManager.beginTraction("noSuchDataSource"));
+        assertFalse(TransactionManager.isTransaction());
+    }
+
+    @Test
+    public void afterCompletionRunsOnceTheConnectionsAreReturned() throws Exception {
+        List<Integer> active = new ArrayList<>();
+        assertFalse(TransactionManager.afterCompletion(FIRST, () -> active.add(-1)));
+
+        TransactionManager.beginTraction(FIRST);
+        insert(FIRST, 1);
+        assertTrue(TransactionManager.afterCompletion(FIRST, () -> active.add(firstPool.getActiveConnections())));
+        TransactionManager.commit();
+
+        assertEquals(List.of(0), active);
+    }
+}
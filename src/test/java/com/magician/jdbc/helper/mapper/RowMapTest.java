@@ -0,0 +1,131 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowMapTest {
+
+    private static final String DATA_SOURCE = "rowMapTest";
+
+    private static JdbcDataSource dataSource;
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:rowMapTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("create table item (id int primary key, name varchar(20), price int)");
+        jdbcTemplate.exec("insert into item (id, name, price) values (1, 'a', 10), (2, 'b', null)");
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    private static List<? extends Map> select(String sql, Class<? extends Map> cls) throws Exception {
+        return JDBCTemplate.get(DATA_SOURCE).selectList(sql, cls);
+    }
+
+    @Test
+    public void mapRowsAreRowMapsEqualToHashMaps() throws Exception {
+        List<? extends Map> rows = select("select id as \"id\", name as \"name\", price as \"price\" from item order by id", Map.class);
+
+        assertEquals(2, rows.size());
+        assertInstanceOf(RowMap.class, rows.get(0));
+        Map<String, Object> first = new HashMap<>();
+        first.put("id", 1);
+        first.put("name", "a");
+        first.put("price", 10);
+        assertEquals(first, rows.get(0));
+        assertEquals(rows.get(0), first);
+        assertEquals(first.hashCode(), rows.get(0).hashCode());
+
+        Map row = rows.get(1);
+        assertEquals(3, row.size());
+        assertEquals("b", row.get("name"));
+        assertEquals("b", ((RowMap) row).get(1));
+        assertTrue(row.containsKey("price"));
+        assertNull(row.get("price"));
+        assertFalse(row.containsKey("PRICE"));
+        assertNull(row.get("missing"));
+        assertEquals(List.of("id", "name", "price"), new ArrayList<>(row.keySet()));
+    }
+
+    @Test
+    public void rowsAreReadOnly() throws Exception {
+        Map row = select("select id as \"id\", name as \"name\" from item where id = 1", Map.class).get(0);
+
+        assertThrows(UnsupportedOperationException.class, () -> row.put("name", "c"));
+        assertThrows(UnsupportedOperationException.class, () -> row.remove("name"));
+        assertThrows(UnsupportedOperationException.class, row::clear);
+        Map.Entry entry = (Map.Entry) row.entrySet().iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> entry.setValue(2));
+        assertEquals("a", row.get("name"));
+    }
+
+    @Test
+    public void rowsOfAResultShareTheirLabels() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select id, name from item order by id")) {
+            ColumnIndex columnIndex = new ColumnIndex(new String[]{"id", "name"});
+            List<RowMap> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(columnIndex.read(resultSet));
+            }
+
+            assertEquals(2, rows.size());
+            assertEquals(List.of("id", "name"), new ArrayList<>(rows.get(0).keySet()));
+            assertSame(rows.get(0).keySet().iterator().next(), rows.get(1).keySet().iterator().next());
+            assertEquals(2, rows.get(1).get("id"));
+        }
+    }
+
+    @Test
+    public void repeatedLabelKeepsItsLastColumnLikeAHashMap() throws Exception {
+        String sql = "select id as \"v\", name as \"v\", price as \"p\" from item where id = 1";
+        Map row = select(sql, Map.class).get(0);
+        Map hashMap = select(sql, HashMap.class).get(0);
+
+        assertEquals(2, row.size());
+        assertEquals("a", row.get("v"));
+        assertEquals(hashMap, row);
+        assertEquals(List.of("v", "p"), new ArrayList<>(row.keySet()));
+    }
+
+    @Test
+    public void concreteMapTypesAreStillFilledAndMutable() throws Exception {
+        String sql = "select id as \"id\", name as \"name\" from item where id = 1";
+        Map hashMap = select(sql, HashMap.class).get(0);
+        Map linkedHashMap = select(sql, LinkedHashMap.class).get(0);
+        Map treeMap = select(sql, TreeMap.class).get(0);
+
+        assertSame(HashMap.class, hashMap.getClass());
+        assertSame(LinkedHashMap.class, linkedHashMap.getClass());
+        assertSame(TreeMap.class, treeMap.getClass());
+        assertEquals(hashMap, linkedHashMap);
+        assertEquals(hashMap, treeMap);
+        linkedHashMap.put("name", "c");
+        assertEquals("c", linkedHashMap.get("name"));
+    }
+}
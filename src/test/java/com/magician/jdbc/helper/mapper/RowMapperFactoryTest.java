@@ -0,0 +1,214 @@
+package com.magician.jdbc.helper.mapper;
+
+import com.alibaba.fastjson2.annotation.JSONCreator;
+import com.alibaba.fastjson2.annotation.JSONField;
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.templete.JDBCTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowMapperFactoryTest {
+
+    private static final String DATA_SOURCE = "rowMapperTest";
+
+    public static class User {
+
+        private long id;
+
+        private String userName;
+
+        private int score;
+
+        private Boolean active;
+
+        @JSONField(name = "nick")
+        private String nickname;
+
+        private LocalDateTime createdAt;
+
+        private BigDecimal balance;
+
+        public String note;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public void setUserName(String userName) {
+            this.userName = userName;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+
+        public Boolean getActive() {
+            return active;
+        }
+
+        public void setActive(Boolean active) {
+            this.active = active;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public void setNickname(String nickname) {
+            this.nickname = nickname;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public void setBalance(BigDecimal balance) {
+            this.balance = balance;
+        }
+    }
+
+    public record UserRecord(long id, String userName, int score, @JSONField(name = "nick") String nickname) {
+    }
+
+    /**
+     * Has no no-argument constructor, fastjson2 builds it through the creator
+     */
+    public static class Immutable {
+
+        private final long id;
+
+        private final String userName;
+
+        @JSONCreator(parameterNames = {"id", "user_name"})
+        public Immutable(long id, String userName) {
+            this.id = id;
+            this.userName = userName;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+    }
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:rowMapperTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("create table app_user (id bigint primary key, user_name varchar(20), score int, active boolean,"
+                + " nick varchar(20), created_at timestamp, balance decimal(10, 2), note varchar(20))");
+        jdbcTemplate.exec("insert into app_user values (1, 'ann', 7, true, 'a', timestamp '2024-01-02 03:04:05', 1.50, 'n1')");
+        jdbcTemplate.exec("insert into app_user values (2, 'bob', null, null, null, null, null, null)");
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    private static <T> List<T> select(Class<T> cls) throws Exception {
+        return JDBCTemplate.get(DATA_SOURCE).selectList("select * from app_user order by id", cls);
+    }
+
+    @Test
+    public void beanPropertiesAreMatchedByNameRenameAndLooseName() throws Exception {
+        List<User> users = select(User.class);
+
+        User ann = users.get(0);
+        assertEquals(1L, ann.getId());
+        assertEquals("ann", ann.getUserName());
+        assertEquals(7, ann.getScore());
+        assertEquals(Boolean.TRUE, ann.getActive());
+        assertEquals("a", ann.getNickname());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), ann.getCreatedAt());
+        assertEquals(0, new BigDecimal("1.50").compareTo(ann.getBalance()));
+        assertEquals("n1", ann.note);
+    }
+
+    @Test
+    public void sqlNullLeavesPrimitivesAtZeroAndObjectsNull() throws Exception {
+        User bob = select(User.class).get(1);
+
+        assertEquals("bob", bob.getUserName());
+        assertEquals(0, bob.getScore());
+        assertNull(bob.getActive());
+        assertNull(bob.getNickname());
+        assertNull(bob.getCreatedAt());
+        assertNull(bob.note);
+    }
+
+    @Test
+    public void upperCaseLabelsMatchLoosely() throws Exception {
+        User user = JDBCTemplate.get(DATA_SOURCE).selectOne("select ID, USER_NAME as USERNAME from app_user where id = 1", User.class);
+
+        assertEquals(1L, user.getId());
+        assertEquals("ann", user.getUserName());
+    }
+
+    @Test
+    public void recordsAreCreatedWithTheirCanonicalConstructor() throws Exception {
+        List<UserRecord> users = select(UserRecord.class);
+
+        assertEquals(new UserRecord(1, "ann", 7, "a"), users.get(0));
+        assertEquals(new UserRecord(2, "bob", 0, null), users.get(1));
+    }
+
+    @Test
+    public void classesWithoutNoArgumentConstructorFallBackToJSON() throws Exception {
+        assertFalse(BeanMeta.get(Immutable.class).isInstantiable());
+
+        // fastjson2 matches the creator parameters by their exact names
+        List<Immutable> users = JDBCTemplate.get(DATA_SOURCE).selectList(
+                "select id as \"id\", user_name as \"user_name\" from app_user order by id", Immutable.class);
+
+        assertEquals(1L, users.get(0).getId());
+        assertEquals("ann", users.get(0).getUserName());
+        assertEquals("bob", users.get(1).getUserName());
+    }
+
+    @Test
+    public void mapsAndSingleColumns() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        Map<String, Object> row = jdbcTemplate.selectOne("select id, user_name from app_user where id = 1", Map.class);
+        List<String> names = jdbcTemplate.selectList("select user_name from app_user order by id", String.class);
+
+        assertEquals("ann", row.get("USER_NAME"));
+        assertEquals(List.of("ann", "bob"), names);
+    }
+}
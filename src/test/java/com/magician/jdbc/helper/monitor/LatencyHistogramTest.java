@@ -0,0 +1,132 @@
+package com.magician.jdbc.helper.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    /**
+     * Upper bound of the bucket a value falls into, read back through a percentile
+     */
+    private static long bucketUpperBound(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        // A larger second value keeps the result from being capped at the maximum
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getPercentile(50);
+    }
+
+    @Test
+    public void valuesBelowSixteenHaveTheirOwnBucket() {
+        for (long value = 0; value < 16; value++) {
+            assertEquals(value, bucketUpperBound(value));
+        }
+    }
+
+    @Test
+    public void bucketsAreWithinOneSixteenth() {
+        List<Long> values = new ArrayList<>();
+        for (int bit = 4; bit < 62; bit++) {
+            values.add((1L << bit) - 1);
+            values.add(1L << bit);
+            values.add((1L << bit) + 1);
+            values.add((1L << bit) + (1L << bit) / 3);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            values.add(random.nextLong() >>> (1 + random.nextInt(62)));
+        }
+        for (long value : values) {
+            long upperBound = bucketUpperBound(value);
+            assertTrue(upperBound >= value, "value " + value);
+            assertTrue(upperBound - value <= value / 16, "value " + value + ", upper bound " + upperBound);
+        }
+    }
+
+    @Test
+    public void bucketsFollowEachOtherWithoutGaps() {
+        long previous = bucketUpperBound(16);
+        for (long value = 17; value < 100000; value++) {
+            long upperBound = bucketUpperBound(value);
+            if (upperBound != previous) {
+                // value is the first of a new bucket
+                assertEquals(previous + 1, value, "value " + value);
+                previous = upperBound;
+            }
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        assertEquals(5000, histogram.getPercentile(50), 5000 / 16.0);
+        assertEquals(9900, histogram.getPercentile(99), 9900 / 16.0);
+        assertEquals(10000, histogram.getPercentile(100));
+        assertEquals(10000, histogram.getPercentile(150));
+        assertEquals(1, histogram.getPercentile(0));
+        long last = 0;
+        for (int percentile = 1; percentile <= 100; percentile++) {
+            long value = histogram.getPercentile(percentile);
+            assertTrue(value >= last);
+            last = value;
+        }
+    }
+
+    @Test
+    public void negativeValuesCountAsZeroAndResetForgets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(1000);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(80000, histogram.getCount());
+        assertEquals(1000, histogram.getPercentile(100));
+        assertEquals(1000, histogram.getMean(), 1e-9);
+    }
+}
@@ -0,0 +1,39 @@
+package com.magician.jdbc.helper.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRecorderTest {
+
+    @Test
+    public void transactionsAreRecordedPerDataSource() {
+        MetricsRecorder metricsRecorder = new MetricsRecorder();
+
+        metricsRecorder.onTransaction(new TransactionEvent(Set.of("a"), 1000, true, true));
+        metricsRecorder.onTransaction(new TransactionEvent(Set.of("a", "b"), 5000, false, true));
+        metricsRecorder.onTransaction(new TransactionEvent(Set.of(), 10, true, true));
+
+        assertEquals(Set.of("a", "b", ""), metricsRecorder.getTransactionLatency().keySet());
+        assertEquals(2, metricsRecorder.getTransactionLatency().get("a").getCount());
+        assertEquals(1, metricsRecorder.getTransactionLatency().get("b").getCount());
+        assertEquals(1, metricsRecorder.getTransactionLatency().get("").getCount());
+
+        metricsRecorder.reset();
+        assertTrue(metricsRecorder.getTransactionLatency().isEmpty());
+    }
+
+    @Test
+    public void acquireTimeIsKeptApartFromStatements() {
+        MetricsRecorder metricsRecorder = new MetricsRecorder();
+
+        metricsRecorder.onConnectionAcquired("a", 2000, false);
+        metricsRecorder.onStatement(new StatementEvent("select  1 from t where id in (?, ?)", 2, 1, 100, 10, 150, null));
+
+        assertEquals(1, metricsRecorder.getAcquireLatency().get("a").getCount());
+        SqlMetrics sqlMetrics = metricsRecorder.getSqlMetrics().get("select 1 from t where id in (?)");
+        assertNotNull(sqlMetrics);
+    }
+}
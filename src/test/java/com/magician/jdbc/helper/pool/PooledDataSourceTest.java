@@ -0,0 +1,195 @@
+package com.magician.jdbc.helper.pool;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledDataSourceTest {
+
+    private static final AtomicInteger databaseNumber = new AtomicInteger();
+
+    private PooledDataSource pool;
+
+    private PooledDataSource pool(PoolConfig poolConfig) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pool" + databaseNumber.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        pool = new PooledDataSource(dataSource, poolConfig);
+        return pool;
+    }
+
+    @AfterEach
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void returnedConnectionIsReused() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(2).setMinIdle(0));
+
+        Connection first = pool.getConnection();
+        JdbcConnection physical = first.unwrap(JdbcConnection.class);
+        assertEquals(1, pool.getActiveConnections());
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+
+        try (Connection second = pool.getConnection()) {
+            assertSame(physical, second.unwrap(JdbcConnection.class));
+            assertEquals(1, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void settingsAreRestoredOnReturn() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(1).setMinIdle(0));
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+            assertFalse(connection.isReadOnly());
+        }
+    }
+
+    @Test
+    public void leftoverStatementsAreClosedOnReturn() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(1).setMinIdle(0));
+
+        Connection connection = pool.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("select 1");
+        connection.close();
+
+        assertTrue(statement.isClosed());
+        assertTrue(resultSet.isClosed());
+    }
+
+    @Test
+    public void exhaustedPoolTimesOut() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(1).setMinIdle(0).setConnectionTimeout(200));
+
+        try (Connection held = pool.getConnection()) {
+            long start = System.nanoTime();
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+            assertEquals(0, pool.getWaitingThreads());
+        }
+    }
+
+    @Test
+    public void waiterReceivesReturnedConnection() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(1).setMinIdle(0).setConnectionTimeout(5000));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Connection held = pool.getConnection();
+            Future<Boolean> waiter = executor.submit(() -> {
+                try (Connection connection = pool.getConnection()) {
+                    return connection.isValid(1);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(waiter.isDone());
+            held.close();
+
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void brokenConnectionIsEvicted() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(2).setMinIdle(0).setValidationInterval(1000));
+
+        JdbcConnection physical;
+        try (Connection connection = pool.getConnection()) {
+            physical = connection.unwrap(JdbcConnection.class);
+            physical.close();
+        }
+        assertEquals(1, pool.getTotalConnections());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getTotalConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, pool.getTotalConnections());
+
+        try (Connection connection = pool.getConnection()) {
+            assertNotSame(physical, connection.unwrap(JdbcConnection.class));
+            assertTrue(connection.isValid(1));
+        }
+    }
+
+    @Test
+    public void brokenConnectionIsEvictedWhenResetFails() throws Exception {
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(2).setMinIdle(0));
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.unwrap(JdbcConnection.class).close();
+        }
+        assertEquals(0, pool.getTotalConnections());
+    }
+
+    @Test
+    public void concurrentBorrowersShareThePool() throws Exception {
+        int maxPoolSize = 4;
+        int threads = 16;
+        int iterations = 200;
+        PooledDataSource pool = pool(new PoolConfig().setMaxPoolSize(maxPoolSize).setMinIdle(0).setConnectionTimeout(10000));
+
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int sum = 0;
+                    for (int j = 0; j < iterations; j++) {
+                        try (Connection connection = pool.getConnection();
+                             Statement statement = connection.createStatement();
+                             ResultSet resultSet = statement.executeQuery("select 1")) {
+                            maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                            resultSet.next();
+                            sum += resultSet.getInt(1);
+                            inUse.decrementAndGet();
+                        }
+                    }
+                    return sum;
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertEquals(iterations, future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(maxInUse.get() <= maxPoolSize);
+        assertTrue(pool.getTotalConnections() <= maxPoolSize);
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, pool.getWaitingThreads());
+    }
+}
@@ -0,0 +1,128 @@
+package com.magician.jdbc.helper.sharding;
+
+import com.magician.jdbc.helper.templete.model.Condition;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardingRuleTest {
+
+    private static final ShardTarget SHARD0 = new ShardTarget("db0", "_0");
+
+    private static final ShardTarget SHARD1 = new ShardTarget("db0", "_1");
+
+    private static final ShardTarget SHARD2 = new ShardTarget("db1", "_2");
+
+    private final ShardingRule rule = new ShardingRule("orders", "user_id", new ModShardingStrategy(SHARD0, SHARD1, SHARD2));
+
+    private static Set<ShardTarget> all() {
+        return new LinkedHashSet<>(List.of(SHARD0, SHARD1, SHARD2));
+    }
+
+    @Test
+    public void modStrategyTakesTheNumberModuloTheShards() throws Exception {
+        ModShardingStrategy strategy = new ModShardingStrategy(SHARD0, SHARD1, SHARD2);
+
+        assertEquals(SHARD0, strategy.shard(3));
+        assertEquals(SHARD1, strategy.shard(4L));
+        assertEquals(SHARD2, strategy.shard(" 5 "));
+        assertEquals(SHARD2, strategy.shard(-1));
+        assertThrows(Exception.class, () -> strategy.shard("abc"));
+        assertThrows(Exception.class, () -> strategy.shard(null));
+    }
+
+    @Test
+    public void hashStrategyDependsOnTheTextOfTheValue() throws Exception {
+        HashShardingStrategy strategy = new HashShardingStrategy(SHARD0, SHARD1, SHARD2);
+
+        assertEquals(strategy.shard(12345), strategy.shard(12345L));
+        assertEquals(strategy.shard(12345), strategy.shard("12345"));
+        Set<ShardTarget> used = new LinkedHashSet<>();
+        for (int i = 0; i < 100; i++) {
+            used.add(strategy.shard("user" + i));
+        }
+        assertEquals(all(), used);
+        assertThrows(Exception.class, () -> strategy.shard(null));
+    }
+
+    @Test
+    public void rangeStrategyUsesTheLowerBound() throws Exception {
+        RangeShardingStrategy strategy = new RangeShardingStrategy()
+                .addRange(0, SHARD0)
+                .addRange(1000L, SHARD1)
+                .addRange(2000, SHARD2);
+
+        assertEquals(SHARD0, strategy.shard(0));
+        assertEquals(SHARD0, strategy.shard(999L));
+        assertEquals(SHARD1, strategy.shard(1000));
+        assertEquals(SHARD2, strategy.shard(5000));
+        assertThrows(Exception.class, () -> strategy.shard(-1));
+        assertEquals(List.of(SHARD0, SHARD1, SHARD2), strategy.allShards());
+    }
+
+    @Test
+    public void equalityConditionGoesToOneShard() throws Exception {
+        assertEquals(Set.of(SHARD1), rule.route(ConditionBuilder.createCondition().add("user_id = ?", 7).build()));
+        assertEquals(Set.of(SHARD1), rule.route(ConditionBuilder.createCondition()
+                .add("status = ?", 1)
+                .add("and `o`.`USER_ID`=?", 7)
+                .build()));
+    }
+
+    @Test
+    public void inConditionGoesToTheShardsOfItsValues() throws Exception {
+        Set<ShardTarget> shardTargets = rule.route(ConditionBuilder.createCondition().add("and user_id in (?, ?, ?)", 3, 6, 5).build());
+
+        assertEquals(new LinkedHashSet<>(List.of(SHARD0, SHARD2)), shardTargets);
+    }
+
+    @Test
+    public void conditionsThatCanMatchAnyShardGoEverywhere() throws Exception {
+        assertEquals(all(), rule.route((List<Condition>) null));
+        assertEquals(all(), rule.route(ConditionBuilder.createCondition().add("status = ?", 1).build()));
+        assertEquals(all(), rule.route(ConditionBuilder.createCondition().add("user_id > ?", 1).build()));
+        assertEquals(all(), rule.route(ConditionBuilder.createCondition().add("other_user_id = ?", 1).build()));
+        assertEquals(all(), rule.route(ConditionBuilder.createCondition()
+                .add("user_id = ?", 7)
+                .add("or status = ?", 1)
+                .build()));
+    }
+
+    @Test
+    public void rowGoesToTheShardOfItsColumn() throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("USER_ID", 8);
+        row.put("amount", 10);
+
+        assertEquals(SHARD2, rule.route(row));
+
+        row.remove("USER_ID");
+        Exception e = assertThrows(Exception.class, () -> rule.route(row));
+        assertTrue(e.getMessage().contains("user_id"));
+    }
+
+    @Test
+    public void shardTargetNamesThePhysicalTable() {
+        assertEquals("orders_2", SHARD2.getTableName("orders"));
+        assertEquals("orders", new ShardTarget("db0").getTableName("orders"));
+        assertEquals(new ShardTarget("db1", "_2"), SHARD2);
+    }
+
+    @Test
+    public void rulesAreFoundIgnoringCase() {
+        ShardingManager.addRule(rule);
+        try {
+            assertSame(rule, ShardingManager.getRule("ORDERS"));
+        } finally {
+            ShardingManager.removeRule("orders");
+        }
+        assertNull(ShardingManager.getRule("orders"));
+    }
+}
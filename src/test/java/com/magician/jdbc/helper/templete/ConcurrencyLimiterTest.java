@@ -0,0 +1,145 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.core.util.ExecutorUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setExecutor() {
+        executor = Executors.newFixedThreadPool(2);
+        ExecutorUtil.setExecutor(executor);
+    }
+
+    @AfterEach
+    public void resetExecutor() {
+        ExecutorUtil.setExecutor(null);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void waitingCallsDoNotHoldExecutorThreads() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = limiter.submit(() -> {
+            release.await();
+            return "first";
+        });
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            queued.add(limiter.submit(() -> value));
+        }
+
+        // The second thread of the executor is still free for other work
+        assertEquals("free", executor.submit(() -> "free").get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getRunning());
+        assertFalse(queued.get(0).isDone());
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals(i, queued.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void runningCallsStayUnderTheCap() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        executor.shutdownNow();
+        executor = Executors.newFixedThreadPool(8);
+        ExecutorUtil.setExecutor(executor);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(limiter.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(2);
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertTrue(maxRunning.get() <= 2);
+        // The slot is given back just after the future completes
+        long deadline = System.currentTimeMillis() + 5000;
+        while (limiter.getRunning() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    public void raisingTheCapStartsWaitingCalls() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = limiter.submit(() -> {
+            release.await();
+            return 1;
+        });
+        CompletableFuture<Integer> second = limiter.submit(() -> 2);
+        assertThrows(TimeoutException.class, () -> second.get(100, TimeUnit.MILLISECONDS));
+
+        limiter.setMaxConcurrency(2);
+
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void trySubmitOnlyStartsWhenASlotIsFree() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = limiter.trySubmit(() -> {
+            release.await();
+            return 1;
+        });
+        assertNotNull(first);
+        assertNull(limiter.trySubmit(() -> 2));
+
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> next = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (next == null && System.currentTimeMillis() < deadline) {
+            next = limiter.trySubmit(() -> 3);
+        }
+        assertEquals(3, next.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failuresCompleteTheFuture() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        CompletableFuture<Object> future = limiter.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void templatesShareTheResizedLimiter() {
+        ConcurrencyLimiter limiter = AsyncJDBCTemplate.getLimiter("limiterTest");
+        AsyncJDBCTemplate.setMaxConcurrency("limiterTest", 3);
+
+        assertSame(limiter, AsyncJDBCTemplate.getLimiter("limiterTest"));
+        assertEquals(3, limiter.getMaxConcurrency());
+    }
+}
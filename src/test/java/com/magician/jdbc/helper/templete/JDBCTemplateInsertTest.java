@@ -0,0 +1,98 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JDBCTemplateInsertTest {
+
+    private static final String DATA_SOURCE = "insertTest";
+
+    @BeforeAll
+    public static void addDataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:insertTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("drop table if exists item");
+        jdbcTemplate.exec("create table item (id bigint auto_increment primary key, name varchar(20) unique)");
+    }
+
+    private static List<Map<String, Object>> rows(String... names) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String name : names) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", name);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static long count() throws Exception {
+        return JDBCTemplate.get(DATA_SOURCE).selectOne("select count(*) from item", Long.class);
+    }
+
+    @Test
+    public void insertValuesSplitsRowsIntoStatements() throws Exception {
+        List<Map<String, Object>> rows = rows("a", "b", "c", "d", "e");
+
+        List<Object> keys = JDBCTemplate.get(DATA_SOURCE).insertValues("item", rows, "id", 2);
+
+        assertEquals(5, keys.size());
+        assertEquals(5, count());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(((Number) keys.get(i)).longValue(), ((Number) rows.get(i).get("id")).longValue());
+        }
+    }
+
+    @Test
+    public void failedInsertValuesInsertsNoRows() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+
+        // The first statement succeeds, the second one violates the unique name
+        assertThrows(Exception.class, () -> jdbcTemplate.insertValues("item", rows("a", "b", "c", "a"), null, 2));
+
+        assertEquals(0, count());
+        jdbcTemplate.insertValues("item", rows("x", "y", "z"), null, 2);
+        assertEquals(3, count());
+    }
+
+    @Test
+    public void insertBatchInsertsEveryRow() throws Exception {
+        int[] counts = JDBCTemplate.get(DATA_SOURCE).insertBatch("item", rows("a", "b", "c"), 2);
+
+        assertArrayEquals(new int[]{1, 1, 1}, counts);
+        assertEquals(3, count());
+    }
+
+    @Test
+    public void rowsWithoutValuesAreRejected() {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        List<Map<String, Object>> rows = rows((String) null, null);
+
+        Exception e = assertThrows(Exception.class, () -> jdbcTemplate.insertBatch("item", rows));
+        assertEquals("There are no columns to insert", e.getMessage());
+        e = assertThrows(Exception.class, () -> jdbcTemplate.insertValues("item", rows));
+        assertEquals("There are no columns to insert", e.getMessage());
+    }
+}
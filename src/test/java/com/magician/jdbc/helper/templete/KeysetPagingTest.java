@@ -0,0 +1,118 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.templete.model.KeysetPageModel;
+import com.magician.jdbc.helper.templete.model.KeysetParamModel;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetPagingTest {
+
+    private static final String DATA_SOURCE = "keysetTest";
+
+    private static final int ROWS = 23;
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:keysetTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("create table player (id int primary key, score int, team varchar(10))");
+        for (int id = 1; id <= ROWS; id++) {
+            // Scores repeat, so that several rows share the last score of a page
+            jdbcTemplate.exec("insert into player (id, score, team) values (" + id + ", " + (id % 4) + ", '" + (id % 2 == 0 ? "even" : "odd") + "')");
+        }
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    private static List<Integer> readAll(String sql, KeysetParamModel keysetParamModel) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int page = 0; page < ROWS + 1; page++) {
+            KeysetPageModel<Map> keysetPageModel = JDBCTemplate.get(DATA_SOURCE).selectKeyset(sql, keysetParamModel, Map.class);
+            assertTrue(keysetPageModel.getDataList().size() <= keysetParamModel.getPageSize());
+            for (Map row : keysetPageModel.getDataList()) {
+                ids.add(((Number) row.get("ID")).intValue());
+            }
+            if (!keysetPageModel.isHasNext()) {
+                return ids;
+            }
+            assertEquals(keysetParamModel.getPageSize(), keysetPageModel.getDataList().size());
+            keysetParamModel.setLastKey(keysetPageModel.getLastKey());
+            keysetParamModel.setLastTieKey(keysetPageModel.getLastTieKey());
+        }
+        fail("Paging did not end");
+        return ids;
+    }
+
+    private static List<Integer> expected(boolean desc) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        String order = desc ? "desc" : "asc";
+        for (Map row : JDBCTemplate.get(DATA_SOURCE).selectList("select id from player order by score " + order + ", id " + order, Map.class)) {
+            ids.add(((Number) row.get("ID")).intValue());
+        }
+        return ids;
+    }
+
+    @Test
+    public void uniqueSortKeyPagesThroughAllRows() throws Exception {
+        List<Integer> ids = readAll("select * from player", KeysetParamModel.getKeysetParamModel("id", null, 5));
+
+        assertEquals(ROWS, ids.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    public void tieKeyKeepsRowsSharingTheSortKey() throws Exception {
+        List<Integer> ids = readAll("select * from player", KeysetParamModel.getKeysetParamModel("score", "id", null, null, 4));
+
+        assertEquals(expected(false), ids);
+    }
+
+    @Test
+    public void tieKeyPagesDescending() throws Exception {
+        KeysetParamModel keysetParamModel = KeysetParamModel.getKeysetParamModel("score", "id", null, null, 3).setDesc(true);
+
+        assertEquals(expected(true), readAll("select * from player", keysetParamModel));
+    }
+
+    @Test
+    public void queryParametersAreKept() throws Exception {
+        KeysetParamModel keysetParamModel = KeysetParamModel.getKeysetParamModel("score", "id", null, null, 2);
+        keysetParamModel.getParam().put("team", "even");
+
+        List<Integer> ids = readAll("select * from player where team = {team}", keysetParamModel);
+
+        assertEquals(ROWS / 2, ids.size());
+        for (Integer id : ids) {
+            assertEquals(0, id % 2);
+        }
+    }
+
+    @Test
+    public void invalidKeysAreRejected() {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        assertThrows(Exception.class, () -> jdbcTemplate.selectKeyset("select * from player",
+                KeysetParamModel.getKeysetParamModel("id;drop table player", null, 5), Map.class));
+        assertThrows(Exception.class, () -> jdbcTemplate.selectKeyset("select * from player",
+                KeysetParamModel.getKeysetParamModel("score", "id", 1, null, 5), Map.class));
+        assertThrows(Exception.class, () -> jdbcTemplate.selectKeyset("select * from player",
+                KeysetParamModel.getKeysetParamModel("id", 0, 0), Map.class));
+    }
+}
@@ -0,0 +1,126 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.core.constant.enums.CountStrategy;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.templete.model.PageModel;
+import com.magician.jdbc.helper.templete.model.PageParamModel;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagingCountTest {
+
+    private static final String DATA_SOURCE = "pagingCountTest";
+
+    private static final String SQL = "select id from product where kind = {kind} order by id";
+
+    private static final int ROWS = 23;
+
+    @BeforeAll
+    public static void addDataSource() {
+        // MySQL mode for limit offset,count, lower case labels for the total column
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pagingCountTest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("drop table if exists product");
+        jdbcTemplate.exec("create table product (id int primary key, kind varchar(10))");
+        jdbcTemplate.exec("insert into product (id, kind) select r.*, 'a' from system_range(1, " + ROWS + ") r");
+    }
+
+    private static PageModel<Integer> page(String kind, int page, CountStrategy countStrategy, long countCacheTtl) throws Exception {
+        PageParamModel pageParamModel = PageParamModel.getPageParamModel(page, 10)
+                .setParam(new HashMap<>(Map.of("kind", kind)))
+                .setCountStrategy(countStrategy)
+                .setCountCacheTtl(countCacheTtl);
+        return JDBCTemplate.get(DATA_SOURCE).selectPage(SQL, pageParamModel, Integer.class);
+    }
+
+    private static void addRows(String kind, int firstId, int count) throws Exception {
+        JDBCTemplate.get(DATA_SOURCE).exec("insert into product (id, kind) select r.*, '" + kind + "' from system_range("
+                + firstId + ", " + (firstId + count - 1) + ") r");
+    }
+
+    @Test
+    public void exactCountsBeforeThePage() throws Exception {
+        PageModel<Integer> pageModel = page("a", 3, CountStrategy.EXACT, 0);
+
+        assertEquals(ROWS, pageModel.getPageCount());
+        assertEquals(3, pageModel.getPageTotal());
+        assertTrue(pageModel.isTotalExact());
+        assertEquals(List.of(21, 22, 23), pageModel.getDataList());
+    }
+
+    @Test
+    public void noneLeavesTheTotalOut() throws Exception {
+        PageModel<Integer> pageModel = page("a", 1, CountStrategy.NONE, 0);
+
+        assertNull(pageModel.getPageCount());
+        assertNull(pageModel.getPageTotal());
+        assertFalse(pageModel.isTotalExact());
+        assertEquals(10, pageModel.getDataList().size());
+    }
+
+    @Test
+    public void cachedReusesTheTotalUntilItExpires() throws Exception {
+        // Totals stay in CountCache after the table is created again, so this test counts a kind of its own
+        addRows("c", 100, 5);
+        PageModel<Integer> first = page("c", 1, CountStrategy.CACHED, 100);
+        assertEquals(5, first.getPageCount());
+        assertTrue(first.isTotalExact());
+
+        addRows("c", 200, 1);
+        PageModel<Integer> cached = page("c", 1, CountStrategy.CACHED, 100);
+        assertEquals(5, cached.getPageCount());
+        assertFalse(cached.isTotalExact());
+        assertEquals(6, cached.getDataList().size());
+
+        Thread.sleep(200);
+        PageModel<Integer> expired = page("c", 1, CountStrategy.CACHED, 100);
+        assertEquals(6, expired.getPageCount());
+        assertTrue(expired.isTotalExact());
+    }
+
+    @Test
+    public void parallelCountsOnAnotherConnection() throws Exception {
+        PageModel<Integer> pageModel = page("a", 2, CountStrategy.PARALLEL, 0);
+
+        assertEquals(ROWS, pageModel.getPageCount());
+        assertTrue(pageModel.isTotalExact());
+        assertEquals(List.of(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), pageModel.getDataList());
+    }
+
+    @Test
+    public void parallelInsideATransactionCountsItsChanges() throws Exception {
+        TransactionManager.beginTraction(DATA_SOURCE);
+        try {
+            addRows("p", 100, 3);
+            PageModel<Integer> pageModel = page("p", 1, CountStrategy.PARALLEL, 0);
+
+            // A second connection would not see the uncommitted rows
+            assertEquals(3, pageModel.getPageCount());
+            assertEquals(List.of(100, 101, 102), pageModel.getDataList());
+        } finally {
+            TransactionManager.rollback();
+        }
+    }
+}
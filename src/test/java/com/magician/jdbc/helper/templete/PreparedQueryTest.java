@@ -0,0 +1,131 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.StatementCacheManager;
+import com.magician.jdbc.helper.manager.StatementCacheStats;
+import com.magician.jdbc.helper.pool.PoolConfig;
+import com.magician.jdbc.helper.pool.PooledDataSource;
+import com.magician.jdbc.helper.templete.model.Condition;
+import com.magician.jdbc.helper.templete.model.PreparedQuery;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PreparedQueryTest {
+
+    private static final String DATA_SOURCE = "preparedQueryTest";
+
+    private static PooledDataSource pool;
+
+    @BeforeAll
+    public static void addDataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:preparedQueryTest;DB_CLOSE_DELAY=-1");
+        pool = new PooledDataSource(dataSource, new PoolConfig().setMaxPoolSize(1).setMinIdle(0));
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, pool).statementCacheSize(DATA_SOURCE, 8);
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        StatementCacheManager.setCacheSize(DATA_SOURCE, 0);
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+        pool.close();
+    }
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("drop table if exists item");
+        jdbcTemplate.exec("create table item (id int primary key, kind varchar(10), price int)");
+        jdbcTemplate.exec("insert into item (id, kind, price) values (1, 'a', 10), (2, 'a', 20), (3, 'b', 30), (4, 'b', 40)");
+    }
+
+    @Test
+    public void sqlAndParametersComeFromTheShape() throws Exception {
+        PreparedQuery select = PreparedQuery.select("item", new String[]{"id", "price"}, ConditionBuilder.createCondition()
+                .add("kind = ?", "")
+                .add("and id in (?, ?)", 0, 0)
+                .add("order by id", Condition.NOT_WHERE));
+        assertEquals("select id,price from item where kind = ? and id in (?, ?) order by id", select.getSql());
+        assertEquals(3, select.getParamCount());
+        assertEquals(0, select.getColumnCount());
+
+        PreparedQuery update = PreparedQuery.update("item", new String[]{"kind", "price"},
+                ConditionBuilder.createCondition().add("id = ?", 0));
+        assertEquals("update item set kind = ?,price = ? where id = ?", update.getSql());
+        assertEquals(3, update.getParamCount());
+        assertEquals(2, update.getColumnCount());
+
+        PreparedQuery all = PreparedQuery.select("item", ConditionBuilder.createCondition());
+        assertEquals("select * from item", all.getSql());
+        assertEquals(0, all.getParamCount());
+    }
+
+    @Test
+    public void wrongNumberOfValuesIsRejected() throws Exception {
+        PreparedQuery select = PreparedQuery.select("item", ConditionBuilder.createCondition().add("kind = ?", "").add("and price > ?", 0));
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+
+        assertThrows(Exception.class, () -> jdbcTemplate.select(select, Integer.class, "a"));
+        assertThrows(Exception.class, () -> jdbcTemplate.select(select, Integer.class, "a", 0, 1));
+        assertThrows(Exception.class, () -> jdbcTemplate.select(select, Integer.class, (Object[]) null));
+        assertArrayEquals(new Object[0], PreparedQuery.select("item", ConditionBuilder.createCondition()).bind((Object[]) null));
+    }
+
+    @Test
+    public void unconditionalWritesAreRejected() {
+        assertThrows(Exception.class, () -> PreparedQuery.update("item", new String[]{"price"}, ConditionBuilder.createCondition()));
+        assertThrows(Exception.class, () -> PreparedQuery.update("item", new String[0], ConditionBuilder.createCondition().add("id = ?", 0)));
+        assertThrows(Exception.class, () -> PreparedQuery.delete("item", ConditionBuilder.createCondition()));
+    }
+
+    @Test
+    public void eachExecutionBindsItsOwnValues() throws Exception {
+        PreparedQuery select = PreparedQuery.select("item", new String[]{"id"}, ConditionBuilder.createCondition()
+                .add("kind = ?", "")
+                .add("order by id", Condition.NOT_WHERE));
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+
+        assertEquals(List.of(1, 2), jdbcTemplate.select(select, Integer.class, "a"));
+        assertEquals(List.of(3, 4), jdbcTemplate.select(select, Integer.class, "b"));
+        assertEquals(List.of(), jdbcTemplate.select(select, Integer.class, "c"));
+    }
+
+    @Test
+    public void updateTakesTheColumnValuesFirst() throws Exception {
+        PreparedQuery update = PreparedQuery.update("item", new String[]{"kind", "price"},
+                ConditionBuilder.createCondition().add("id = ?", 0));
+        PreparedQuery delete = PreparedQuery.delete("item", ConditionBuilder.createCondition().add("kind = ?", ""));
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+
+        assertEquals(1, jdbcTemplate.exec(update, "c", 15, 1));
+        assertEquals(15, jdbcTemplate.selectOne("select price from item where id = 1 and kind = 'c'", Integer.class));
+
+        assertEquals(2, jdbcTemplate.exec(delete, "b"));
+        assertEquals(2L, jdbcTemplate.selectOne("select count(*) from item", Long.class));
+    }
+
+    @Test
+    public void executionsShareTheStatementCache() throws Exception {
+        PreparedQuery select = PreparedQuery.select("item", new String[]{"price"}, ConditionBuilder.createCondition().add("id = ?", 0));
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        StatementCacheStats stats = StatementCacheManager.getStats(DATA_SOURCE);
+
+        assertEquals(List.of(10), jdbcTemplate.select(select, Integer.class, 1));
+        long misses = stats.getMissCount();
+        long hits = stats.getHitCount();
+        assertEquals(List.of(20), jdbcTemplate.select(select, Integer.class, 2));
+        assertEquals(List.of(30), jdbcTemplate.select(select, Integer.class, 3));
+
+        assertEquals(misses, stats.getMissCount());
+        assertEquals(hits + 2, stats.getHitCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.cache.ProjectionCache;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectionTest {
+
+    private static final String DATA_SOURCE = "projectionTest";
+
+    public static class Book {
+
+        private long id;
+
+        private String title;
+
+        private String author;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public void setAuthor(String author) {
+            this.author = author;
+        }
+    }
+
+    @BeforeAll
+    public static void addDataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:projectionTest;DB_CLOSE_DELAY=-1");
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, dataSource);
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("drop table if exists book");
+        jdbcTemplate.exec("create table book (id bigint primary key, title varchar(20), author varchar(20), pages int)");
+        jdbcTemplate.exec("insert into book (id, title, author, pages) values (1, 't', 'a', 10)");
+        ProjectionCache.clear();
+    }
+
+    @AfterEach
+    public void resetTtl() {
+        ProjectionCache.setTtl(300000);
+    }
+
+    private static Book select() throws Exception {
+        List<Book> books = JDBCTemplate.get(DATA_SOURCE).select("book", ConditionBuilder.createCondition().add("id = ?", 1), Book.class);
+        assertEquals(1, books.size());
+        return books.get(0);
+    }
+
+    @Test
+    public void onlyMappedColumnsAreSelected() throws Exception {
+        Book book = select();
+
+        assertEquals("t", book.getTitle());
+        assertEquals("\"ID\",\"TITLE\",\"AUTHOR\"", ProjectionCache.get(DATA_SOURCE, "book", Book.class));
+    }
+
+    @Test
+    public void droppedColumnIsLeftOutOnRetry() throws Exception {
+        select();
+        JDBCTemplate.get(DATA_SOURCE).exec("alter table book drop column author");
+
+        Book book = select();
+
+        assertEquals("t", book.getTitle());
+        assertNull(book.getAuthor());
+        assertEquals("\"ID\",\"TITLE\"", ProjectionCache.get(DATA_SOURCE, "book", Book.class));
+    }
+
+    @Test
+    public void addedColumnIsSelectedAfterTheTtl() throws Exception {
+        ProjectionCache.setTtl(50);
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("alter table book drop column author");
+        assertNull(select().getAuthor());
+
+        jdbcTemplate.exec("alter table book add column author varchar(20) default 'b'");
+        assertNull(select().getAuthor());
+
+        Thread.sleep(100);
+        assertEquals("b", select().getAuthor());
+    }
+
+    @Test
+    public void otherErrorsAreNotRetried() {
+        assertThrows(Exception.class, () -> JDBCTemplate.get(DATA_SOURCE)
+                .select("book", ConditionBuilder.createCondition().add("missing = ?", 1), Book.class));
+    }
+}
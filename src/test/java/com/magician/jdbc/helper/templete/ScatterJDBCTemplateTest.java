@@ -0,0 +1,145 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.templete.model.PageModel;
+import com.magician.jdbc.helper.templete.model.PageParamModel;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScatterJDBCTemplateTest {
+
+    private static final String[] SHARDS = {"scatter0", "scatter1", "scatter2"};
+
+    private static final String BROKEN = "scatterBroken";
+
+    private static final int ROWS = 30;
+
+    /**
+     * The order of the sql below: amount descending, then id
+     */
+    private static final Comparator<Map> ORDER = Comparator
+            .comparingInt((Map row) -> -((Number) row.get("AMOUNT")).intValue())
+            .thenComparingInt(row -> ((Number) row.get("ID")).intValue());
+
+    private static final String SQL = "select * from orders order by amount desc, id";
+
+    @BeforeAll
+    public static void createShards() throws Exception {
+        MagicianJDBC magicianJDBC = MagicianJDBC.createJDBC();
+        for (String shard : SHARDS) {
+            magicianJDBC.addDataSource(shard, dataSource(shard));
+            JDBCTemplate.get(shard).exec("create table orders (id int primary key, amount int)");
+        }
+        magicianJDBC.addDataSource(BROKEN, dataSource(BROKEN));
+
+        for (int id = 1; id <= ROWS; id++) {
+            JDBCTemplate.get(SHARDS[id % SHARDS.length]).exec("insert into orders (id, amount) values (" + id + ", " + amount(id) + ")");
+        }
+    }
+
+    @AfterAll
+    public static void removeShards() {
+        for (String shard : SHARDS) {
+            DataSourceManager.removeDataSource(shard);
+        }
+        DataSourceManager.removeDataSource(BROKEN);
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    /**
+     * Amounts repeat, so that rows of different shards compare equal on the first key
+     */
+    private static int amount(int id) {
+        return (id * 7) % 11;
+    }
+
+    private static List<Integer> ids(List<Map> rows) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map row : rows) {
+            ids.add(((Number) row.get("ID")).intValue());
+        }
+        return ids;
+    }
+
+    private static List<Integer> globalOrder() {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= ROWS; id++) {
+            ids.add(id);
+        }
+        ids.sort(Comparator.comparingInt((Integer id) -> -amount(id)).thenComparingInt(id -> id));
+        return ids;
+    }
+
+    @Test
+    public void sortedResultsAreMergedInOrder() throws Exception {
+        List<Map> rows = ScatterJDBCTemplate.get(SHARDS).selectList(SQL, null, Map.class, ORDER, -1);
+
+        assertEquals(globalOrder(), ids(rows));
+    }
+
+    @Test
+    public void mergeStopsAtTheLimit() throws Exception {
+        List<Map> rows = ScatterJDBCTemplate.get(SHARDS).selectList(SQL + " limit 7", null, Map.class, ORDER, 7);
+
+        assertEquals(globalOrder().subList(0, 7), ids(rows));
+    }
+
+    @Test
+    public void withoutComparatorResultsAreConcatenated() throws Exception {
+        List<Map> rows = ScatterJDBCTemplate.get(SHARDS).selectList("select * from orders order by id", null, Map.class);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS.length; shard++) {
+            for (int id = 1; id <= ROWS; id++) {
+                if (id % SHARDS.length == shard) {
+                    expected.add(id);
+                }
+            }
+        }
+        assertEquals(expected, ids(rows));
+    }
+
+    @Test
+    public void countsAreAddedUp() throws Exception {
+        assertEquals(ROWS, ScatterJDBCTemplate.get(SHARDS).selectCount("select count(*) from orders", null));
+    }
+
+    @Test
+    public void pageIsCutFromTheMergedRows() throws Exception {
+        PageParamModel pageParamModel = PageParamModel.getPageParamModel(3, 4);
+
+        PageModel<Map> pageModel = ScatterJDBCTemplate.get(SHARDS).selectPage(SQL, pageParamModel, Map.class, ORDER);
+
+        assertEquals(globalOrder().subList(8, 12), ids(pageModel.getDataList()));
+        assertEquals(ROWS, pageModel.getPageCount());
+        assertEquals(8, pageModel.getPageTotal());
+        assertTrue(pageModel.isTotalExact());
+    }
+
+    @Test
+    public void failedDataSourceFailsTheQueryUnlessPartialResultsAreAllowed() throws Exception {
+        List<String> dataSources = new ArrayList<>(List.of(SHARDS));
+        dataSources.add(BROKEN);
+
+        Exception e = assertThrows(Exception.class, () -> ScatterJDBCTemplate.get(dataSources).selectList(SQL, null, Map.class, ORDER, -1));
+        assertTrue(e.getMessage().contains(BROKEN));
+
+        List<Map> rows = ScatterJDBCTemplate.get(dataSources).allowPartial(true).selectList(SQL, null, Map.class, ORDER, -1);
+        assertEquals(globalOrder(), ids(rows));
+    }
+}
@@ -0,0 +1,137 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.sharding.ModShardingStrategy;
+import com.magician.jdbc.helper.sharding.ShardTarget;
+import com.magician.jdbc.helper.sharding.ShardingManager;
+import com.magician.jdbc.helper.sharding.ShardingRule;
+import com.magician.jdbc.helper.templete.util.ConditionBuilder;
+import org.h2.api.Trigger;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardingJDBCTemplateTest {
+
+    private static final String SHARD0 = "shardingTest0";
+
+    private static final String SHARD1 = "shardingTest1";
+
+    @BeforeAll
+    public static void addDataSources() {
+        MagicianJDBC.createJDBC().addDataSource(SHARD0, h2(SHARD0)).addDataSource(SHARD1, h2(SHARD1));
+        ShardingManager.addRule(new ShardingRule("orders", "user_id",
+                new ModShardingStrategy(new ShardTarget(SHARD0, "_0"), new ShardTarget(SHARD1, "_1"))));
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    @AfterAll
+    public static void removeDataSources() {
+        ShardingManager.removeRule("orders");
+        DataSourceManager.removeDataSource(SHARD0);
+        DataSourceManager.removeDataSource(SHARD1);
+    }
+
+    @BeforeEach
+    public void createTables() throws Exception {
+        // The status of the second shard is shorter, so that an update can fail on it only
+        createTable(SHARD0, "orders_0", 10, 2);
+        createTable(SHARD1, "orders_1", 3, 1);
+    }
+
+    private static void createTable(String dataSource, String table, int statusLength, int userId) throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(dataSource);
+        jdbcTemplate.exec("drop table if exists " + table);
+        jdbcTemplate.exec("create table " + table + " (id bigint primary key, user_id bigint, status varchar(" + statusLength + "))");
+        jdbcTemplate.exec("insert into " + table + " (id, user_id, status) values (1, " + userId + ", 'new')");
+    }
+
+    private static Map<String, Object> status(String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", status);
+        return data;
+    }
+
+    private static List<String> statuses() throws Exception {
+        return List.of(
+                JDBCTemplate.get(SHARD0).selectOne("select status from orders_0 where id = 1", String.class),
+                JDBCTemplate.get(SHARD1).selectOne("select status from orders_1 where id = 1", String.class));
+    }
+
+    @Test
+    public void updateOnAllShardsCountsTheirRows() throws Exception {
+        int count = ShardingJDBCTemplate.get().update("orders", status("old"), ConditionBuilder.createCondition().add("id = ?", 1));
+
+        assertEquals(2, count);
+        assertEquals(List.of("old", "old"), statuses());
+    }
+
+    @Test
+    public void failingShardRollsBackTheOthers() throws Exception {
+        Exception e = assertThrows(Exception.class, () -> ShardingJDBCTemplate.get()
+                .update("orders", status("shipped"), ConditionBuilder.createCondition().add("id = ?", 1)));
+
+        assertTrue(e.getMessage().contains(SHARD1 + ":_1"), e.getMessage());
+        assertTrue(e.getMessage().contains("rolled back"), e.getMessage());
+        assertEquals(List.of("new", "new"), statuses());
+        assertFalse(TransactionManager.isTransaction());
+    }
+
+    @Test
+    public void deleteOnAllShardsIsAtomicToo() throws Exception {
+        JDBCTemplate.get(SHARD1).exec("create trigger no_delete before delete on orders_1 for each row call \"" + FailingTrigger.class.getName() + "\"");
+
+        assertThrows(Exception.class, () -> ShardingJDBCTemplate.get().delete("orders", ConditionBuilder.createCondition().add("id = ?", 1)));
+
+        assertEquals(List.of("new", "new"), statuses());
+    }
+
+    @Test
+    public void insideATransactionTheWrittenShardsAreReported() throws Exception {
+        TransactionManager.beginTraction(SHARD0, SHARD1);
+        try {
+            Exception e = assertThrows(Exception.class, () -> ShardingJDBCTemplate.get()
+                    .update("orders", status("shipped"), ConditionBuilder.createCondition().add("id = ?", 1)));
+
+            assertTrue(e.getMessage().contains("[" + SHARD0 + ":_0] were already written"), e.getMessage());
+            // The transaction of the caller is left to it
+            assertTrue(TransactionManager.isTransaction());
+        } finally {
+            TransactionManager.rollback();
+        }
+        assertEquals(List.of("new", "new"), statuses());
+    }
+
+    @Test
+    public void singleShardErrorIsThrownAsItIs() {
+        Exception e = assertThrows(Exception.class, () -> ShardingJDBCTemplate.get()
+                .update("orders", status("shipped"), ConditionBuilder.createCondition().add("user_id = ?", 1)));
+
+        assertInstanceOf(SQLException.class, e);
+    }
+
+    public static class FailingTrigger implements Trigger {
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+            throw new SQLException("Rows of this shard can not be deleted");
+        }
+    }
+}
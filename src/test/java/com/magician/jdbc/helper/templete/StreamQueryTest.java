@@ -0,0 +1,122 @@
+package com.magician.jdbc.helper.templete;
+
+import com.magician.jdbc.MagicianJDBC;
+import com.magician.jdbc.helper.manager.DataSourceManager;
+import com.magician.jdbc.helper.manager.TransactionManager;
+import com.magician.jdbc.helper.pool.PoolConfig;
+import com.magician.jdbc.helper.pool.PooledDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamQueryTest {
+
+    private static final String DATA_SOURCE = "streamTest";
+
+    private static final int ROWS = 250;
+
+    private static PooledDataSource pool;
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:streamTest;DB_CLOSE_DELAY=-1");
+        pool = new PooledDataSource(dataSource, new PoolConfig().setMaxPoolSize(2).setMinIdle(0));
+        MagicianJDBC.createJDBC().addDataSource(DATA_SOURCE, pool);
+
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        jdbcTemplate.exec("create table event (id int primary key, name varchar(20))");
+        jdbcTemplate.exec("insert into event (id, name) select x, 'e' || x from system_range(1, " + ROWS + ")");
+    }
+
+    @AfterAll
+    public static void removeDataSource() {
+        DataSourceManager.removeDataSource(DATA_SOURCE);
+    }
+
+    private static Object[] after(int id) {
+        return new Object[]{id};
+    }
+
+    @Test
+    public void streamMapsRowsAsTheyAreReadAndHoldsTheConnectionUntilClosed() throws Exception {
+        try (Stream<Integer> ids = JDBCTemplate.get(DATA_SOURCE).stream("select id from event where id > ? order by id", after(0), Integer.class, 10)) {
+            Iterator<Integer> iterator = ids.iterator();
+            assertEquals(1, iterator.next());
+            assertEquals(1, pool.getActiveConnections());
+
+            int count = 1;
+            int last = 1;
+            while (iterator.hasNext()) {
+                int id = iterator.next();
+                assertEquals(last + 1, id);
+                last = id;
+                count++;
+            }
+            assertEquals(ROWS, count);
+        }
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    public void streamTakesConditionMaps() throws Exception {
+        try (Stream<Map> rows = JDBCTemplate.get(DATA_SOURCE).stream("select id, name from event where id <= {id} order by id", Map.of("id", 3), Map.class)) {
+            assertEquals(List.of("e1", "e2", "e3"), rows.map(row -> row.get("NAME")).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void closingTheStreamEarlyRestoresAutoCommit() throws Exception {
+        try (Stream<Integer> ids = JDBCTemplate.get(DATA_SOURCE).stream("select id from event order by id", null, Integer.class)) {
+            assertEquals(List.of(1, 2), ids.limit(2).collect(Collectors.toList()));
+        }
+
+        assertEquals(0, pool.getActiveConnections());
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void forEachPassesEveryRowAndReturnsTheConnectionOnError() throws Exception {
+        JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+        List<Integer> ids = new ArrayList<>();
+        jdbcTemplate.forEach("select id from event where id > ? order by id", after(ROWS - 3), Integer.class, ids::add);
+        assertEquals(List.of(ROWS - 2, ROWS - 1, ROWS), ids);
+
+        Exception e = assertThrows(Exception.class, () -> jdbcTemplate.forEach("select id from event", null, Integer.class, id -> {
+            throw new Exception("stop");
+        }));
+        assertEquals("stop", e.getMessage());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    public void insideATransactionTheStreamSeesItsChanges() throws Exception {
+        TransactionManager.beginTraction(DATA_SOURCE);
+        try {
+            JDBCTemplate jdbcTemplate = JDBCTemplate.get(DATA_SOURCE);
+            jdbcTemplate.exec("insert into event (id, name) values (" + (ROWS + 1) + ", 'new')");
+            try (Stream<String> names = jdbcTemplate.stream("select name from event where id > ?", after(ROWS), String.class)) {
+                assertEquals(List.of("new"), names.collect(Collectors.toList()));
+            }
+            // The transaction keeps its connection after the stream is closed
+            assertEquals(1, pool.getActiveConnections());
+        } finally {
+            TransactionManager.rollback();
+        }
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, JDBCTemplate.get(DATA_SOURCE).selectList("select id from event where id > ?", after(ROWS), Integer.class).size());
+    }
+}
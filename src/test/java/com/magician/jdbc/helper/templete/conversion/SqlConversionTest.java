@@ -0,0 +1,113 @@
+package com.magician.jdbc.helper.templete.conversion;
+
+import com.magician.jdbc.helper.templete.model.SqlBuilderModel;
+import com.magician.jdbc.helper.templete.model.SqlTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlConversionTest {
+
+    /**
+     * The regex replacement SqlConversion used before the single pass parser
+     */
+    private static String regexConversion(String sql, List<String> paramNames) {
+        Pattern pattern = Pattern.compile("(\\{((?!}).)*\\})");
+        Matcher matcher = pattern.matcher(sql);
+        while (matcher.find()) {
+            String matcherName = matcher.group();
+            sql = sql.replace(matcherName, "?");
+            paramNames.add(matcherName.replace("{", "").replace("}", ""));
+        }
+        return sql;
+    }
+
+    private static void assertSameAsRegex(String sql) {
+        List<String> paramNames = new ArrayList<>();
+        String expected = regexConversion(sql, paramNames);
+
+        SqlTemplate sqlTemplate = SqlConversion.getSqlTemplate(sql);
+
+        assertEquals(expected, sqlTemplate.getSql(), sql);
+        assertArrayEquals(paramNames.toArray(new String[0]), sqlTemplate.getParamNames(), sql);
+    }
+
+    @Test
+    public void matchesRegexOnTypicalSql() {
+        String[] sqls = {
+                "select * from user",
+                "select * from user where id = {id}",
+                "select * from user where id = {id} and name = {name}",
+                "select * from user where id = {id} or parent_id = {id}",
+                "update user set name={name},age={age} where id={id}",
+                "insert into user (id, name) values ({id}, {name})",
+                "select * from user where name like concat('%', {name}, '%') limit {pageStart},{pageSize}",
+                "select * from(select * from user where age > {age}) tbl where tbl.id > {lastKey} order by tbl.id asc limit {pageSize}",
+                "select '}' from user where id = {id}",
+                "select * from user where id = {}",
+                "select * from user where id = { id }",
+                "select * from user where a = {a{b}",
+                "select * from user where a = {a\n} and b = {b}",
+                "select * from user where a = {a\r\n} and b = {b}",
+                "select * from user where a = {unclosed",
+                "{a}{b}{c}",
+                "",
+        };
+        for (String sql : sqls) {
+            assertSameAsRegex(sql);
+        }
+    }
+
+    @Test
+    public void matchesRegexOnGeneratedSql() {
+        String[] pieces = {"select ", "* ", "from t ", "where ", "a = ", "and ", ",", "'x'", " ", "\n", "}", "{id}", "{name}", "{pageSize}", "{a_b}", "{}"};
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sql = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                sql.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertSameAsRegex(sql.toString());
+        }
+    }
+
+    @Test
+    public void placeholderInsideALaterPlaceholderIsReplacedOnce() {
+        // The regex replaced every copy of {id} as soon as it found the first one, which broke the later {x{id} placeholder
+        SqlTemplate sqlTemplate = SqlConversion.getSqlTemplate("a = {id} and b = {x{id}");
+
+        assertEquals("a = ? and b = ?", sqlTemplate.getSql());
+        assertArrayEquals(new String[]{"id", "xid"}, sqlTemplate.getParamNames());
+    }
+
+    @Test
+    public void builderSqlTakesValuesInPlaceholderOrder() throws Exception {
+        Map<String, Object> param = new HashMap<>();
+        param.put("id", 7);
+        param.put("name", "n");
+
+        SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql("select * from t where id = {id} and name = {name} or id = {id}", param);
+
+        assertEquals("select * from t where id = ? and name = ? or id = ?", sqlBuilderModel.getSql());
+        assertArrayEquals(new Object[]{7, "n", 7}, sqlBuilderModel.getParams());
+        assertSame(SqlConversion.getSqlTemplate("select * from t where id = {id} and name = {name} or id = {id}"),
+                SqlConversion.getSqlTemplate("select * from t where id = {id} and name = {name} or id = {id}"));
+    }
+
+    @Test
+    public void sqlWithoutArgumentsIsLeftAsItIs() throws Exception {
+        SqlBuilderModel sqlBuilderModel = SqlConversion.builderSql("select * from t where id = {id}", null);
+
+        assertEquals("select * from t where id = {id}", sqlBuilderModel.getSql());
+        assertEquals(0, sqlBuilderModel.getParams().length);
+    }
+}
@@ -0,0 +1,126 @@
+package com.magician.jdbc.helper.type;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BindPlanTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    /**
+     * Records the calls, getParameterMetaData reports the types or fails when types is null
+     */
+    private PreparedStatement preparedStatement(int... types) {
+        ParameterMetaData parameterMetaData = (ParameterMetaData) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{ParameterMetaData.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getParameterCount")) {
+                        return types.length;
+                    }
+                    return types[(Integer) args[0] - 1];
+                });
+        return (PreparedStatement) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + Arrays.toString(args));
+                    if (method.getName().equals("getParameterMetaData")) {
+                        if (types == null) {
+                            throw new SQLFeatureNotSupportedException();
+                        }
+                        return parameterMetaData;
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void nullIsBoundWithTheTypeOfThePosition() throws Exception {
+        BindPlan bindPlan = new BindPlan(2);
+        PreparedStatement preparedStatement = preparedStatement(Types.INTEGER, Types.VARCHAR);
+
+        bindPlan.bind(preparedStatement, new Object[]{null, "a"});
+        bindPlan.bind(preparedStatement, new Object[]{7, null});
+        bindPlan.bind(preparedStatement, new Object[]{null, null});
+
+        assertEquals(Arrays.asList(
+                "getParameterMetaDatanull",
+                "setNull[1, 4]",
+                "setString[2, a]",
+                "setInt[1, 7]",
+                "setNull[2, 12]",
+                "setNull[1, 4]",
+                "setNull[2, 12]"), calls);
+    }
+
+    @Test
+    public void nullIsBoundTheSameWayAfterAnyValue() throws Exception {
+        BindPlan bindPlan = new BindPlan(1);
+        PreparedStatement preparedStatement = preparedStatement(Types.OTHER);
+
+        bindPlan.bind(preparedStatement, new Object[]{null});
+        bindPlan.bind(preparedStatement, new Object[]{7});
+        bindPlan.bind(preparedStatement, new Object[]{null});
+        bindPlan.bind(preparedStatement, new Object[]{"a"});
+        bindPlan.bind(preparedStatement, new Object[]{null});
+
+        assertEquals(Arrays.asList(
+                "getParameterMetaDatanull",
+                "setObject[1, null]",
+                "setInt[1, 7]",
+                "setObject[1, null]",
+                "setString[1, a]",
+                "setObject[1, null]"), calls);
+    }
+
+    @Test
+    public void driverWithoutParameterMetaDataLeavesNullToTheDriver() throws Exception {
+        BindPlan bindPlan = new BindPlan(1);
+        PreparedStatement preparedStatement = preparedStatement((int[]) null);
+
+        bindPlan.bind(preparedStatement, new Object[]{null});
+        bindPlan.bind(preparedStatement, new Object[]{null});
+
+        assertEquals(Arrays.asList(
+                "getParameterMetaDatanull",
+                "setObject[1, null]",
+                "setObject[1, null]"), calls);
+    }
+
+    @Test
+    public void typedNullIsAcceptedByTheDatabase() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bindplan;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table t (id int, amount decimal(10, 2), created timestamp)");
+            }
+            String sql = "insert into t (id, amount, created) values (?, ?, ?)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                TypeHandlerManager.bind(preparedStatement, sql, new Object[]{1, null, null});
+                preparedStatement.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select amount, created from t where id = 1")) {
+                assertTrue(resultSet.next());
+                assertNull(resultSet.getObject(1));
+                assertNull(resultSet.getObject(2));
+            }
+        }
+    }
+}
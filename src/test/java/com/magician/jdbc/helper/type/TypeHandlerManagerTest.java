@@ -0,0 +1,77 @@
+package com.magician.jdbc.helper.type;
+
+import com.magician.jdbc.helper.mapper.ColumnReader;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeHandlerManagerTest {
+
+    public interface Code {
+        String code();
+    }
+
+    public static class Base implements Code {
+        @Override
+        public String code() {
+            return "base";
+        }
+    }
+
+    public static class Derived extends Base {
+    }
+
+    public static class CodeTypeHandler implements TypeHandler<Code> {
+
+        @Override
+        public void setParameter(PreparedStatement preparedStatement, int index, Code value) throws SQLException {
+            preparedStatement.setString(index, value.code());
+        }
+
+        @Override
+        public Code getResult(ResultSet resultSet, int index) throws SQLException {
+            return new Derived();
+        }
+    }
+
+    public enum Color {
+        RED,
+        GREEN {
+            @Override
+            public String toString() {
+                return "green";
+            }
+        }
+    }
+
+    @Test
+    public void userHandlerIsFoundThroughSupertypes() throws Exception {
+        CodeTypeHandler typeHandler = new CodeTypeHandler();
+        assertNull(TypeHandlerManager.getUserHandler(Derived.class));
+
+        TypeHandlerManager.register(Code.class, typeHandler);
+
+        assertSame(typeHandler, TypeHandlerManager.getUserHandler(Code.class));
+        assertSame(typeHandler, TypeHandlerManager.getUserHandler(Base.class));
+        assertSame(typeHandler, TypeHandlerManager.getUserHandler(Derived.class));
+        assertSame(typeHandler, TypeHandlerManager.getHandler(Derived.class));
+
+        assertTrue(ColumnReader.isSingleColumnType(Derived.class));
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> null);
+        assertInstanceOf(Derived.class, ColumnReader.of(Derived.class).read(resultSet, 1));
+    }
+
+    @Test
+    public void typesWithoutUserHandlerFallBack() {
+        assertNull(TypeHandlerManager.getUserHandler(String.class));
+        assertInstanceOf(BasicTypeHandler.class, TypeHandlerManager.getHandler(String.class));
+        assertInstanceOf(EnumTypeHandler.class, TypeHandlerManager.getHandler(Color.class));
+        assertInstanceOf(EnumTypeHandler.class, TypeHandlerManager.getHandler(Color.GREEN.getClass()));
+        assertSame(ObjectTypeHandler.INSTANCE, TypeHandlerManager.getHandler(Thread.class));
+    }
+}